@@ -4,10 +4,15 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class GraphQlDemoApplication extends SpringBootServletInitializer {
 
 	public static void main(String[] args) {
+		if (args.length > 0 && ImportCommand.NAME.equals(args[0])) {
+			System.exit(ImportCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+		}
 		SpringApplication.run(GraphQlDemoApplication.class, args);
 	}
 }
@@ -0,0 +1,73 @@
+package com.example.graphqldemo;
+
+import com.example.graphqldemo.dto.ImportResult;
+import com.example.graphqldemo.service.CatalogImport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Команда импорта каталога из файла: {@code java -jar app.jar import <файл> [--restart] [--свойство=значение ...]}.
+ *
+ * Запускает приложение без веб-сервера, импортирует файл через {@link CatalogImport} и завершается.
+ * С --restart контрольная точка прошлого запуска не учитывается, остальные аргументы передаются Spring,
+ * например настройки источника данных.
+ *
+ * @author Turusov Roman
+ */
+@Slf4j
+final class ImportCommand {
+
+    static final String NAME = "import";
+    private static final String RESTART = "--restart";
+
+    private ImportCommand() {
+    }
+
+    /**
+     * Выполнить импорт.
+     *
+     * @param args Аргументы после имени команды.
+     * @return Код завершения процесса: 0 при успехе, 1 при ошибке импорта, 2 при неверных аргументах.
+     */
+    static int run(String[] args) {
+        String file = null;
+        boolean resume = true;
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (RESTART.equals(arg)) {
+                resume = false;
+            } else if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else if (file == null) {
+                file = arg;
+            } else {
+                return usage();
+            }
+        }
+        if (file == null) {
+            return usage();
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GraphQlDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(springArgs.toArray(String[]::new))) {
+            ImportResult result = context.getBean(CatalogImport.class).importFile(Path.of(file), resume);
+            System.out.println(result);
+            return 0;
+        } catch (Exception e) {
+            log.error("import {} failed", file, e);
+            return 1;
+        }
+    }
+
+    private static int usage() {
+        System.err.println("usage: import <file.csv|file.ndjson> [--restart] [--property=value ...]");
+        return 2;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.graphqldemo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Конфигурация кэша каталога.
+ *
+ * Кэши ограничены по размеру и времени жизни (spring.cache.caffeine.spec) и ведут статистику,
+ * которая публикуется через Actuator (/actuator/metrics/cache.gets, cache.evictions, cache.size).
+ * Менеджер обернут в TransactionAwareCacheManagerProxy: значения, прочитанные внутри транзакции,
+ * попадают в кэш только после ее фиксации, поэтому откат не оставляет в кэше незафиксированных данных.
+ * При spring.cache.type=none кэширование отключается (используется в бенчмарках).
+ *
+ * @author Turusov Roman
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Авторы по имени и плану выборки.
+     */
+    public static final String AUTHORS = "authors";
+
+    /**
+     * Книги по идентификатору.
+     */
+    public static final String BOOKS = "books";
+
+    /**
+     * Книги автора по имени автора и плану выборки.
+     */
+    public static final String BOOKS_BY_AUTHOR = "booksByAuthor";
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "caffeine", matchIfMissing = true)
+    public CacheManager cacheManager(@Value("${spring.cache.caffeine.spec}") String specification) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheSpecification(specification);
+        cacheManager.setCacheNames(List.of(AUTHORS, BOOKS, BOOKS_BY_AUTHOR));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.graphqldemo.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Конфигурация движка GraphQL.
+ *
+ * Подключает кэш разобранных документов и автоматические сохраненные запросы (APQ).
+ * Размер кэша задается свойством graphql.document-cache.maximum-size, статистика публикуется
+ * через Actuator как cache.gets с тегом cache=graphqlDocuments.
+ * Запросы сверх допустимой глубины или стоимости (свойства graphql.limits.*) отклоняются до выполнения.
+ * Свойство graphql.execution.virtual-threads=true включает выполнение корневых резолверов на виртуальных потоках.
+ * Ответы на запросы кэшируются с ETag (см. {@link ResponseCacheFilter}); суммарный размер тел задается свойством
+ * graphql.response-cache.maximum-weight, статистика публикуется как cache.gets с тегом cache=graphqlResponses,
+ * graphql.response-cache.enabled=false отключает кэш.
+ *
+ * @author Turusov Roman
+ */
+@Configuration
+@EnableConfigurationProperties(QueryLimitsProperties.class)
+public class GraphQlConfig {
+
+    /**
+     * Имя кэша документов в метриках.
+     */
+    public static final String DOCUMENTS = "graphqlDocuments";
+
+    /**
+     * Имя кэша ответов в метриках.
+     */
+    public static final String RESPONSES = "graphqlResponses";
+
+    @Bean
+    public PersistedDocumentProvider persistedDocumentProvider(
+            @Value("${graphql.document-cache.maximum-size:1000}") long maximumSize, MeterRegistry meterRegistry) {
+        Cache<Object, PreparsedDocumentEntry> documents = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, DOCUMENTS);
+        return new PersistedDocumentProvider(documents);
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer documentCacheCustomizer(PersistedDocumentProvider provider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(provider));
+    }
+
+    @Bean
+    public QueryCostInstrumentation queryCostInstrumentation(QueryLimitsProperties limits) {
+        return new QueryCostInstrumentation(limits);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "graphql.execution.virtual-threads", havingValue = "true")
+    public VirtualThreadDataFetchers virtualThreadDataFetchers() {
+        return new VirtualThreadDataFetchers();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "graphql.execution.virtual-threads", havingValue = "true")
+    public GraphQlSourceBuilderCustomizer virtualThreadCustomizer(VirtualThreadDataFetchers dataFetchers) {
+        return builder -> builder.typeVisitors(List.of(dataFetchers));
+    }
+
+    @Bean
+    public FilterRegistrationBean<PersistedQueryFilter> persistedQueryFilter(
+            ObjectMapper objectMapper, @Value("${spring.graphql.path:/graphql}") String path) {
+        FilterRegistrationBean<PersistedQueryFilter> registration =
+                new FilterRegistrationBean<>(new PersistedQueryFilter(objectMapper));
+        registration.addUrlPatterns(path);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "graphql.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public ResponseCacheFilter responseCacheFilter(
+            ObjectMapper objectMapper, MeterRegistry meterRegistry, ObjectProvider<ReadYourWrites> readYourWrites,
+            @Value("${graphql.response-cache.maximum-weight:64MB}") DataSize maximumWeight,
+            @Value("${graphql.response-cache.time-to-live:10m}") Duration timeToLive,
+            @Value("${graphql.document-cache.maximum-size:1000}") long documents) {
+        Cache<String, ResponseCacheFilter.CachedResponse> responses = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight.toBytes())
+                .weigher(ResponseCacheFilter::weight)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, RESPONSES);
+        return new ResponseCacheFilter(objectMapper, responses, documents, readYourWrites.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "graphql.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<ResponseCacheFilter> responseCacheFilterRegistration(
+            ResponseCacheFilter filter, @Value("${spring.graphql.path:/graphql}") String path) {
+        FilterRegistrationBean<ResponseCacheFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns(path);
+        // Перед PersistedQueryFilter: ответ из кэша не требует подстановки маркера APQ.
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.graphqldemo.config;
+
+import com.example.graphqldemo.metrics.OperationMetricsInstrumentation;
+import com.example.graphqldemo.metrics.SqlStatisticsListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Конфигурация метрик.
+ *
+ * Источник данных оборачивается datasource-proxy, чтобы считать запросы к базе, строки и ожидание
+ * соединения в рамках операции GraphQL. С репликой оборачивается только источник, выбирающий базу,
+ * а не пулы за ним, иначе каждый запрос считался бы дважды. Метрики доступны в /actuator/prometheus.
+ * Бины QueryExecutionListener из контекста подключаются к тому же прокси и видят все запросы,
+ * и Hibernate, и JDBC.
+ * Имя операции задает клиент, поэтому число его значений в метриках graphql.* ограничено.
+ *
+ * @author Turusov Roman
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Максимальное число различных имен операций в метриках.
+     */
+    static final int MAX_OPERATION_NAMES = 100;
+
+    @Bean
+    public static BeanPostProcessor sqlStatisticsDataSourcePostProcessor(
+            ObjectProvider<QueryExecutionListener> queryListeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || ReplicaDataSourceConfig.POOLS.contains(beanName)) {
+                    return bean;
+                }
+                if (bean instanceof LazyConnectionDataSourceProxy lazy) {
+                    // Соединение берется из пула при первом запросе, а не в getConnection() внешнего источника,
+                    // поэтому оборачивается источник, к которому обращается LazyConnectionDataSourceProxy.
+                    lazy.setTargetDataSource(proxy(lazy.getTargetDataSource(), beanName, queryListeners));
+                    return lazy;
+                }
+                return proxy(dataSource, beanName, queryListeners);
+            }
+        };
+    }
+
+    @Bean
+    public OperationMetricsInstrumentation operationMetricsInstrumentation(MeterRegistry meterRegistry) {
+        return new OperationMetricsInstrumentation(meterRegistry);
+    }
+
+    @Bean
+    public MeterFilter operationNameCardinalityFilter() {
+        return MeterFilter.maximumAllowableTags("graphql", OperationMetricsInstrumentation.OPERATION_TAG,
+                MAX_OPERATION_NAMES, MeterFilter.deny());
+    }
+
+    private static DataSource proxy(DataSource dataSource, String name,
+                                    ObjectProvider<QueryExecutionListener> queryListeners) {
+        SqlStatisticsListener listener = new SqlStatisticsListener();
+        ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(name, dataSource)
+                .listener(listener)
+                .methodListener(listener)
+                .proxyResultSet();
+        queryListeners.orderedStream().forEach(builder::listener);
+        return builder.build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.graphqldemo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+
+import java.util.function.Function;
+
+/**
+ * Кэш разобранных и провалидированных документов GraphQL.
+ *
+ * Поддерживает автоматические сохраненные запросы (APQ): если в extensions.persistedQuery.sha256Hash
+ * передан хэш известного документа, текст запроса не нужен. Для неизвестного хэша без текста
+ * возвращается ошибка PERSISTED_QUERY_NOT_FOUND, и клиент повторяет запрос с текстом, после чего документ
+ * регистрируется под этим хэшем (хэш сверяется с текстом). Обычные запросы без хэша кэшируются по тексту.
+ *
+ * Кэш ограничен по размеру, вытеснение Caffeine устойчиво к потоку разовых запросов,
+ * поэтому часто используемые документы в нем остаются.
+ *
+ * @author Turusov Roman
+ */
+public class PersistedDocumentProvider extends ApolloPersistedQuerySupport {
+
+    private final Cache<Object, PreparsedDocumentEntry> documents;
+
+    public PersistedDocumentProvider(Cache<Object, PreparsedDocumentEntry> documents) {
+        super((hash, input, onMiss) -> documents.get(new PersistedId(hash), id -> {
+            String query = input.getQuery();
+            if (query == null || query.isBlank() || PERSISTED_QUERY_MARKER.equals(query)) {
+                throw new PersistedQueryNotFound(hash);
+            }
+            return onMiss.apply(query);
+        }));
+        this.documents = documents;
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput input,
+                                              Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        if (getPersistedQueryId(input).isPresent()) {
+            return super.getDocument(input, parseAndValidate);
+        }
+        return documents.get(input.getQuery(), query -> parseAndValidate.apply(input));
+    }
+
+    /**
+     * Ключ документа, зарегистрированного по хэшу. Отделяет хэши от текстов обычных запросов.
+     */
+    private record PersistedId(Object hash) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.graphqldemo.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Пропускает запросы APQ, содержащие только хэш документа.
+ *
+ * Обработчик /graphql отклоняет тело без поля query, поэтому для таких запросов фильтр подставляет
+ * маркер сохраненного запроса graphql-java, а документ берется из {@link PersistedDocumentProvider}.
+ * Наличие документа проверяется по полю query верхнего уровня разобранного JSON: ключ query может встречаться
+ * и в переменных. Тела без строки "persistedQuery" передаются без разбора JSON.
+ *
+ * @author Turusov Roman
+ */
+@RequiredArgsConstructor
+public class PersistedQueryFilter extends OncePerRequestFilter {
+
+    private static final byte[] PERSISTED_QUERY_FIELD = "\"persistedQuery\"".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        byte[] body = request.getInputStream().readAllBytes();
+        if (contains(body, PERSISTED_QUERY_FIELD)) {
+            body = withMarker(body);
+        }
+        chain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private byte[] withMarker(byte[] body) {
+        Map<String, Object> json;
+        try {
+            json = objectMapper.readValue(body, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            return body;
+        }
+        if (json == null || json.containsKey("query")
+                || !(json.get("extensions") instanceof Map<?, ?> extensions)
+                || !extensions.containsKey("persistedQuery")) {
+            return body;
+        }
+        json.put("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+        try {
+            return objectMapper.writeValueAsBytes(json);
+        } catch (IOException e) {
+            return body;
+        }
+    }
+
+    private static boolean contains(byte[] body, byte[] part) {
+        outer:
+        for (int i = 0; i <= body.length - part.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (body[i + j] != part[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.graphqldemo.config;
+
+import com.example.graphqldemo.service.QueryService;
+import graphql.ExecutionResult;
+import graphql.analysis.QueryTraverser;
+import graphql.analysis.QueryVisitorFieldEnvironment;
+import graphql.analysis.QueryVisitorStub;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import lombok.RequiredArgsConstructor;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Ограничивает глубину и стоимость запроса до его выполнения.
+ *
+ * Схема циклическая (Author.books и Book.authors), поэтому короткий документ может запросить
+ * экспоненциально большой ответ. Стоимость поля равна его собственной стоимости плюс стоимость
+ * вложенных полей, умноженная на ожидаемый размер списка: для полей с аргументом first берется
+ * размер страницы, для остальных списков значение из {@link QueryLimitsProperties}. Поля интроспекции не учитываются.
+ * Стоимость считается для каждого запроса с учетом переменных и возвращается в extensions.cost.
+ *
+ * @author Turusov Roman
+ */
+@RequiredArgsConstructor
+public class QueryCostInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Ключ стоимости в extensions ответа.
+     */
+    public static final String EXTENSION = "cost";
+
+    private final QueryLimitsProperties limits;
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new Cost();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        Cost cost = (Cost) state;
+        measure(parameters.getExecutionContext(), cost);
+        if (cost.depth > limits.maxDepth()) {
+            throw new AbortExecutionException(String.format(
+                    "Глубина запроса %d превышает допустимую %d", cost.depth, limits.maxDepth()));
+        }
+        if (cost.requested > limits.maxCost()) {
+            throw new AbortExecutionException(String.format(
+                    "Стоимость запроса %d превышает допустимую %d", cost.requested, limits.maxCost()));
+        }
+        return super.beginExecuteOperation(parameters, state);
+    }
+
+    @Override
+    public CompletableFuture<ExecutionResult> instrumentExecutionResult(ExecutionResult result,
+                                                                        InstrumentationExecutionParameters parameters,
+                                                                        InstrumentationState state) {
+        Cost cost = (Cost) state;
+        if (!cost.measured) {
+            return CompletableFuture.completedFuture(result);
+        }
+        Map<String, Object> extension = new LinkedHashMap<>();
+        extension.put("requested", cost.requested);
+        extension.put("maximum", limits.maxCost());
+        extension.put("depth", cost.depth);
+        extension.put("maxDepth", limits.maxDepth());
+        return CompletableFuture.completedFuture(result.transform(builder -> builder.addExtension(EXTENSION, extension)));
+    }
+
+    private void measure(ExecutionContext context, Cost cost) {
+        Map<QueryVisitorFieldEnvironment, Long> childCosts = new HashMap<>();
+        QueryTraverser.newQueryTraverser()
+                .schema(context.getGraphQLSchema())
+                .document(context.getDocument())
+                .operationName(context.getOperationDefinition().getName())
+                .coercedVariables(context.getCoercedVariables())
+                .build()
+                .visitPostOrder(new QueryVisitorStub() {
+                    @Override
+                    public void visitField(QueryVisitorFieldEnvironment env) {
+                        if (isIntrospection(env)) {
+                            return;
+                        }
+                        cost.depth = Math.max(cost.depth, depth(env));
+                        long value = fieldCost(env, childCosts.getOrDefault(env, 0L));
+                        childCosts.merge(env.getParentEnvironment(), value, QueryCostInstrumentation::add);
+                    }
+                });
+        cost.requested = childCosts.getOrDefault(null, 0L);
+        cost.measured = true;
+    }
+
+    private long fieldCost(QueryVisitorFieldEnvironment env, long childCost) {
+        GraphQLFieldDefinition field = env.getFieldDefinition();
+        String coordinate = env.getFieldsContainer().getName() + "." + field.getName();
+        GraphQLType type = GraphQLTypeUtil.unwrapNonNull(field.getType());
+        long own = limits.fieldCosts().getOrDefault(coordinate, GraphQLTypeUtil.isLeaf(GraphQLTypeUtil.unwrapAll(type)) ? 0L : 1L);
+        return add(own, multiply(listSize(env, coordinate, type), childCost));
+    }
+
+    private long listSize(QueryVisitorFieldEnvironment env, String coordinate, GraphQLType type) {
+        if (env.getFieldDefinition().getArgument("first") != null) {
+            return env.getArguments().get("first") instanceof Integer first
+                    ? Math.max(1, Math.min(first, QueryService.MAX_PAGE_SIZE))
+                    : QueryService.DEFAULT_PAGE_SIZE;
+        }
+        // Размер списков внутри Relay-соединения уже учтен аргументом first самого соединения.
+        if (!GraphQLTypeUtil.isList(type) || env.getFieldsContainer().getName().endsWith("Connection")) {
+            return 1;
+        }
+        return limits.listSizes().getOrDefault(coordinate, limits.listSize());
+    }
+
+    private static boolean isIntrospection(QueryVisitorFieldEnvironment env) {
+        return env.isTypeNameIntrospectionField()
+                || env.getFieldDefinition().getName().startsWith("__")
+                || env.getFieldsContainer().getName().startsWith("__");
+    }
+
+    private static int depth(QueryVisitorFieldEnvironment env) {
+        int depth = 0;
+        for (QueryVisitorFieldEnvironment parent = env; parent != null; parent = parent.getParentEnvironment()) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long multiply(long a, long b) {
+        return b != 0 && a > Long.MAX_VALUE / b ? Long.MAX_VALUE : a * b;
+    }
+
+    /**
+     * Глубина и стоимость одного запроса.
+     */
+    private static class Cost implements InstrumentationState {
+        private boolean measured;
+        private int depth;
+        private long requested;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.graphqldemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Ограничения на глубину и стоимость запросов GraphQL (свойства graphql.limits.*).
+ *
+ * Поля задаются в виде Тип.поле, например graphql.limits.list-sizes[Query.getAllBooks]=100.
+ *
+ * @param maxDepth   Максимальная вложенность полей.
+ * @param maxCost    Максимальная стоимость запроса.
+ * @param listSize   Ожидаемый размер списка без аргумента first.
+ * @param fieldCosts Собственная стоимость отдельных полей. По умолчанию 1 для объектов и 0 для скалярных полей.
+ * @param listSizes  Ожидаемый размер отдельных списков.
+ * @author Turusov Roman
+ */
+@ConfigurationProperties(prefix = "graphql.limits")
+public record QueryLimitsProperties(@DefaultValue("8") int maxDepth,
+                                    @DefaultValue("5000") long maxCost,
+                                    @DefaultValue("10") int listSize,
+                                    Map<String, Long> fieldCosts,
+                                    Map<String, Integer> listSizes) {
+
+    public QueryLimitsProperties {
+        fieldCosts = fieldCosts == null ? Map.of() : Map.copyOf(fieldCosts);
+        listSizes = listSizes == null ? Map.of() : Map.copyOf(listSizes);
+    }
+}
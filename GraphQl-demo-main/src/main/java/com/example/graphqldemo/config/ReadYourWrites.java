@@ -0,0 +1,110 @@
+package com.example.graphqldemo.config;
+
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.context.ContextRegistry;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import java.time.Duration;
+
+/**
+ * Чтение своих записей при работе с репликой.
+ *
+ * Клиент передает свой идентификатор в заголовке (по умолчанию X-Client-Id). После мутации, изменившей каталог,
+ * запросы этого клиента в течение заданного времени читают из основной базы, а не из реплики, которая
+ * может отставать. Идентификатор клиента передается резолверам и загрузчикам DataLoader через контекст
+ * запроса и доступен в потоке выполнения. Запросы без заголовка всегда читают из реплики.
+ *
+ * @author Turusov Roman
+ */
+public class ReadYourWrites implements WebGraphQlInterceptor {
+
+    /**
+     * Ключ идентификатора клиента в контексте запроса.
+     */
+    public static final String CLIENT_KEY = ReadYourWrites.class.getName() + ".client";
+
+    private static final ThreadLocal<String> CLIENT = new ThreadLocal<>();
+
+    static {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(CLIENT_KEY, CLIENT);
+    }
+
+    private final String header;
+    private final Duration duration;
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * @param header   Заголовок с идентификатором клиента.
+     * @param duration Сколько клиент читает из основной базы после своей мутации.
+     */
+    public ReadYourWrites(String header, Duration duration) {
+        this.header = header;
+        this.duration = duration;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(duration)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        String client = request.getHeaders().getFirst(header);
+        if (client == null || client.isBlank()) {
+            return chain.next(request);
+        }
+        return chain.next(request).contextWrite(Context.of(CLIENT_KEY, client));
+    }
+
+    /**
+     * @return Заголовок с идентификатором клиента.
+     */
+    public String header() {
+        return header;
+    }
+
+    /**
+     * @return Сколько клиент читает из основной базы после своей мутации; реплика должна отставать меньше.
+     */
+    public Duration duration() {
+        return duration;
+    }
+
+    /**
+     * Должен ли текущий запрос читать из основной базы.
+     *
+     * @return {@code true}, если клиент текущего запроса недавно выполнил мутацию.
+     */
+    public boolean isPinned() {
+        return isPinned(CLIENT.get());
+    }
+
+    /**
+     * Должен ли клиент читать из основной базы.
+     *
+     * @param client Идентификатор клиента из заголовка или {@code null}.
+     * @return {@code true}, если клиент недавно выполнил мутацию.
+     */
+    public boolean isPinned(String client) {
+        return client != null && recentWriters.getIfPresent(client) != null;
+    }
+
+    /**
+     * Запомнить клиента, мутация которого зафиксирована.
+     *
+     * @param event Изменения одной мутации.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        String client = CLIENT.get();
+        if (client != null) {
+            recentWriters.put(client, Boolean.TRUE);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.graphqldemo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Конфигурация чтения из реплики.
+ *
+ * Включается свойством spring.datasource.replica.url. Основная база настраивается как обычно (spring.datasource.*),
+ * реплика - такими же свойствами с префиксом spring.datasource.replica, у каждой свой пул Hikari
+ * (метрики hikaricp.* с тегом pool=primary и pool=replica). Чтения CatalogViewRepository выполняются в транзакциях
+ * только для чтения и читают из реплики, MutationService пишет в основную базу (см. {@link ReplicaRoutingDataSource}).
+ * Свойства graphql.read-your-writes.header и graphql.read-your-writes.duration задают заголовок с идентификатором
+ * клиента и время, в течение которого клиент после своей мутации читает из основной базы.
+ * Без spring.datasource.replica.url используется один источник данных Spring Boot.
+ *
+ * @author Turusov Roman
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Бины пулов основной базы и реплики; datasource-proxy оборачивает не их, а общий источник данных.
+     */
+    static final Set<String> POOLS = Set.of("primaryDataSource", "replicaDataSource");
+
+    private static final String REPLICA_PREFIX = "spring.datasource.replica";
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties, Environment environment) {
+        return pool(properties, "spring.datasource.hikari", "primary", environment);
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(Environment environment) throws Exception {
+        DataSourceProperties properties = Binder.get(environment).bind(REPLICA_PREFIX, DataSourceProperties.class)
+                .orElseThrow(() -> new IllegalStateException("Свойства " + REPLICA_PREFIX + " не заданы"));
+        properties.afterPropertiesSet();
+        return pool(properties, REPLICA_PREFIX + ".hikari", "replica", environment);
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${graphql.read-your-writes.header:X-Client-Id}") String header,
+                                         @Value("${graphql.read-your-writes.duration:2s}") Duration duration) {
+        return new ReadYourWrites(header, duration);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReadYourWrites readYourWrites) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica, readYourWrites));
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String hikariPrefix, String name,
+                                         Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind(hikariPrefix, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        return dataSource;
+    }
+}
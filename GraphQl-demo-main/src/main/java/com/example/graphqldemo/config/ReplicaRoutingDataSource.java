@@ -0,0 +1,45 @@
+package com.example.graphqldemo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Источник данных, выбирающий основную базу или реплику для каждого соединения.
+ *
+ * Соединения транзакций только для чтения берутся из пула реплики, все остальные (транзакции записи,
+ * запросы вне транзакций, миграции схемы) - из пула основной базы. Клиент, недавно выполнивший мутацию,
+ * читает из основной базы (см. {@link ReadYourWrites}), чтобы увидеть свои изменения до того, как они
+ * дойдут до реплики. Флаг транзакции известен только после ее начала, поэтому источник используется
+ * через LazyConnectionDataSourceProxy, который берет соединение при первом запросе.
+ *
+ * @author Turusov Roman
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * База, из которой берется соединение.
+     */
+    public enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Target determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !readYourWrites.isPinned()
+                ? Target.REPLICA
+                : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.graphqldemo.config;
+
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.GraphQLException;
+import graphql.language.AstPrinter;
+import graphql.language.Document;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш ответов на запросы GraphQL.
+ *
+ * Ключ - хэш нормализованного документа (без пробелов и комментариев), имени операции, переменных
+ * с упорядоченными ключами и заголовка Accept. Документы с мутациями и подписками, ответы с ошибками
+ * и ответы с кодом, отличным от 200, не кэшируются. Запросы APQ только с хэшем используют ключ документа,
+ * зарегистрированного под этим хэшем.
+ *
+ * Кэш хранит сериализованное тело ответа и ограничен суммарным размером тел и временем жизни записей
+ * (graphql.response-cache.time-to-live). Каждая зафиксированная мутация увеличивает версию каталога, и записи
+ * прежних версий не используются: версия запоминается до выполнения запроса, поэтому ответ, прочитанный
+ * одновременно с мутацией, не переживет ее.
+ *
+ * При чтении из реплики ({@link ReadYourWrites}) клиент, читающий свои записи из основной базы, не получает
+ * ответы из кэша и не сохраняет их, а ответы, выполненные в течение graphql.read-your-writes.duration после
+ * мутации, не сохраняются: реплика могла еще не получить ее изменения.
+ *
+ * Ответ содержит ETag - хэш тела. Если клиент передал его в If-None-Match и ответ не изменился,
+ * возвращается 304 без тела, а при попадании в кэш запрос не выполняется вовсе. Запрос GraphQL
+ * только читает данные, поэтому 304 возвращается и для POST.
+ *
+ * @author Turusov Roman
+ */
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+    private static final String PENDING = ResponseCacheFilter.class.getName() + ".pending";
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter variablesWriter;
+    private final Cache<String, CachedResponse> responses;
+    private final Cache<String, Optional<String>> documentKeys;
+    private final Cache<String, String> persistedKeys;
+    private final AtomicLong version = new AtomicLong();
+    private final ReadYourWrites readYourWrites;
+    /**
+     * До какого момента (System.nanoTime()) ответ, прочитанный из реплики, может быть старше последней мутации.
+     */
+    private volatile long replicaStaleUntil = System.nanoTime();
+
+    /**
+     * @param objectMapper   Разбор тела запроса и сериализация переменных.
+     * @param responses      Кэш ответов, ограниченный весом {@link #weight(String, CachedResponse)}.
+     * @param documents      Сколько ключей нормализованных документов хранить.
+     * @param readYourWrites Чтение своих записей или {@code null}, если реплика не используется.
+     */
+    public ResponseCacheFilter(ObjectMapper objectMapper, Cache<String, CachedResponse> responses, long documents,
+                               ReadYourWrites readYourWrites) {
+        this.objectMapper = objectMapper;
+        this.readYourWrites = readYourWrites;
+        this.variablesWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+        this.responses = responses;
+        this.documentKeys = Caffeine.newBuilder().maximumSize(documents).build();
+        this.persistedKeys = Caffeine.newBuilder().maximumSize(documents).build();
+    }
+
+    /**
+     * Вес записи кэша: размер тела ответа и ключа в байтах.
+     *
+     * @param key      Ключ записи.
+     * @param response Сохраненный ответ.
+     * @return Приблизительный объем памяти, занимаемый записью.
+     */
+    public static int weight(String key, CachedResponse response) {
+        return key.length() + response.etag().length() + response.body().length + 64;
+    }
+
+    /**
+     * Увеличить версию каталога после фиксации мутации.
+     *
+     * @param event Изменения одной мутации.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (readYourWrites != null) {
+            replicaStaleUntil = System.nanoTime() + readYourWrites.duration().toNanos();
+        }
+        version.incrementAndGet();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod());
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            chain.doFilter(request, response);
+            if (!isAsyncStarted(request)) {
+                complete(request, response);
+            }
+            return;
+        }
+
+        long currentVersion = version.get();
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpServletRequest cachedRequest = new CachedBodyRequest(request, body);
+        String key = pinned(request) ? null : key(body, request.getHeader(HttpHeaders.ACCEPT));
+        if (key == null) {
+            chain.doFilter(cachedRequest, response);
+            return;
+        }
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.version() == currentVersion) {
+            write(request, response, cached);
+            return;
+        }
+
+        request.setAttribute(PENDING, new Pending(key, currentVersion));
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(cachedRequest, wrapper);
+        if (!isAsyncStarted(cachedRequest)) {
+            complete(cachedRequest, wrapper);
+        }
+    }
+
+    /**
+     * Сохранить выполненный ответ и отправить его клиенту. Обработчик /graphql выполняет запрос асинхронно,
+     * поэтому ответ обычно готов только при повторном (асинхронном) проходе фильтра.
+     */
+    private void complete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Pending pending = (Pending) request.getAttribute(PENDING);
+        ContentCachingResponseWrapper wrapper =
+                WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (pending == null || wrapper == null) {
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || replicaMayBeStale() || hasErrors(body)) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        CachedResponse cached = new CachedResponse(pending.version(), etag(body), wrapper.getContentType(), body);
+        responses.put(pending.key(), cached);
+
+        HttpServletResponse raw = (HttpServletResponse) wrapper.getResponse();
+        raw.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (notModified(request, cached.etag())) {
+            raw.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response, CachedResponse cached)
+            throws IOException {
+        response.setHeader(HttpHeaders.ETAG, cached.etag());
+        if (notModified(request, cached.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(cached.contentType());
+        response.setContentLength(cached.body().length);
+        response.getOutputStream().write(cached.body());
+    }
+
+    /**
+     * Клиент запроса после своей мутации читает из основной базы, а в кэше может быть ответ из реплики.
+     */
+    private boolean pinned(HttpServletRequest request) {
+        return readYourWrites != null && readYourWrites.isPinned(request.getHeader(readYourWrites.header()));
+    }
+
+    /**
+     * Ответ мог быть прочитан из реплики, которая еще не получила изменения недавней мутации.
+     */
+    private boolean replicaMayBeStale() {
+        return readYourWrites != null && System.nanoTime() - replicaStaleUntil < 0;
+    }
+
+    /**
+     * Ключ ответа, или {@code null}, если запрос не кэшируется.
+     */
+    private String key(byte[] body, String accept) {
+        Map<String, Object> json;
+        try {
+            json = objectMapper.readValue(body, JSON_OBJECT);
+        } catch (IOException e) {
+            return null;
+        }
+        if (json == null) {
+            return null;
+        }
+        String persistedHash = persistedHash(json);
+        String document;
+        if (json.get("query") instanceof String query && !query.isBlank()) {
+            document = documentKeys.get(query, ResponseCacheFilter::normalize).orElse(null);
+            if (document != null && persistedHash != null && persistedHash.equals(sha256(query))) {
+                persistedKeys.put(persistedHash, document);
+            }
+        } else if (persistedHash != null) {
+            document = persistedKeys.getIfPresent(persistedHash);
+        } else {
+            return null;
+        }
+        if (document == null) {
+            return null;
+        }
+        String variables;
+        try {
+            variables = variablesWriter.writeValueAsString(Objects.requireNonNullElse(json.get("variables"), Map.of()));
+        } catch (IOException e) {
+            return null;
+        }
+        return sha256(document + '\n' + json.get("operationName") + '\n' + variables + '\n' + accept);
+    }
+
+    private static String persistedHash(Map<String, Object> json) {
+        if (json.get("extensions") instanceof Map<?, ?> extensions
+                && extensions.get("persistedQuery") instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get("sha256Hash") instanceof String hash) {
+            return hash;
+        }
+        return null;
+    }
+
+    /**
+     * Хэш документа без пробелов и комментариев, или пустой Optional для документов с мутациями,
+     * подписками и синтаксическими ошибками.
+     */
+    private static Optional<String> normalize(String query) {
+        Document document;
+        try {
+            document = Parser.parse(query);
+        } catch (GraphQLException e) {
+            return Optional.empty();
+        }
+        boolean queriesOnly = document.getDefinitionsOfType(OperationDefinition.class).stream()
+                .allMatch(operation -> operation.getOperation() == OperationDefinition.Operation.QUERY);
+        return queriesOnly ? Optional.of(sha256(AstPrinter.printAstCompact(document))) : Optional.empty();
+    }
+
+    private boolean hasErrors(byte[] body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return true;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if ("errors".equals(parser.getCurrentName())) {
+                    return true;
+                }
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            return false;
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String etag(byte[] body) {
+        return '"' + HexFormat.of().formatHex(digest(body), 0, 16) + '"';
+    }
+
+    private static String sha256(String value) {
+        return HexFormat.of().formatHex(digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] digest(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Сохраненный ответ.
+     *
+     * @param version     Версия каталога, при которой начато выполнение запроса.
+     * @param etag        Хэш тела.
+     * @param contentType Тип содержимого ответа.
+     * @param body        Сериализованное тело ответа.
+     */
+    public record CachedResponse(long version, String etag, String contentType, byte[] body) {
+    }
+
+    /**
+     * Ключ и версия запроса, ответ на который еще выполняется.
+     */
+    private record Pending(String key, long version) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.graphqldemo.config;
+
+import com.example.graphqldemo.metrics.SqlStatistics;
+import graphql.schema.DataFetcher;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLCodeRegistry;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLSchemaElement;
+import graphql.schema.GraphQLTypeVisitorStub;
+import graphql.util.TraversalControl;
+import graphql.util.TraverserContext;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Выполнение корневых резолверов на виртуальных потоках.
+ *
+ * Резолверы полей Query и Mutation возвращают CompletableFuture, который завершается в отдельном
+ * виртуальном потоке. Поток запроса освобождается на время обращения к базе, соседние корневые поля
+ * запроса выполняются параллельно, поля мутации по-прежнему выполняются по очереди.
+ * Ошибки контроллеров Spring возвращает как Mono, он также переводится в CompletableFuture.
+ * Вложенные поля и загрузчики DataLoader продолжают выполняться в потоке, завершившем родительское поле.
+ * Счетчики {@link SqlStatistics} операции и значения ThreadLocal, зарегистрированные в ContextRegistry
+ * (например, клиент для {@link ReadYourWrites}), привязываются к виртуальному потоку на время резолвера
+ * и продолжения выполнения.
+ *
+ * @author Turusov Roman
+ */
+public class VirtualThreadDataFetchers extends GraphQLTypeVisitorStub implements AutoCloseable {
+
+    private static final Set<String> ROOT_TYPES = Set.of("Query", "Mutation");
+
+    private final ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("graphql-", 0).factory());
+
+    @Override
+    public TraversalControl visitGraphQLFieldDefinition(GraphQLFieldDefinition field,
+                                                        TraverserContext<GraphQLSchemaElement> context) {
+        if (context.getParentNode() instanceof GraphQLFieldsContainer parent && ROOT_TYPES.contains(parent.getName())) {
+            GraphQLCodeRegistry.Builder registry = context.getVarFromParents(GraphQLCodeRegistry.Builder.class);
+            FieldCoordinates coordinates = FieldCoordinates.coordinates(parent, field);
+            DataFetcher<?> delegate = registry.getDataFetcher(coordinates, field);
+            registry.dataFetcher(coordinates, async(delegate));
+        }
+        return TraversalControl.CONTINUE;
+    }
+
+    private DataFetcher<CompletableFuture<Object>> async(DataFetcher<?> delegate) {
+        return environment -> {
+            SqlStatistics statistics = SqlStatistics.current();
+            ContextSnapshot snapshot = snapshots.captureAll();
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            executor.execute(() -> {
+                SqlStatistics previous = SqlStatistics.attach(statistics);
+                try (ContextSnapshot.Scope scope = snapshot.setThreadLocals()) {
+                    Object value = delegate.get(environment);
+                    if (value instanceof Mono<?> mono) {
+                        value = mono.toFuture();
+                    }
+                    if (value instanceof CompletableFuture<?> future) {
+                        future.whenComplete((completed, failure) -> complete(result, completed, failure));
+                    } else {
+                        result.complete(value);
+                    }
+                } catch (Throwable failure) {
+                    result.completeExceptionally(failure);
+                } finally {
+                    SqlStatistics.restore(previous);
+                }
+            });
+            return result;
+        };
+    }
+
+    private static void complete(CompletableFuture<Object> result, Object value, Throwable failure) {
+        if (failure != null) {
+            result.completeExceptionally(failure);
+        } else {
+            result.complete(value);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
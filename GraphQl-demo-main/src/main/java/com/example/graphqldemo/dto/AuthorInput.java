@@ -0,0 +1,13 @@
+package com.example.graphqldemo.dto;
+
+import java.util.List;
+
+/**
+ * Входные данные автора для пакетного сохранения.
+ *
+ * @param name       Имя автора.
+ * @param bookTitles Названия книг автора.
+ * @author Turusov Roman
+ */
+public record AuthorInput(String name, List<String> bookTitles) {
+}
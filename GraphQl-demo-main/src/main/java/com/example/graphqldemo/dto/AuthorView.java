@@ -0,0 +1,48 @@
+package com.example.graphqldemo.dto;
+
+import com.example.graphqldemo.model.Author;
+import org.hibernate.Hibernate;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Автор в модели чтения (тип Author схемы GraphQL).
+ *
+ * Строится прямо из строк результата SQL-запроса ({@link com.example.graphqldemo.repository.CatalogViewRepository}),
+ * без создания сущностей и их снимков в контексте постоянства.
+ * Неизменяем, поэтому безопасно хранится в кэше и передается между потоками.
+ *
+ * @param id    Идентификатор автора.
+ * @param name  Имя автора.
+ * @param books Книги автора без их авторов (неизменяемый список) или {@code null}, если книги не загружались.
+ * @author Turusov Roman
+ */
+public record AuthorView(Long id, String name, List<BookView> books) {
+
+    /**
+     * Создает автора только со скалярными полями. Используется, когда книги не запрошены.
+     *
+     * @param id   Идентификатор автора.
+     * @param name Имя автора.
+     */
+    public AuthorView(Long id, String name) {
+        this(id, name, null);
+    }
+
+    /**
+     * Создает представление сохраненной сущности для ответа мутации.
+     *
+     * @param author Сущность автора.
+     * @return Автор с книгами, если их коллекция загружена, иначе только скалярные поля.
+     */
+    public static AuthorView of(Author author) {
+        Set<?> books = author.getBooks();
+        if (books == null || !Hibernate.isInitialized(books)) {
+            return new AuthorView(author.getId(), author.getName());
+        }
+        return new AuthorView(author.getId(), author.getName(), author.getBooks().stream()
+                .map(book -> new BookView(book.getId(), book.getTitle()))
+                .toList());
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.graphqldemo.dto;
+
+import java.util.List;
+
+/**
+ * Входные данные книги для пакетного сохранения.
+ *
+ * @param title       Название книги.
+ * @param authorNames Имена авторов книги.
+ * @author Turusov Roman
+ */
+public record BookInput(String title, List<String> authorNames) {
+}
@@ -0,0 +1,48 @@
+package com.example.graphqldemo.dto;
+
+import com.example.graphqldemo.model.Book;
+import org.hibernate.Hibernate;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Книга в модели чтения (тип Book схемы GraphQL).
+ *
+ * Строится прямо из строк результата SQL-запроса ({@link com.example.graphqldemo.repository.CatalogViewRepository}),
+ * без создания сущностей и их снимков в контексте постоянства.
+ * Неизменяема, поэтому безопасно хранится в кэше и передается между потоками.
+ *
+ * @param id      Идентификатор книги.
+ * @param title   Название книги.
+ * @param authors Авторы книги без их книг (неизменяемый список) или {@code null}, если авторы не загружались.
+ * @author Turusov Roman
+ */
+public record BookView(Long id, String title, List<AuthorView> authors) {
+
+    /**
+     * Создает книгу только со скалярными полями. Используется, когда авторы не запрошены.
+     *
+     * @param id    Идентификатор книги.
+     * @param title Название книги.
+     */
+    public BookView(Long id, String title) {
+        this(id, title, null);
+    }
+
+    /**
+     * Создает представление сохраненной сущности для ответа мутации.
+     *
+     * @param book Сущность книги.
+     * @return Книга с авторами, если их коллекция загружена, иначе только скалярные поля.
+     */
+    public static BookView of(Book book) {
+        Set<?> authors = book.getAuthors();
+        if (authors == null || !Hibernate.isInitialized(authors)) {
+            return new BookView(book.getId(), book.getTitle());
+        }
+        return new BookView(book.getId(), book.getTitle(), book.getAuthors().stream()
+                .map(author -> new AuthorView(author.getId(), author.getName()))
+                .toList());
+    }
+}
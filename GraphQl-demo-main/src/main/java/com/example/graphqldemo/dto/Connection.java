@@ -0,0 +1,38 @@
+package com.example.graphqldemo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница результатов в формате Relay Connection.
+ *
+ * @param edges    Элементы страницы вместе с курсорами.
+ * @param pageInfo Сведения о наличии соседних страниц.
+ * @param <T>      Тип элемента.
+ * @author Turusov Roman
+ */
+public record Connection<T>(List<Edge<T>> edges, PageInfo pageInfo) {
+
+    /**
+     * Собирает страницу из выборки, запрошенной с запасом в один элемент.
+     *
+     * Если выборка содержит больше {@code first} элементов, лишний элемент отбрасывается
+     * и считается признаком наличия следующей страницы.
+     *
+     * @param items       Элементы, упорядоченные по идентификатору, не более {@code first + 1}.
+     * @param first       Размер страницы.
+     * @param hasPrevious Есть ли элементы перед страницей.
+     * @param idOf        Функция получения идентификатора, из которого строится курсор.
+     * @return Страница результатов.
+     */
+    public static <T> Connection<T> of(List<T> items, int first, boolean hasPrevious, Function<T, Long> idOf) {
+        boolean hasNext = items.size() > first;
+        List<Edge<T>> edges = items.stream()
+                .limit(first)
+                .map(item -> new Edge<>(item, Cursor.encode(idOf.apply(item))))
+                .toList();
+        String startCursor = edges.isEmpty() ? null : edges.get(0).cursor();
+        String endCursor = edges.isEmpty() ? null : edges.get(edges.size() - 1).cursor();
+        return new Connection<>(edges, new PageInfo(hasPrevious, hasNext, startCursor, endCursor));
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.graphqldemo.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор для постраничной выборки по ключу.
+ *
+ * Курсор хранит идентификатор последнего выданного элемента, следующая страница
+ * выбирается условием {@code id > :afterId}, а не смещением.
+ *
+ * @author Turusov Roman
+ */
+public final class Cursor {
+
+    private static final String PREFIX = "id:";
+
+    private Cursor() {
+    }
+
+    /**
+     * Кодирует идентификатор в курсор.
+     *
+     * @param id Идентификатор элемента.
+     * @return Курсор.
+     */
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует курсор в идентификатор.
+     *
+     * @param cursor Курсор или {@code null}.
+     * @return Идентификатор элемента или 0, если курсор не задан.
+     * @throws IllegalArgumentException если курсор некорректен.
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        String value;
+        try {
+            value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+        if (!value.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+        try {
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.graphqldemo.dto;
+
+/**
+ * Элемент страницы Relay Connection.
+ *
+ * @param node   Элемент.
+ * @param cursor Курсор, указывающий на элемент.
+ * @param <T>    Тип элемента.
+ * @author Turusov Roman
+ */
+public record Edge<T>(T node, String cursor) {
+}
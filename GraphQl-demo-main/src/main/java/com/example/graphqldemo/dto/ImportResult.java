@@ -0,0 +1,14 @@
+package com.example.graphqldemo.dto;
+
+/**
+ * Итог импорта каталога (тип ImportResult схемы GraphQL).
+ *
+ * @param records        Количество записей файла, обработанных в этом запуске.
+ * @param skipped        Количество записей, пропущенных по контрольной точке прошлого запуска.
+ * @param booksCreated   Количество созданных книг.
+ * @param authorsCreated Количество созданных авторов.
+ * @param linksCreated   Количество созданных связей книг с авторами.
+ * @author Turusov Roman
+ */
+public record ImportResult(long records, long skipped, long booksCreated, long authorsCreated, long linksCreated) {
+}
@@ -0,0 +1,39 @@
+package com.example.graphqldemo.dto;
+
+/**
+ * Изменение связи книги с автором для пакетного применения.
+ *
+ * Книга задается идентификатором или названием, автор - идентификатором или именем, как в мутациях
+ * addBookToAuthor, addAuthorToBook и removeBookFromAuthor. Книга и автор, заданные названием и именем,
+ * создаются, если их нет; заданные идентификатором должны существовать.
+ *
+ * @param add        {@code true} - добавить связь, {@code false} - удалить.
+ * @param authorId   Идентификатор автора или {@code null}, если задано имя.
+ * @param authorName Имя автора или {@code null}, если задан идентификатор.
+ * @param bookId     Идентификатор книги или {@code null}, если задано название.
+ * @param bookTitle  Название книги или {@code null}, если задан идентификатор.
+ * @author Turusov Roman
+ */
+public record LinkOperation(boolean add, Long authorId, String authorName, Long bookId, String bookTitle) {
+
+    public static LinkOperation addBookToAuthor(Long authorId, String bookTitle) {
+        return new LinkOperation(true, authorId, null, null, bookTitle);
+    }
+
+    public static LinkOperation addAuthorToBook(Long bookId, String authorName) {
+        return new LinkOperation(true, null, authorName, bookId, null);
+    }
+
+    public static LinkOperation removeBookFromAuthor(Long authorId, Long bookId) {
+        return new LinkOperation(false, authorId, null, bookId, null);
+    }
+
+    /**
+     * Та же связь без вида изменения: операции с одинаковым ключом относятся к одной паре книги и автора.
+     *
+     * @return Ключ связи.
+     */
+    public LinkOperation key() {
+        return new LinkOperation(true, authorId, authorName, bookId, bookTitle);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.graphqldemo.dto;
+
+/**
+ * Сведения о странице Relay Connection.
+ *
+ * @param hasPreviousPage Есть ли элементы перед страницей.
+ * @param hasNextPage     Есть ли элементы после страницы.
+ * @param startCursor     Курсор первого элемента страницы.
+ * @param endCursor       Курсор последнего элемента страницы.
+ * @author Turusov Roman
+ */
+public record PageInfo(boolean hasPreviousPage, boolean hasNextPage, String startCursor, String endCursor) {
+}
@@ -0,0 +1,65 @@
+package com.example.graphqldemo.event;
+
+import com.example.graphqldemo.model.Author;
+import com.example.graphqldemo.model.Book;
+
+/**
+ * Одно изменение каталога, произведенное мутацией.
+ *
+ * @param type          Тип изменения.
+ * @param authorId      Идентификатор автора, если изменение касается автора.
+ * @param authorName    Имя автора (текущее) или {@code null}.
+ * @param bookId        Идентификатор книги, если изменение касается книги.
+ * @param bookTitle     Название книги (текущее) или {@code null}.
+ * @param previousValue Прежнее имя или название для переименований, иначе {@code null}.
+ * @author Turusov Roman
+ */
+public record CatalogChange(Type type, Long authorId, String authorName, Long bookId, String bookTitle,
+                            String previousValue) {
+
+    /**
+     * Тип изменения каталога.
+     */
+    public enum Type {
+        AUTHOR_CREATED,
+        AUTHOR_RENAMED,
+        AUTHOR_DELETED,
+        BOOK_CREATED,
+        BOOK_RENAMED,
+        BOOK_DELETED,
+        LINKED,
+        UNLINKED
+    }
+
+    public static CatalogChange authorCreated(Author author) {
+        return new CatalogChange(Type.AUTHOR_CREATED, author.getId(), author.getName(), null, null, null);
+    }
+
+    public static CatalogChange authorRenamed(Author author, String previousName) {
+        return new CatalogChange(Type.AUTHOR_RENAMED, author.getId(), author.getName(), null, null, previousName);
+    }
+
+    public static CatalogChange authorDeleted(Author author) {
+        return new CatalogChange(Type.AUTHOR_DELETED, author.getId(), author.getName(), null, null, null);
+    }
+
+    public static CatalogChange bookCreated(Book book) {
+        return new CatalogChange(Type.BOOK_CREATED, null, null, book.getId(), book.getTitle(), null);
+    }
+
+    public static CatalogChange bookRenamed(Book book, String previousTitle) {
+        return new CatalogChange(Type.BOOK_RENAMED, null, null, book.getId(), book.getTitle(), previousTitle);
+    }
+
+    public static CatalogChange bookDeleted(Book book) {
+        return new CatalogChange(Type.BOOK_DELETED, null, null, book.getId(), book.getTitle(), null);
+    }
+
+    public static CatalogChange linked(Author author, Book book) {
+        return new CatalogChange(Type.LINKED, author.getId(), author.getName(), book.getId(), book.getTitle(), null);
+    }
+
+    public static CatalogChange unlinked(Author author, Book book) {
+        return new CatalogChange(Type.UNLINKED, author.getId(), author.getName(), book.getId(), book.getTitle(), null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.graphqldemo.event;
+
+import java.util.List;
+
+/**
+ * Событие об изменении каталога, публикуемое MutationService.
+ *
+ * Содержит все изменения одной мутации. Обработчики подписываются через
+ * {@code @TransactionalEventListener(fallbackExecution = true)} и получают событие после фиксации транзакции.
+ *
+ * @param changes Изменения в порядке их выполнения.
+ * @author Turusov Roman
+ */
+public record CatalogChangedEvent(List<CatalogChange> changes) {
+}
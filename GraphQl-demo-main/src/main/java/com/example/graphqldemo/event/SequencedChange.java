@@ -0,0 +1,14 @@
+package com.example.graphqldemo.event;
+
+/**
+ * Изменение каталога с порядковым номером для подписок.
+ *
+ * Номера возрастают в порядке фиксации изменений и позволяют клиенту продолжить подписку
+ * с места обрыва или заметить пропущенные изменения.
+ *
+ * @param sequence Порядковый номер изменения.
+ * @param change   Изменение.
+ * @author Turusov Roman
+ */
+public record SequencedChange(long sequence, CatalogChange change) {
+}
@@ -0,0 +1,125 @@
+package com.example.graphqldemo.metrics;
+
+import graphql.ErrorClassification;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationCreateStateParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationExecutionParameters;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики обращений к базе и ошибок по операциям GraphQL.
+ *
+ * Время операций и резолверов публикует Spring GraphQL (graphql.request, graphql.datafetcher).
+ * Этот класс добавляет распределения с тем же тегом graphql.operation:
+ * graphql.sql.statements (запросов к базе на операцию), graphql.sql.rows, graphql.sql.connection.wait,
+ * а также счетчик graphql.errors с классом ошибки. Рост graphql.sql.statements у операции означает
+ * появление N+1.
+ *
+ * @author Turusov Roman
+ */
+@RequiredArgsConstructor
+public class OperationMetricsInstrumentation extends SimplePerformantInstrumentation {
+
+    /**
+     * Тег с именем операции, совпадает с тегом метрики graphql.request.
+     */
+    public static final String OPERATION_TAG = "graphql.operation";
+
+    /**
+     * Значение тега для операций без имени, как в graphql.request.
+     */
+    private static final String UNNAMED_OPERATION = "query";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public InstrumentationState createState(InstrumentationCreateStateParameters parameters) {
+        return new OperationState();
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecution(InstrumentationExecutionParameters parameters,
+                                                                  InstrumentationState state) {
+        OperationState operation = (OperationState) state;
+        String operationName = parameters.getExecutionInput().getOperationName();
+        String tag = operationName != null ? operationName : UNNAMED_OPERATION;
+        return SimpleInstrumentationContext.whenCompleted((result, throwable) -> record(tag, operation.statistics, result));
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        SqlStatistics previous = SqlStatistics.attach(((OperationState) state).statistics);
+        // Счетчики отвязываются от потока запроса, как только выполнение передано стратегии:
+        // при асинхронных резолверах операция завершается в другом потоке.
+        return new InstrumentationContext<>() {
+            @Override
+            public void onDispatched(CompletableFuture<ExecutionResult> result) {
+                SqlStatistics.restore(previous);
+            }
+
+            @Override
+            public void onCompleted(ExecutionResult result, Throwable t) {
+            }
+        };
+    }
+
+    private void record(String operation, SqlStatistics statistics, ExecutionResult result) {
+        DistributionSummary.builder("graphql.sql.statements")
+                .description("SQL statements per GraphQL operation")
+                .tag(OPERATION_TAG, operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("graphql.sql.rows")
+                .description("Rows read or written per GraphQL operation")
+                .tag(OPERATION_TAG, operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getRows());
+        Timer.builder("graphql.sql.connection.wait")
+                .description("Time spent waiting for JDBC connections per GraphQL operation")
+                .tag(OPERATION_TAG, operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getConnectionWaitNanos(), TimeUnit.NANOSECONDS);
+        if (result == null) {
+            return;
+        }
+        for (GraphQLError error : result.getErrors()) {
+            Counter.builder("graphql.errors")
+                    .description("Errors returned by GraphQL operations")
+                    .tag(OPERATION_TAG, operation)
+                    .tag("graphql.error.type", errorType(error.getErrorType()))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private static String errorType(ErrorClassification type) {
+        if (type == null) {
+            return "UNKNOWN";
+        }
+        return type instanceof Enum<?> value ? value.name() : type.getClass().getSimpleName();
+    }
+
+    /**
+     * Счетчики одной операции.
+     */
+    private static class OperationState implements InstrumentationState {
+        private final SqlStatistics statistics = new SqlStatistics();
+    }
+}
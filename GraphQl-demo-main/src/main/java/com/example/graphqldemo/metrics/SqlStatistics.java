@@ -0,0 +1,80 @@
+package com.example.graphqldemo.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики SQL одной операции GraphQL.
+ *
+ * Текущие счетчики привязываются к потоку на время выполнения операции. Резолверы и загрузчики
+ * выполняются синхронно в потоке запроса, поэтому в них попадают все обращения к базе этой операции.
+ * При выполнении на виртуальных потоках счетчики привязываются к каждому из них, соседние поля
+ * пополняют их одновременно.
+ *
+ * @author Turusov Roman
+ */
+public class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder connectionWaitNanos = new LongAdder();
+
+    /**
+     * Привязать счетчики к текущему потоку.
+     *
+     * @param statistics Счетчики операции.
+     * @return Ранее привязанные счетчики, которые нужно вернуть через {@link #restore(SqlStatistics)}.
+     */
+    public static SqlStatistics attach(SqlStatistics statistics) {
+        SqlStatistics previous = CURRENT.get();
+        CURRENT.set(statistics);
+        return previous;
+    }
+
+    /**
+     * Вернуть ранее привязанные счетчики.
+     *
+     * @param previous Результат {@link #attach(SqlStatistics)}.
+     */
+    public static void restore(SqlStatistics previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Получить счетчики текущего потока.
+     *
+     * @return Счетчики или null, если поток не выполняет операцию GraphQL.
+     */
+    public static SqlStatistics current() {
+        return CURRENT.get();
+    }
+
+    void addStatements(long count) {
+        statements.add(count);
+    }
+
+    void addRows(long count) {
+        rows.add(count);
+    }
+
+    void addConnectionWait(long nanos) {
+        connectionWaitNanos.add(nanos);
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getConnectionWaitNanos() {
+        return connectionWaitNanos.sum();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.graphqldemo.metrics;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Слушатель datasource-proxy, который пополняет {@link SqlStatistics} текущего потока.
+ *
+ * Запросом считается одно обращение к базе, пакет JDBC считается одним запросом. Строки считаются
+ * по вызовам ResultSet.next() для выборок и по числу измененных строк для изменений.
+ * Ожидание соединения считается по времени DataSource.getConnection().
+ *
+ * @author Turusov Roman
+ */
+public class SqlStatisticsListener implements QueryExecutionListener, MethodExecutionListener {
+
+    private static final ThreadLocal<Long> CONNECTION_REQUESTED = new ThreadLocal<>();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics == null) {
+            return;
+        }
+        statistics.addStatements(1);
+        if (execInfo.getResult() instanceof Integer count) {
+            statistics.addRows(Math.max(count, 0));
+        } else if (execInfo.getResult() instanceof int[] counts) {
+            for (int count : counts) {
+                statistics.addRows(Math.max(count, 0));
+            }
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext context) {
+        if (context.getTarget() instanceof DataSource && SqlStatistics.current() != null) {
+            CONNECTION_REQUESTED.set(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext context) {
+        SqlStatistics statistics = SqlStatistics.current();
+        if (statistics == null) {
+            return;
+        }
+        if (context.getTarget() instanceof ResultSet) {
+            if ("next".equals(context.getMethod().getName()) && Boolean.TRUE.equals(context.getResult())) {
+                statistics.addRows(1);
+            }
+        } else if (context.getTarget() instanceof DataSource) {
+            Long requested = CONNECTION_REQUESTED.get();
+            if (requested != null) {
+                CONNECTION_REQUESTED.remove();
+                statistics.addConnectionWait(System.nanoTime() - requested);
+            }
+        }
+    }
+}
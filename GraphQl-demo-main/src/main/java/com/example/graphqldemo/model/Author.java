@@ -8,35 +8,81 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
-import lombok.Data;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
+import jakarta.persistence.OrderBy;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
-import java.util.List;
+import java.util.Set;
 
 /**
  * Класс Author.
  *
- * Представляет сущность автора в приложении.
+ * Представляет сущность автора в приложении. Сторона-владелец связи с книгами: книги, заданные при создании
+ * автора, сохраняются вместе с ним. Связи существующих авторов и книг изменяются через {@link BookAuthor}.
+ * Равенство определяется идентификатором, поэтому авторы можно хранить в множествах до и после сохранения.
  *
  * @author Turusov Roman
  */
 @Entity
-@Data
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
 @Accessors(chain = true)
 public class Author {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "name", unique = true)
     private String name;
 
+    /**
+     * Версия для оптимистической блокировки: переименование, прочитавшее устаревшую версию,
+     * завершается ошибкой, а не затирает параллельное переименование.
+     */
+    @Version
+    private Long version;
+
     @ManyToMany()
     @JoinTable(
             name = "book_author",
             joinColumns = @JoinColumn(name = "author_id"),
             inverseJoinColumns = @JoinColumn(name = "book_id")
     )
-    private List<Book> books;
+    @OrderBy("id")
+    @ToString.Exclude
+    private Set<Book> books;
+
+    /**
+     * Создает автора только со скалярными полями, без коллекции книг.
+     * Используется в JPQL-проекциях, когда связанная коллекция не запрошена.
+     *
+     * @param id    Идентификатор автора.
+     * @param name  Имя автора.
+     */
+    public Author(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Author other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Author.class.hashCode();
+    }
 }
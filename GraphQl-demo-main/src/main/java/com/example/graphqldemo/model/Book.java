@@ -5,41 +5,80 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
-import lombok.Data;
+import jakarta.persistence.OrderBy;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
-import java.util.List;
+import java.util.Set;
 
 /**
  * Класс Book.
  *
- * Представляет сущность книги в приложении.
+ * Представляет сущность книги в приложении. Коллекция авторов - обратная сторона связи {@link Author#getBooks()}:
+ * изменения в ней не сохраняются, связи записываются через {@link BookAuthor}.
+ * Равенство, как и у автора, определяется идентификатором.
  *
  * @author Turusov Roman
  */
 @Entity
-@Data
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
 @Accessors(chain = true)
 public class Book {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "title", unique = true)
     private String title;
 
-    @ManyToMany()
-    @JoinTable(
-            name = "book_author",
-            joinColumns = @JoinColumn(name = "book_id"),
-            inverseJoinColumns = @JoinColumn(name = "author_id")
-    )
-    private List<Author> authors;
+    /**
+     * Версия для оптимистической блокировки: переименование, прочитавшее устаревшую версию,
+     * завершается ошибкой, а не затирает параллельное переименование.
+     */
+    @Version
+    private Long version;
+
+    @ManyToMany(mappedBy = "books")
+    @OrderBy("id")
+    @ToString.Exclude
+    private Set<Author> authors;
+
+    /**
+     * Создает книгу только со скалярными полями, без коллекции авторов.
+     * Используется, когда книга выбрана проекцией и нужна только для описания изменения.
+     *
+     * @param id    Идентификатор книги.
+     * @param title Название книги.
+     */
+    public Book(Long id, String title) {
+        this.id = id;
+        this.title = title;
+    }
 
     public void setAuthor(Author author) {
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Book other && id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Book.class.hashCode();
+    }
 }
@@ -0,0 +1,65 @@
+package com.example.graphqldemo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+
+/**
+ * Класс BookAuthor.
+ *
+ * Связь книги с автором - строка таблицы book_author с составным первичным ключом (author_id, book_id).
+ * Коллекции Author.books и Book.authors читают ту же таблицу; связи между существующими книгами и авторами
+ * добавляются и удаляются через эту сущность, без загрузки коллекций.
+ *
+ * @author Turusov Roman
+ */
+@Entity
+@Table(name = "book_author")
+@IdClass(BookAuthor.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookAuthor implements Persistable<BookAuthor.Key> {
+
+    @Id
+    @Column(name = "author_id")
+    private Long authorId;
+
+    @Id
+    @Column(name = "book_id")
+    private Long bookId;
+
+    @Override
+    public Key getId() {
+        return new Key(authorId, bookId);
+    }
+
+    /**
+     * Связь не изменяется после создания, поэтому сохранение всегда вставляет строку без предварительного select.
+     *
+     * @return Всегда {@code true}.
+     */
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    /**
+     * Составной ключ связи.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long authorId;
+        private Long bookId;
+    }
+}
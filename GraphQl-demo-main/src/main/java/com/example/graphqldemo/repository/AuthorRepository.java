@@ -3,7 +3,11 @@ package com.example.graphqldemo.repository;
 import com.example.graphqldemo.model.Author;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +30,23 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     @EntityGraph(attributePaths = {"books"})
     Optional<Author> findByName(String name);
 
+    /**
+     * Находит авторов по набору имен одним запросом, без загрузки книг.
+     *
+     * @param names Имена авторов.
+     * @return Найденные авторы; отсутствующие имена пропускаются.
+     */
+    List<Author> findByNameIn(Collection<String> names);
+
+    /**
+     * Находит авторов по набору идентификаторов без загрузки книг, только скалярные поля.
+     *
+     * @param ids Идентификаторы авторов.
+     * @return Найденные авторы в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    @Query("SELECT new com.example.graphqldemo.model.Author(a.id, a.name) FROM Author a WHERE a.id IN :ids")
+    List<Author> findScalarByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Извлекает все сущности авторов вместе со связанными книгами в одном запросе, чтобы избежать проблемы N+1 запросов.
      *
@@ -33,4 +54,25 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
      */
     @EntityGraph(attributePaths = {"books"})
     List<Author> findAll();
+
+    /**
+     * Получает имена всех авторов набора книг.
+     *
+     * @param bookIds Идентификаторы книг.
+     * @return Имена авторов без повторов.
+     */
+    @Query("SELECT DISTINCT a.name FROM Book b JOIN b.authors a WHERE b.id IN :bookIds")
+    List<String> findNamesByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Удаляет авторов без книг по набору идентификаторов одним запросом, без загрузки сущностей.
+     *
+     * Связи авторов должны быть удалены заранее ({@link BookAuthorRepository#deleteByAuthorIdIn(Collection)}).
+     *
+     * @param ids Идентификаторы авторов.
+     * @return Количество удаленных авторов.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM author WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
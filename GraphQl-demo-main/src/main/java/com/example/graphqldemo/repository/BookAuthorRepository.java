@@ -0,0 +1,55 @@
+package com.example.graphqldemo.repository;
+
+import com.example.graphqldemo.model.BookAuthor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+
+/**
+ * BookAuthorRepository.
+ *
+ * Репозиторий связей книг с авторами (таблица book_author). Каждая операция над одной связью - один запрос
+ * INSERT или DELETE, независимо от количества книг у автора и авторов у книги. После изменения контекст
+ * постоянства очищается, чтобы загруженные ранее коллекции Author.books и Book.authors перечитывались из БД.
+ *
+ * @author Turusov Roman
+ */
+public interface BookAuthorRepository extends JpaRepository<BookAuthor, BookAuthor.Key> {
+
+    /**
+     * Добавляет связь автора с книгой, если ее еще нет. Одновременное добавление той же связи
+     * другой транзакцией не приводит к нарушению первичного ключа.
+     *
+     * @param authorId Идентификатор автора.
+     * @param bookId   Идентификатор книги.
+     * @return 1, если связь добавлена, 0, если она уже была.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO book_author (author_id, book_id) VALUES (:authorId, :bookId) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int link(@Param("authorId") Long authorId, @Param("bookId") Long bookId);
+
+    /**
+     * Удаляет связь автора с книгой.
+     *
+     * @param authorId Идентификатор автора.
+     * @param bookId   Идентификатор книги.
+     * @return 1, если связь удалена, 0, если ее не было.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM BookAuthor l WHERE l.authorId = :authorId AND l.bookId = :bookId")
+    int unlink(@Param("authorId") Long authorId, @Param("bookId") Long bookId);
+
+    /**
+     * Удаляет все связи набора авторов с книгами одним запросом.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Количество удаленных связей.
+     */
+    @Modifying
+    @Query("DELETE FROM BookAuthor l WHERE l.authorId IN :authorIds")
+    int deleteByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds);
+}
@@ -3,9 +3,11 @@ package com.example.graphqldemo.repository;
 import com.example.graphqldemo.model.Book;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,15 +21,6 @@ import java.util.Optional;
  */
 public interface BookRepository extends JpaRepository<Book, Long> {
 
-    /**
-     * Получает список книг по имени автора с загрузкой авторов в одном запросе.
-     *
-     * @param authorName Имя автора, книги которого необходимо найти.
-     * @return Список книг выбранного автора с загруженными авторами.
-     */
-    @Query("SELECT b FROM Book b JOIN fetch b.authors a WHERE a.name = :authorName")
-    List<Book> getBooksByAuthorName(@Param("authorName") String authorName);
-
     /**
      * Находит книгу по названию.
      *
@@ -36,6 +29,23 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      */
     Optional<Book> findByTitle(String title);
 
+    /**
+     * Находит книги по набору названий одним запросом, без загрузки авторов.
+     *
+     * @param titles Названия книг.
+     * @return Найденные книги; отсутствующие названия пропускаются.
+     */
+    List<Book> findByTitleIn(Collection<String> titles);
+
+    /**
+     * Находит книги по набору идентификаторов без загрузки авторов, только скалярные поля.
+     *
+     * @param ids Идентификаторы книг.
+     * @return Найденные книги в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    @Query("SELECT new com.example.graphqldemo.model.Book(b.id, b.title) FROM Book b WHERE b.id IN :ids")
+    List<Book> findScalarByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Извлекает все книги со всеми связанными авторами в одном запросе.
      *
@@ -44,4 +54,33 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     @EntityGraph(attributePaths = {"authors"})
     List<Book> findAll();
 
+    /**
+     * Получает идентификаторы всех книг набора авторов.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Идентификаторы книг.
+     */
+    @Query("SELECT b.id FROM Author a JOIN a.books b WHERE a.id IN :authorIds")
+    List<Long> findIdsByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
+
+    /**
+     * Получает связи набора авторов с книгами, только скалярные поля.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Четверки [идентификатор автора, идентификатор книги, название книги, число авторов книги].
+     */
+    @Query("SELECT a.id, b.id, b.title, SIZE(b.authors) FROM Author a JOIN a.books b WHERE a.id IN :authorIds")
+    List<Object[]> findScalarLinksByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
+
+    /**
+     * Удаляет книги без авторов по набору идентификаторов одним запросом, без загрузки сущностей.
+     *
+     * Связи книг должны быть удалены заранее.
+     *
+     * @param ids Идентификаторы книг.
+     * @return Количество удаленных книг.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM book WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,126 @@
+package com.example.graphqldemo.repository;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * CatalogReader.
+ *
+ * Чтения модели чтения, из которых QueryService собирает ответы: из базы ({@link CatalogViewRepository})
+ * или из снимка каталога в памяти ({@link com.example.graphqldemo.service.CatalogSnapshot}).
+ * Списки связанных записей упорядочены по возрастанию идентификатора.
+ *
+ * @author Turusov Roman
+ */
+public interface CatalogReader {
+
+    /**
+     * Находит автора по имени без книг.
+     *
+     * @param name Имя автора.
+     * @return Автор без списка книг или пустой Optional.
+     */
+    Optional<AuthorView> findAuthorByName(String name);
+
+    /**
+     * Находит автора по имени вместе с книгами.
+     *
+     * @param name Имя автора.
+     * @return Автор с книгами по возрастанию идентификатора или пустой Optional.
+     */
+    Optional<AuthorView> findAuthorWithBooksByName(String name);
+
+    /**
+     * Находит авторов по набору идентификаторов без книг.
+     *
+     * @param ids Идентификаторы авторов.
+     * @return Найденные авторы в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    List<AuthorView> findAuthorsByIdIn(Collection<Long> ids);
+
+    /**
+     * Получает авторов сразу для набора книг.
+     *
+     * @param bookIds Идентификаторы книг.
+     * @return Изменяемая карта: авторы по идентификатору книги; книг без авторов в ней нет.
+     */
+    Map<Long, List<AuthorView>> findAuthorsByBookIds(Collection<Long> bookIds);
+
+    /**
+     * Находит книгу по идентификатору без авторов.
+     *
+     * @param id Идентификатор книги.
+     * @return Книга без списка авторов или пустой Optional.
+     */
+    Optional<BookView> findBookById(Long id);
+
+    /**
+     * Извлекает все книги без авторов.
+     *
+     * @return Список книг без списка авторов.
+     */
+    List<BookView> findAllBooks();
+
+    /**
+     * Извлекает все книги вместе с авторами.
+     *
+     * @return Книги по возрастанию идентификатора.
+     */
+    List<BookView> findAllBooksWithAuthors();
+
+    /**
+     * Получает книги автора без авторов.
+     *
+     * @param authorName Имя автора.
+     * @return Книги автора по возрастанию идентификатора.
+     */
+    List<BookView> findBooksByAuthorName(String authorName);
+
+    /**
+     * Получает книги автора вместе со всеми их авторами.
+     *
+     * @param authorName Имя автора.
+     * @return Книги автора по возрастанию идентификатора.
+     */
+    List<BookView> findBooksWithAuthorsByAuthorName(String authorName);
+
+    /**
+     * Находит книги по набору идентификаторов без авторов.
+     *
+     * @param ids Идентификаторы книг.
+     * @return Найденные книги в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    List<BookView> findBooksByIdIn(Collection<Long> ids);
+
+    /**
+     * Получает страницу книг, следующих за заданным идентификатором.
+     *
+     * @param afterId Идентификатор последней книги предыдущей страницы (0 для первой страницы).
+     * @param limit   Размер страницы.
+     * @return Книги без авторов по возрастанию идентификатора.
+     */
+    List<BookView> findBookPageAfter(long afterId, int limit);
+
+    /**
+     * Получает страницу книг автора, следующих за заданным идентификатором.
+     *
+     * @param authorName Имя автора.
+     * @param afterId    Идентификатор последней книги предыдущей страницы (0 для первой страницы).
+     * @param limit      Размер страницы.
+     * @return Книги автора без авторов по возрастанию идентификатора.
+     */
+    List<BookView> findBookPageByAuthorNameAfter(String authorName, long afterId, int limit);
+
+    /**
+     * Получает книги сразу для набора авторов.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Изменяемая карта: книги по идентификатору автора; авторов без книг в ней нет.
+     */
+    Map<Long, List<BookView>> findBooksByAuthorIds(Collection<Long> authorIds);
+}
@@ -0,0 +1,333 @@
+package com.example.graphqldemo.repository;
+
+import static com.example.graphqldemo.repository.CatalogWriteRepository.chunks;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * CatalogViewRepository.
+ *
+ * Репозиторий модели чтения: книги и авторы выбираются SQL-запросами через JDBC и строятся сразу
+ * в неизменяемые записи {@link BookView} и {@link AuthorView}, без сущностей, контекста постоянства
+ * и разбора JPQL на каждый вызов. Связанные списки выбираются тем же запросом и собираются из строк,
+ * упорядоченных по идентификатору родителя. Выборки по набору идентификаторов (в том числе из DataLoader)
+ * выполняются запросами IN порциями по {@link CatalogWriteRepository#IN_CHUNK_SIZE} значений. Каждый метод выполняется в транзакции только для чтения
+ * или в транзакции вызывающего метода, поэтому при настроенной реплике читает из нее
+ * (см. {@link com.example.graphqldemo.config.ReplicaDataSourceConfig}).
+ * Выгрузка всего каталога читает строки курсором и передает книги по одной, не собирая их в список.
+ *
+ * @author Turusov Roman
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CatalogViewRepository implements CatalogReader {
+
+    private static final RowMapper<BookView> BOOK = (row, i) -> new BookView(row.getLong(1), row.getString(2));
+    private static final RowMapper<AuthorView> AUTHOR = (row, i) -> new AuthorView(row.getLong(1), row.getString(2));
+
+    private static final String ALL_BOOKS_WITH_AUTHORS = "select b.id, b.title, a.id, a.name from book b "
+            + "left join book_author ba on ba.book_id = b.id left join author a on a.id = ba.author_id "
+            + "order by b.id, a.id";
+
+    /**
+     * Сколько строк выгрузки драйвер читает из базы за одно обращение. PostgreSQL без него читает
+     * весь результат в память, курсор используется только внутри транзакции.
+     */
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Находит автора по имени без книг.
+     *
+     * @param name Имя автора.
+     * @return Optional с автором без списка книг, или пустой, если автор не найден.
+     */
+    @Override
+    public Optional<AuthorView> findAuthorByName(String name) {
+        return first(jdbcTemplate.query("select id, name from author where name = :name",
+                Map.of("name", name), AUTHOR));
+    }
+
+    /**
+     * Находит автора по имени вместе с книгами одним запросом.
+     *
+     * @param name Имя автора.
+     * @return Optional с автором и его книгами по возрастанию идентификатора, или пустой, если автор не найден.
+     */
+    @Override
+    public Optional<AuthorView> findAuthorWithBooksByName(String name) {
+        return first(jdbcTemplate.query("select a.id, a.name, b.id, b.title from author a "
+                        + "left join book_author ba on ba.author_id = a.id left join book b on b.id = ba.book_id "
+                        + "where a.name = :name order by b.id",
+                Map.of("name", name), grouped(AuthorView::new, BookView::new)));
+    }
+
+    /**
+     * Находит авторов по набору идентификаторов без книг.
+     *
+     * @param ids Идентификаторы авторов.
+     * @return Найденные авторы в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    @Override
+    public List<AuthorView> findAuthorsByIdIn(Collection<Long> ids) {
+        return inChunks("select id, name from author where id in (:ids)", ids, AUTHOR);
+    }
+
+    /**
+     * Получает авторов сразу для набора книг одним запросом к таблице book_author.
+     *
+     * @param bookIds Идентификаторы книг.
+     * @return Авторы по возрастанию идентификатора, сгруппированные по идентификатору книги; книг без авторов
+     *         в результате нет.
+     */
+    @Override
+    public Map<Long, List<AuthorView>> findAuthorsByBookIds(Collection<Long> bookIds) {
+        return byParentInChunks("select ba.book_id, a.id, a.name from book_author ba "
+                + "join author a on a.id = ba.author_id where ba.book_id in (:ids) order by a.id", bookIds, AuthorView::new);
+    }
+
+    /**
+     * Находит книгу по идентификатору без авторов.
+     *
+     * @param id Идентификатор книги.
+     * @return Optional с книгой без списка авторов, или пустой, если книга не найдена.
+     */
+    @Override
+    public Optional<BookView> findBookById(Long id) {
+        return first(jdbcTemplate.query("select id, title from book where id = :id", Map.of("id", id), BOOK));
+    }
+
+    /**
+     * Извлекает все книги без авторов.
+     *
+     * @return Список книг без списка авторов.
+     */
+    @Override
+    public List<BookView> findAllBooks() {
+        return jdbcTemplate.query("select id, title from book", BOOK);
+    }
+
+    /**
+     * Извлекает все книги вместе с авторами одним запросом.
+     *
+     * @return Книги по возрастанию идентификатора, у каждой авторы по возрастанию идентификатора.
+     */
+    @Override
+    public List<BookView> findAllBooksWithAuthors() {
+        return jdbcTemplate.query(ALL_BOOKS_WITH_AUTHORS, grouped(BookView::new, AuthorView::new));
+    }
+
+    /**
+     * Передает все книги вместе с авторами по одной, по мере чтения строк курсором.
+     * В памяти одновременно находится только текущая книга, поэтому объем памяти не зависит от размера каталога.
+     * Соединение занято до конца выгрузки; вызывать нужно в транзакции, иначе PostgreSQL не использует курсор.
+     *
+     * @param action Обработчик книги, вызывается в порядке возрастания идентификатора.
+     */
+    public void forEachBookWithAuthors(Consumer<BookView> action) {
+        jdbcTemplate.getJdbcTemplate().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ALL_BOOKS_WITH_AUTHORS);
+            statement.setFetchSize(EXPORT_FETCH_SIZE);
+            return statement;
+        }, (ResultSet rows) -> {
+            group(rows, BookView::new, AuthorView::new, action);
+            return null;
+        });
+    }
+
+    /**
+     * Получает книги автора без авторов.
+     *
+     * @param authorName Имя автора.
+     * @return Книги автора по возрастанию идентификатора.
+     */
+    @Override
+    public List<BookView> findBooksByAuthorName(String authorName) {
+        return jdbcTemplate.query("select b.id, b.title from author a "
+                        + "join book_author ba on ba.author_id = a.id join book b on b.id = ba.book_id "
+                        + "where a.name = :name order by b.id",
+                Map.of("name", authorName), BOOK);
+    }
+
+    /**
+     * Получает книги автора вместе со всеми их авторами одним запросом.
+     *
+     * @param authorName Имя автора.
+     * @return Книги автора по возрастанию идентификатора, у каждой авторы по возрастанию идентификатора.
+     */
+    @Override
+    public List<BookView> findBooksWithAuthorsByAuthorName(String authorName) {
+        return jdbcTemplate.query("select b.id, b.title, a.id, a.name from author x "
+                        + "join book_author xb on xb.author_id = x.id join book b on b.id = xb.book_id "
+                        + "join book_author ba on ba.book_id = b.id join author a on a.id = ba.author_id "
+                        + "where x.name = :name order by b.id, a.id",
+                Map.of("name", authorName), grouped(BookView::new, AuthorView::new));
+    }
+
+    /**
+     * Находит книги по набору идентификаторов без авторов.
+     *
+     * @param ids Идентификаторы книг.
+     * @return Найденные книги в произвольном порядке; отсутствующие идентификаторы пропускаются.
+     */
+    @Override
+    public List<BookView> findBooksByIdIn(Collection<Long> ids) {
+        return inChunks("select id, title from book where id in (:ids)", ids, BOOK);
+    }
+
+    /**
+     * Получает страницу книг, следующих за заданным идентификатором.
+     *
+     * @param afterId Идентификатор последней книги предыдущей страницы (0 для первой страницы).
+     * @param limit   Размер страницы.
+     * @return Книги без авторов, упорядоченные по идентификатору.
+     */
+    @Override
+    public List<BookView> findBookPageAfter(long afterId, int limit) {
+        return jdbcTemplate.query("select id, title from book where id > :afterId order by id "
+                        + "fetch first :limit rows only",
+                Map.of("afterId", afterId, "limit", limit), BOOK);
+    }
+
+    /**
+     * Получает страницу книг автора, следующих за заданным идентификатором.
+     *
+     * @param authorName Имя автора.
+     * @param afterId    Идентификатор последней книги предыдущей страницы (0 для первой страницы).
+     * @param limit      Размер страницы.
+     * @return Книги автора без авторов, упорядоченные по идентификатору.
+     */
+    @Override
+    public List<BookView> findBookPageByAuthorNameAfter(String authorName, long afterId, int limit) {
+        return jdbcTemplate.query("select b.id, b.title from author a "
+                        + "join book_author ba on ba.author_id = a.id join book b on b.id = ba.book_id "
+                        + "where a.name = :name and b.id > :afterId order by b.id fetch first :limit rows only",
+                Map.of("name", authorName, "afterId", afterId, "limit", limit), BOOK);
+    }
+
+    /**
+     * Получает книги сразу для набора авторов одним запросом к таблице book_author.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Книги по возрастанию идентификатора, сгруппированные по идентификатору автора; авторов без книг
+     *         в результате нет.
+     */
+    @Override
+    public Map<Long, List<BookView>> findBooksByAuthorIds(Collection<Long> authorIds) {
+        return byParentInChunks("select ba.author_id, b.id, b.title from book_author ba "
+                + "join book b on b.id = ba.book_id where ba.author_id in (:ids) order by b.id", authorIds, BookView::new);
+    }
+
+    /**
+     * Выполняет запрос с параметром ids по порциям идентификаторов без повторов и объединяет строки.
+     */
+    private <T> List<T> inChunks(String sql, Collection<Long> ids, RowMapper<T> mapper) {
+        List<T> result = new ArrayList<>();
+        for (List<Long> chunk : chunks(new LinkedHashSet<>(ids))) {
+            result.addAll(jdbcTemplate.query(sql, Map.of("ids", chunk), mapper));
+        }
+        return result;
+    }
+
+    /**
+     * Выполняет запрос с параметром ids по порциям идентификаторов родителей и объединяет группы:
+     * каждый родитель попадает ровно в одну порцию.
+     */
+    private <R> Map<Long, List<R>> byParentInChunks(String sql, Collection<Long> parentIds,
+                                                    BiFunction<Long, String, R> child) {
+        Map<Long, List<R>> result = new HashMap<>();
+        for (List<Long> chunk : chunks(new LinkedHashSet<>(parentIds))) {
+            result.putAll(jdbcTemplate.query(sql, Map.of("ids", chunk), byParent(child)));
+        }
+        return result;
+    }
+
+    /**
+     * Конструктор записи со связанным списком.
+     */
+    @FunctionalInterface
+    private interface Parent<T, R> {
+        T create(Long id, String value, List<R> related);
+    }
+
+    /**
+     * Собирает записи из строк [идентификатор, поле, идентификатор связанной записи, поле], упорядоченных
+     * по идентификатору записи. Строка без связанной записи (левое соединение) дает пустой список.
+     */
+    private static <T, R> ResultSetExtractor<List<T>> grouped(Parent<T, R> parent, BiFunction<Long, String, R> child) {
+        return rows -> {
+            List<T> result = new ArrayList<>();
+            group(rows, parent, child, result::add);
+            return result;
+        };
+    }
+
+    /**
+     * Передает записи, собранные из строк так же, как в {@link #grouped(Parent, BiFunction)}, по мере чтения.
+     */
+    private static <T, R> void group(ResultSet rows, Parent<T, R> parent, BiFunction<Long, String, R> child,
+                                     Consumer<T> action) throws SQLException {
+        Long id = null;
+        String value = null;
+        List<R> related = null;
+        while (rows.next()) {
+            long rowId = rows.getLong(1);
+            if (id == null || id != rowId) {
+                if (id != null) {
+                    action.accept(parent.create(id, value, Collections.unmodifiableList(related)));
+                }
+                id = rowId;
+                value = rows.getString(2);
+                related = new ArrayList<>();
+            }
+            long relatedId = rows.getLong(3);
+            if (!rows.wasNull()) {
+                related.add(child.apply(relatedId, rows.getString(4)));
+            }
+        }
+        if (id != null) {
+            action.accept(parent.create(id, value, Collections.unmodifiableList(related)));
+        }
+    }
+
+    /**
+     * Группирует строки [идентификатор родителя, идентификатор записи, поле] по идентификатору родителя.
+     */
+    private static <R> ResultSetExtractor<Map<Long, List<R>>> byParent(BiFunction<Long, String, R> child) {
+        return rows -> {
+            Map<Long, List<R>> result = new HashMap<>();
+            while (rows.next()) {
+                result.computeIfAbsent(rows.getLong(1), parentId -> new ArrayList<>())
+                        .add(child.apply(rows.getLong(2), rows.getString(3)));
+            }
+            return result;
+        };
+    }
+
+    private static <T> Optional<T> first(List<T> items) {
+        return items.isEmpty() ? Optional.empty() : Optional.of(items.get(0));
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.graphqldemo.repository;
+
+import com.example.graphqldemo.model.Author;
+import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.model.BookAuthor;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * CatalogWriteRepository.
+ *
+ * Пакетные записи каталога через JDBC, в обход JPA: существующие книги и авторы выбираются запросами IN
+ * порциями по {@link #IN_CHUNK_SIZE} значений, новые строки вставляются пакетами JDBC запросами
+ * INSERT ... ON CONFLICT DO NOTHING. Если ту же книгу, автора или связь одновременно вставляет другая
+ * транзакция, вставка пропускается (после окончания той транзакции), а не завершается нарушением уникальности,
+ * поэтому поиск с созданием не падает при параллельных мутациях. Строки вставляются в порядке названий и имен,
+ * чтобы параллельные транзакции ждали друг друга в одном порядке и не попадали во взаимную блокировку.
+ * Идентификаторы выделяются генераторами сущностей, как при сохранении через JPA. Запросы выполняются
+ * в транзакции вызывающего метода.
+ *
+ * @author Turusov Roman
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogWriteRepository {
+
+    /**
+     * Наибольшее количество значений в одном IN-запросе.
+     */
+    public static final int IN_CHUNK_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    /**
+     * Находит идентификаторы книг по названиям.
+     *
+     * @param titles Названия книг без повторов.
+     * @return Идентификаторы найденных книг по названию.
+     */
+    public Map<String, Long> findBookIdsByTitles(Collection<String> titles) {
+        return findIds("select title, id from book where title in (:values)", titles);
+    }
+
+    /**
+     * Находит идентификаторы авторов по именам.
+     *
+     * @param names Имена авторов без повторов.
+     * @return Идентификаторы найденных авторов по имени.
+     */
+    public Map<String, Long> findAuthorIdsByNames(Collection<String> names) {
+        return findIds("select name, id from author where name in (:values)", names);
+    }
+
+    /**
+     * Находит авторов книг.
+     *
+     * @param bookIds Идентификаторы книг.
+     * @return Идентификаторы авторов по идентификатору книги; книги без авторов отсутствуют.
+     */
+    public Map<Long, Set<Long>> findAuthorIdsByBookIds(Collection<Long> bookIds) {
+        Map<Long, Set<Long>> authorIds = new HashMap<>();
+        for (List<Long> chunk : chunks(bookIds)) {
+            jdbcTemplate.query("select book_id, author_id from book_author where book_id in (:values)",
+                    Map.of("values", chunk),
+                    row -> {
+                        authorIds.computeIfAbsent(row.getLong(1), id -> new HashSet<>()).add(row.getLong(2));
+                    });
+        }
+        return authorIds;
+    }
+
+    /**
+     * Вставляет авторов, которых еще нет. Выделенные идентификаторы записываются в переданные объекты; автор,
+     * имя которого уже занято, не вставляется, и его идентификатор нужно прочитать по имени.
+     *
+     * @param authors Новые авторы без идентификаторов, имена без повторов.
+     */
+    public void upsertAuthors(List<Author> authors) {
+        upsert("insert into author (id, name) values (?, ?) on conflict do nothing",
+                Author.class, authors, Author::getName, Author::setId);
+    }
+
+    /**
+     * Вставляет книги, которых еще нет. Выделенные идентификаторы записываются в переданные объекты; книга,
+     * название которой уже занято, не вставляется, и ее идентификатор нужно прочитать по названию.
+     *
+     * @param books Новые книги без идентификаторов, названия без повторов.
+     */
+    public void upsertBooks(List<Book> books) {
+        upsert("insert into book (id, title) values (?, ?) on conflict do nothing",
+                Book.class, books, Book::getTitle, Book::setId);
+    }
+
+    /**
+     * Вставляет связи книг с авторами, которых еще нет, одним пакетом JDBC.
+     *
+     * @param links Связи без повторов.
+     */
+    public void insertLinks(List<BookAuthor> links) {
+        List<Object[]> rows = links.stream()
+                .sorted(Comparator.comparing(BookAuthor::getAuthorId).thenComparing(BookAuthor::getBookId))
+                .map(link -> new Object[]{link.getAuthorId(), link.getBookId()})
+                .toList();
+        batchUpdate("insert into book_author (author_id, book_id) values (?, ?) on conflict do nothing", rows);
+    }
+
+    /**
+     * Находит, какие из связей уже есть, запросами IN по парам (author_id, book_id).
+     *
+     * @param links Связи без повторов.
+     * @return Существующие связи.
+     */
+    public Set<BookAuthor> findLinks(Collection<BookAuthor> links) {
+        Set<BookAuthor> found = new HashSet<>();
+        for (List<BookAuthor> chunk : chunks(links)) {
+            List<Object[]> pairs = chunk.stream().map(link -> new Object[]{link.getAuthorId(), link.getBookId()}).toList();
+            jdbcTemplate.query("select author_id, book_id from book_author where (author_id, book_id) in (:values)",
+                    Map.of("values", pairs),
+                    row -> {
+                        found.add(new BookAuthor(row.getLong(1), row.getLong(2)));
+                    });
+        }
+        return found;
+    }
+
+    /**
+     * Удаляет связи книг с авторами одним пакетом JDBC; отсутствующие связи пропускаются.
+     *
+     * @param links Связи без повторов.
+     */
+    public void deleteLinks(List<BookAuthor> links) {
+        List<Object[]> rows = links.stream()
+                .sorted(Comparator.comparing(BookAuthor::getAuthorId).thenComparing(BookAuthor::getBookId))
+                .map(link -> new Object[]{link.getAuthorId(), link.getBookId()})
+                .toList();
+        batchUpdate("delete from book_author where author_id = ? and book_id = ?", rows);
+    }
+
+    private <T> void upsert(String sql, Class<T> type, List<T> entities, Function<T, String> key,
+                            BiConsumer<T, Long> setId) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        BeforeExecutionGenerator generator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(type).getGenerator();
+        List<Object[]> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            Long id = (Long) generator.generate(session, entity, null, EventType.INSERT);
+            setId.accept(entity, id);
+            rows.add(new Object[]{id, key.apply(entity)});
+        }
+        rows.sort(Comparator.comparing(row -> (String) row[1]));
+        batchUpdate(sql, rows);
+    }
+
+    private Map<String, Long> findIds(String sql, Collection<String> values) {
+        Map<String, Long> ids = new HashMap<>();
+        for (List<String> chunk : chunks(values)) {
+            jdbcTemplate.query(sql, Map.of("values", chunk), row -> {
+                ids.put(row.getString(1), row.getLong(2));
+            });
+        }
+        return ids;
+    }
+
+    private void batchUpdate(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.getJdbcOperations().batchUpdate(sql, rows);
+        }
+    }
+
+    /**
+     * Разбить значения на порции для IN-запросов, чтобы не превышать ограничение драйвера на число параметров.
+     *
+     * @param values Значения.
+     * @return Порции не длиннее {@link #IN_CHUNK_SIZE}.
+     */
+    public static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + IN_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+}
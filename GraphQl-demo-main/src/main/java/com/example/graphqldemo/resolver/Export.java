@@ -0,0 +1,36 @@
+package com.example.graphqldemo.resolver;
+
+import com.example.graphqldemo.service.CatalogExport;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+/**
+ * Класс-контроллер для выгрузки каталога.
+ *
+ * GET /export/books отдает все книги с авторами в формате NDJSON (см. {@link CatalogExport}) для синхронизации
+ * внешних систем вместо запроса getAllBooks, ответ которого строится в памяти целиком. Ответ пишется в поток
+ * синхронно, по мере чтения из базы, и не ограничен таймаутом асинхронных запросов.
+ * @author Turusov Roman
+ */
+@RestController
+@RequiredArgsConstructor
+public class Export {
+    private final CatalogExport export;
+
+    /**
+     * Выгрузить все книги с авторами.
+     *
+     * @param response Ответ, в который записываются книги, по одной на строку.
+     * @throws IOException Ошибка записи, например при разрыве соединения клиентом.
+     */
+    @GetMapping(value = "/export/books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        export.writeBooks(response.getOutputStream());
+    }
+}
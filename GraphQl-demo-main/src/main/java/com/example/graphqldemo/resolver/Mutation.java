@@ -1,19 +1,31 @@
 package com.example.graphqldemo.resolver;
 
-import com.example.graphqldemo.model.Author;
-import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.dto.AuthorInput;
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.ImportResult;
+import com.example.graphqldemo.dto.LinkOperation;
+import com.example.graphqldemo.service.CatalogImport;
+import com.example.graphqldemo.service.LinkWriteQueue;
 import com.example.graphqldemo.service.MutationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.stereotype.Controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Класс Mutation.
  *
- * Управляет мутациями (изменениями) данных.
+ * Управляет мутациями (изменениями) данных. Сохраненные сущности возвращаются клиенту
+ * в модели чтения, как и результаты запросов. Изменения связей при включенной очереди
+ * ({@link LinkWriteQueue}) ставятся в нее, а не выполняются сразу, поэтому возвращают
+ * не автора или книгу, а подтверждение {@code true}.
  *
  * @author Turusov Roman
  */
@@ -21,6 +33,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class Mutation {
     private final MutationService service;
+    private final CatalogImport catalogImport;
+    private final ObjectProvider<LinkWriteQueue> linkQueue;
 
     /**
      * Сохраняет информацию об авторе в базу данных.
@@ -30,8 +44,8 @@ public class Mutation {
      * @return Объект типа Author после сохранения.
      */
     @MutationMapping
-    public Author saveAuthor(@Argument String name, @Argument List<String> bookTitles) {
-        return service.saveAuthor(name, bookTitles);
+    public AuthorView saveAuthor(@Argument String name, @Argument List<String> bookTitles) {
+        return AuthorView.of(service.saveAuthor(name, bookTitles));
     }
 
     /**
@@ -42,20 +56,42 @@ public class Mutation {
      * @return Объект типа Book после сохранения.
      */
     @MutationMapping
-    public Book saveBook(@Argument String title, @Argument List<String> authorNames) {
-        return service.saveBook(title, authorNames);
+    public BookView saveBook(@Argument String title, @Argument List<String> authorNames) {
+        return BookView.of(service.saveBook(title, authorNames));
     }
 
+    /**
+     * Сохраняет набор книг в базу данных в одной транзакции.
+     *
+     * @param input Список книг с именами авторов.
+     * @return Список сохраненных книг.
+     */
+    @MutationMapping
+    public List<BookView> saveBooks(@Argument List<BookInput> input) {
+        return service.saveBooks(input).stream().map(BookView::of).toList();
+    }
+
+    /**
+     * Сохраняет набор авторов в базу данных в одной транзакции.
+     *
+     * @param input Список авторов с названиями книг.
+     * @return Список сохраненных авторов.
+     */
+    @MutationMapping
+    public List<AuthorView> saveAuthors(@Argument List<AuthorInput> input) {
+        return service.saveAuthors(input).stream().map(AuthorView::of).toList();
+    }
 
     /**
      * Добавляет книгу к автору в базе данных.
      *
      * @param authorId   Идентификатор автора.
      * @param bookTitle  Название книги.
+     * @return {@code true} после применения изменения.
      */
     @MutationMapping
-    public void addBookToAuthor(@Argument Long authorId, @Argument String bookTitle) {
-        service.addBookToAuthor(authorId, bookTitle);
+    public CompletableFuture<Boolean> addBookToAuthor(@Argument Long authorId, @Argument String bookTitle) {
+        return link(LinkOperation.addBookToAuthor(authorId, bookTitle), () -> service.addBookToAuthor(authorId, bookTitle));
     }
 
     /**
@@ -63,10 +99,11 @@ public class Mutation {
      *
      * @param bookId     Идентификатор книги.
      * @param authorName Имя автора.
+     * @return {@code true} после применения изменения.
      */
     @MutationMapping
-    public void addAuthorToBook(@Argument Long bookId, @Argument String authorName) {
-        service.addAuthorToBook(bookId, authorName);
+    public CompletableFuture<Boolean> addAuthorToBook(@Argument Long bookId, @Argument String authorName) {
+        return link(LinkOperation.addAuthorToBook(bookId, authorName), () -> service.addAuthorToBook(bookId, authorName));
     }
 
     /**
@@ -79,15 +116,27 @@ public class Mutation {
         service.deleteAuthorWithBooks(authorId);
     }
 
+    /**
+     * Удаляет набор авторов вместе с их книгами из базы данных в одной транзакции.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Количество удаленных авторов.
+     */
+    @MutationMapping
+    public int deleteAuthorsWithBooks(@Argument List<Long> authorIds) {
+        return service.deleteAuthorsWithBooks(authorIds);
+    }
+
     /**
      * Удаляет книгу у автора в базе данных.
      *
      * @param authorId Идентификатор автора.
      * @param bookId   Идентификатор книги.
+     * @return {@code true} после применения изменения.
      */
     @MutationMapping
-    public void deleteBookFromAuthor(@Argument Long authorId, @Argument Long bookId) {
-        service.removeBookFromAuthor(authorId, bookId);
+    public CompletableFuture<Boolean> removeBookFromAuthor(@Argument Long authorId, @Argument Long bookId) {
+        return link(LinkOperation.removeBookFromAuthor(authorId, bookId), () -> service.removeBookFromAuthor(authorId, bookId));
     }
 
     /**
@@ -112,4 +161,32 @@ public class Mutation {
         service.updateBookTitle(bookId, newTitle);
     }
 
+    /**
+     * Импортирует каталог из файла CSV или NDJSON в каталоге импорта сервера (graphql.import.directory).
+     *
+     * @param path   Путь к файлу относительно каталога импорта.
+     * @param resume Продолжить прерванный импорт с контрольной точки.
+     * @return Итог импорта.
+     * @throws IOException Ошибка чтения файла.
+     */
+    @MutationMapping
+    public ImportResult importCatalog(@Argument String path, @Argument boolean resume) throws IOException {
+        return catalogImport.importFromDirectory(path, resume);
+    }
+
+    /**
+     * Изменить связь книги с автором: поставить изменение в очередь, если она включена, иначе выполнить сразу.
+     *
+     * @param operation Изменение для очереди.
+     * @param direct    Выполнение без очереди.
+     * @return {@code true} после применения изменения, при durability=ENQUEUE - после постановки в очередь.
+     */
+    private CompletableFuture<Boolean> link(LinkOperation operation, Runnable direct) {
+        LinkWriteQueue queue = linkQueue.getIfAvailable();
+        if (queue != null) {
+            return queue.submit(operation).thenApply(acknowledged -> true);
+        }
+        direct.run();
+        return CompletableFuture.completedFuture(true);
+    }
 }
@@ -1,8 +1,11 @@
 package com.example.graphqldemo.resolver;
 
-import com.example.graphqldemo.model.Author;
-import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.Connection;
+import com.example.graphqldemo.service.FetchPlan;
 import com.example.graphqldemo.service.QueryService;
+import graphql.schema.DataFetchingFieldSelectionSet;
 import lombok.RequiredArgsConstructor;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
@@ -22,23 +25,25 @@ public class Query {
     /**
      * Получить автора по имени.
      *
-     * @param name Имя автора.
+     * @param name         Имя автора.
+     * @param selectionSet Запрошенные поля; книги загружаются, только если запрошено поле books.
      * @return Объект автора.
      */
     @QueryMapping
-    public Author getAuthor(@Argument String name){
-        return service.getAuthor(name);
+    public AuthorView getAuthor(@Argument String name, DataFetchingFieldSelectionSet selectionSet){
+        return service.getAuthor(name, FetchPlan.of(selectionSet, "books"));
     }
 
     /**
      * Получить список книг по имени автора.
      *
-     * @param authorName Имя автора.
+     * @param authorName   Имя автора.
+     * @param selectionSet Запрошенные поля; авторы загружаются, только если запрошено поле authors.
      * @return Список книг этого автора.
      */
     @QueryMapping
-    public List<Book> getBooksByAuthor(@Argument String authorName){
-        return service.getBooksByAuthor(authorName);
+    public List<BookView> getBooksByAuthor(@Argument String authorName, DataFetchingFieldSelectionSet selectionSet){
+        return service.getBooksByAuthor(authorName, FetchPlan.of(selectionSet, "authors"));
     }
 
     /**
@@ -48,17 +53,69 @@ public class Query {
      * @return Объект книги.
      */
     @QueryMapping
-    public Book getBookById(@Argument Long bookId) {
+    public BookView getBookById(@Argument Long bookId) {
         return service.getBookById(bookId);
     }
 
     /**
      * Получить список всех книг.
      *
+     * @param selectionSet Запрошенные поля; авторы загружаются, только если запрошено поле authors.
      * @return Список всех книг.
      */
     @QueryMapping
-    public List<Book> getAllBooks(){
-        return service.getAllBooks();
+    public List<BookView> getAllBooks(DataFetchingFieldSelectionSet selectionSet){
+        return service.getAllBooks(FetchPlan.of(selectionSet, "authors"));
+    }
+
+    /**
+     * Получить страницу всех книг.
+     *
+     * @param first Размер страницы.
+     * @param after Курсор, после которого начинается страница.
+     * @return Страница книг.
+     */
+    @QueryMapping
+    public Connection<BookView> booksConnection(@Argument Integer first, @Argument String after) {
+        return service.getBooksConnection(first, after);
+    }
+
+    /**
+     * Получить страницу книг автора.
+     *
+     * @param authorName Имя автора.
+     * @param first      Размер страницы.
+     * @param after      Курсор, после которого начинается страница.
+     * @return Страница книг автора.
+     */
+    @QueryMapping
+    public Connection<BookView> booksByAuthorConnection(@Argument String authorName,
+                                                    @Argument Integer first,
+                                                    @Argument String after) {
+        return service.getBooksByAuthorConnection(authorName, first, after);
+    }
+
+    /**
+     * Найти книги по названию.
+     *
+     * @param query Начало, часть названия или название с опечатками.
+     * @param first Количество результатов.
+     * @return Книги, лучшие совпадения первыми.
+     */
+    @QueryMapping
+    public List<BookView> searchBooks(@Argument String query, @Argument Integer first) {
+        return service.searchBooks(query, first);
+    }
+
+    /**
+     * Найти авторов по имени.
+     *
+     * @param query Начало, часть имени или имя с опечатками.
+     * @param first Количество результатов.
+     * @return Авторы, лучшие совпадения первыми.
+     */
+    @QueryMapping
+    public List<AuthorView> searchAuthors(@Argument String query, @Argument Integer first) {
+        return service.searchAuthors(query, first);
     }
 }
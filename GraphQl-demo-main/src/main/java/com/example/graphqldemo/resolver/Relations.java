@@ -0,0 +1,63 @@
+package com.example.graphqldemo.resolver;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.service.QueryService;
+import org.dataloader.DataLoader;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Класс-контроллер для вложенных полей Book.authors и Author.books.
+ *
+ * Если список уже выбран запросом верхнего уровня, он возвращается как есть. Иначе идентификаторы родителей
+ * одного уровня собираются в DataLoader и загружаются одним IN-запросом к таблице book_author. DataLoader создается на каждый запрос,
+ * поэтому повторные обращения к одной и той же книге или автору в рамках запроса берутся из его кэша.
+ *
+ * @author Turusov Roman
+ */
+@Controller
+public class Relations {
+
+    public Relations(BatchLoaderRegistry registry, QueryService service) {
+        registry.<Long, List<AuthorView>>forName("bookAuthors")
+                .registerMappedBatchLoader((bookIds, env) -> Mono.fromCallable(() -> service.getAuthorsByBookIds(bookIds)));
+        registry.<Long, List<BookView>>forName("authorBooks")
+                .registerMappedBatchLoader((authorIds, env) -> Mono.fromCallable(() -> service.getBooksByAuthorIds(authorIds)));
+    }
+
+    /**
+     * Получить авторов книги.
+     *
+     * @param book        Книга.
+     * @param bookAuthors DataLoader авторов по идентификатору книги.
+     * @return Список авторов книги.
+     */
+    @SchemaMapping(typeName = "Book")
+    public CompletableFuture<List<AuthorView>> authors(BookView book, DataLoader<Long, List<AuthorView>> bookAuthors) {
+        if (book.authors() != null) {
+            return CompletableFuture.completedFuture(book.authors());
+        }
+        return bookAuthors.load(book.id());
+    }
+
+    /**
+     * Получить книги автора.
+     *
+     * @param author      Автор.
+     * @param authorBooks DataLoader книг по идентификатору автора.
+     * @return Список книг автора.
+     */
+    @SchemaMapping(typeName = "Author")
+    public CompletableFuture<List<BookView>> books(AuthorView author, DataLoader<Long, List<BookView>> authorBooks) {
+        if (author.books() != null) {
+            return CompletableFuture.completedFuture(author.books());
+        }
+        return authorBooks.load(author.id());
+    }
+}
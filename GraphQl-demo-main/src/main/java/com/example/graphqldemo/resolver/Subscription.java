@@ -0,0 +1,61 @@
+package com.example.graphqldemo.resolver;
+
+import com.example.graphqldemo.event.SequencedChange;
+import com.example.graphqldemo.service.CatalogChangeFeed;
+import com.example.graphqldemo.service.CatalogChangeFeed.OverflowPolicy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+
+/**
+ * Класс Subscription.
+ *
+ * Подписки на изменения каталога по WebSocket вместо периодического опроса getAllBooks.
+ *
+ * @author Turusov Roman
+ */
+@Controller
+@RequiredArgsConstructor
+public class Subscription {
+    private final CatalogChangeFeed feed;
+
+    /**
+     * Изменения книги или всех книг.
+     *
+     * @param bookId   Идентификатор книги или {@code null} для изменений всех книг.
+     * @param overflow Политика для медленного подписчика.
+     * @return Изменения, затрагивающие книгу: создание, переименование, удаление и связи с авторами.
+     */
+    @SubscriptionMapping
+    public Flux<SequencedChange> bookChanged(@Argument Long bookId, @Argument OverflowPolicy overflow) {
+        return feed.changes(null, change -> change.bookId() != null
+                && (bookId == null || bookId.equals(change.bookId())), overflow);
+    }
+
+    /**
+     * Изменения автора или всех авторов.
+     *
+     * @param authorId Идентификатор автора или {@code null} для изменений всех авторов.
+     * @param overflow Политика для медленного подписчика.
+     * @return Изменения, затрагивающие автора: создание, переименование, удаление и связи с книгами.
+     */
+    @SubscriptionMapping
+    public Flux<SequencedChange> authorChanged(@Argument Long authorId, @Argument OverflowPolicy overflow) {
+        return feed.changes(null, change -> change.authorId() != null
+                && (authorId == null || authorId.equals(change.authorId())), overflow);
+    }
+
+    /**
+     * Все изменения каталога.
+     *
+     * @param since    Номер последнего полученного изменения, чтобы продолжить подписку после обрыва.
+     * @param overflow Политика для медленного подписчика.
+     * @return Изменения в порядке номеров.
+     */
+    @SubscriptionMapping
+    public Flux<SequencedChange> catalogChanges(@Argument Long since, @Argument OverflowPolicy overflow) {
+        return feed.changes(since, change -> true, overflow);
+    }
+}
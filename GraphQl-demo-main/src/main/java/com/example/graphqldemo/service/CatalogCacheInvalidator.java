@@ -0,0 +1,145 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.config.CacheConfig;
+import com.example.graphqldemo.config.ReadYourWrites;
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Сбрасывает записи кэша каталога, затронутые мутацией.
+ *
+ * Кроме самих измененных авторов и книг сбрасываются записи соавторов: закэшированные списки книг
+ * автора содержат авторов каждой книги, поэтому изменение связи или переименование видно и в них.
+ * Соавторы определяются по базе после фиксации транзакции: для связей и книг - авторы затронутых книг,
+ * для переименованного автора - авторы всех его книг. При очень больших изменениях
+ * (массовое сохранение, переименование автора с тысячами книг) кэш очищается целиком.
+ *
+ * При чтении из реплики ({@link ReadYourWrites}) кэш не должен отдавать и сохранять устаревшие данные:
+ * клиент, читающий свои записи из основной базы, читает мимо кэша ({@link #bypass()}), а значения,
+ * прочитанные из реплики в течение graphql.read-your-writes.duration после сброса, не кэшируются
+ * ({@link #replicaMayBeStale()}) - реплика могла еще не получить изменения.
+ *
+ * @author Turusov Roman
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogCacheInvalidator {
+
+    /**
+     * Количество изменений, начиная с которого кэш очищается целиком.
+     */
+    static final int CLEAR_THRESHOLD = 1000;
+
+    private final CacheManager cacheManager;
+    private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final ObjectProvider<ReadYourWrites> readYourWrites;
+    /**
+     * До какого момента (System.nanoTime()) прочитанное из реплики может быть старше последнего сброса.
+     */
+    private volatile long replicaStaleUntil = System.nanoTime();
+
+    /**
+     * Читать ли мимо кэша: клиент текущего запроса после своей мутации читает из основной базы,
+     * а в кэше может быть значение, прочитанное из реплики.
+     *
+     * @return {@code true}, если кэш не используется.
+     */
+    public boolean bypass() {
+        ReadYourWrites routing = readYourWrites.getIfAvailable();
+        return routing != null && routing.isPinned();
+    }
+
+    /**
+     * Не сохранять ли прочитанное значение в кэш: оно прочитано из реплики, которая после недавнего сброса
+     * могла еще не получить изменения мутации.
+     *
+     * @return {@code true}, если значение не кэшируется.
+     */
+    public boolean replicaMayBeStale() {
+        return readYourWrites.getIfAvailable() != null && System.nanoTime() - replicaStaleUntil < 0;
+    }
+
+    /**
+     * Обработать изменение каталога после фиксации транзакции.
+     *
+     * @param event Изменения одной мутации.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        ReadYourWrites routing = readYourWrites.getIfAvailable();
+        if (routing != null) {
+            // До сброса: чтение из реплики, начатое раньше, сохраняет значение уже после него.
+            replicaStaleUntil = System.nanoTime() + routing.duration().toNanos();
+        }
+        if (event.changes().size() >= CLEAR_THRESHOLD) {
+            clear();
+            return;
+        }
+
+        Set<Long> renamedAuthorIds = new HashSet<>();
+        Set<Long> bookIds = new HashSet<>();
+        Set<String> authorNames = new HashSet<>();
+        for (CatalogChange change : event.changes()) {
+            if (change.authorId() != null) {
+                authorNames.add(change.authorName());
+            }
+            if (change.bookId() != null) {
+                bookIds.add(change.bookId());
+            }
+            if (change.type() == CatalogChange.Type.AUTHOR_RENAMED) {
+                renamedAuthorIds.add(change.authorId());
+                authorNames.add(change.previousValue());
+            }
+        }
+        if (!renamedAuthorIds.isEmpty()) {
+            bookIds.addAll(bookRepository.findIdsByAuthorIds(renamedAuthorIds));
+        }
+        if (bookIds.size() >= CLEAR_THRESHOLD) {
+            clear();
+            return;
+        }
+        if (!bookIds.isEmpty()) {
+            authorNames.addAll(authorRepository.findNamesByBookIds(bookIds));
+        }
+        authorNames.remove(null);
+        log.debug("evicting authors: {}, books: {}", authorNames, bookIds);
+
+        Cache books = cache(CacheConfig.BOOKS);
+        bookIds.forEach(books::evictIfPresent);
+        Cache authors = cache(CacheConfig.AUTHORS);
+        Cache booksByAuthor = cache(CacheConfig.BOOKS_BY_AUTHOR);
+        for (String name : authorNames) {
+            for (FetchPlan plan : FetchPlan.values()) {
+                authors.evictIfPresent(new SimpleKey(name, plan));
+                booksByAuthor.evictIfPresent(new SimpleKey(name, plan));
+            }
+        }
+    }
+
+    private void clear() {
+        log.debug("clearing caches");
+        cache(CacheConfig.AUTHORS).invalidate();
+        cache(CacheConfig.BOOKS).invalidate();
+        cache(CacheConfig.BOOKS_BY_AUTHOR).invalidate();
+    }
+
+    private Cache cache(String name) {
+        return Objects.requireNonNull(cacheManager.getCache(name), name);
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.example.graphqldemo.event.SequencedChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Поток изменений каталога для подписок GraphQL.
+ *
+ * Изменения мутаций получают порядковые номера после фиксации транзакции и рассылаются подписчикам.
+ * Последние изменения хранятся в истории ограниченного размера, подписка с параметром since сначала получает
+ * из нее пропущенные изменения, затем новые, без пропусков и повторов между ними.
+ * У каждого подписчика свой буфер ограниченного размера, в который новые изменения попадают и во время отправки
+ * пропущенных из истории. Политика DROP_OLDEST при переполнении отбрасывает самые старые недоставленные
+ * изменения, COALESCE заменяет недоставленное изменение той же книги или автора (той же связи для изменений
+ * связей) последним, а при переполнении тоже отбрасывает самое старое. Пропуск виден клиенту по разрыву
+ * в номерах, отброшенные изменения считаются в метрике graphql.subscription.dropped.
+ * Номера начинаются заново после перезапуска приложения.
+ *
+ * @author Turusov Roman
+ */
+@Component
+public class CatalogChangeFeed {
+
+    /**
+     * Политика для подписчика, не успевающего получать изменения.
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        COALESCE
+    }
+
+    /**
+     * Сколько изменений из буфера подписчика отправляется за раз.
+     */
+    private static final int PREFETCH = 32;
+
+    private final int bufferSize;
+    private final int historySize;
+    private final Counter droppedOldest;
+    private final Counter coalesced;
+
+    private final Object lock = new Object();
+    private final Deque<SequencedChange> history = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = new HashSet<>();
+    private long sequence;
+
+    public CatalogChangeFeed(@Value("${graphql.subscriptions.buffer-size:256}") int bufferSize,
+                             @Value("${graphql.subscriptions.history-size:10000}") int historySize,
+                             MeterRegistry meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.historySize = historySize;
+        this.droppedOldest = dropped(meterRegistry, OverflowPolicy.DROP_OLDEST);
+        this.coalesced = dropped(meterRegistry, OverflowPolicy.COALESCE);
+    }
+
+    /**
+     * Разослать изменения мутации после фиксации транзакции.
+     *
+     * @param event Изменения одной мутации.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (lock) {
+            for (CatalogChange change : event.changes()) {
+                SequencedChange sequenced = new SequencedChange(++sequence, change);
+                history.addLast(sequenced);
+                if (history.size() > historySize) {
+                    history.removeFirst();
+                }
+                subscribers.forEach(subscriber -> subscriber.offer(sequenced));
+            }
+        }
+    }
+
+    /**
+     * Подписаться на изменения.
+     *
+     * @param since    Номер последнего полученного изменения; изменения после него отправляются из истории.
+     *                 {@code null}, чтобы получать только новые изменения.
+     * @param filter   Какие изменения отправлять подписчику.
+     * @param overflow Политика при переполнении буфера подписчика.
+     * @return Изменения в порядке номеров.
+     */
+    public Flux<SequencedChange> changes(Long since, Predicate<CatalogChange> filter, OverflowPolicy overflow) {
+        return Flux.defer(() -> {
+            Subscriber subscriber = new Subscriber(filter, overflow);
+            List<SequencedChange> missed = new ArrayList<>();
+            synchronized (lock) {
+                if (since != null) {
+                    missed.addAll(replay(since));
+                }
+                subscribers.add(subscriber);
+            }
+            // Подписчик сам ограничивает буфер и отправляет не больше запрошенного, поэтому переполнение - ошибка.
+            Flux<SequencedChange> live = Flux.create(subscriber::attach, FluxSink.OverflowStrategy.ERROR)
+                    .publishOn(Schedulers.boundedElastic(), overflow == OverflowPolicy.COALESCE ? 1 : PREFETCH);
+            return Flux.concat(Flux.fromIterable(missed).filter(change -> filter.test(change.change())), live)
+                    .doFinally(signal -> {
+                        synchronized (lock) {
+                            subscribers.remove(subscriber);
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Номер последнего разосланного изменения.
+     *
+     * @return Номер или 0, если изменений еще не было.
+     */
+    public long lastSequence() {
+        synchronized (lock) {
+            return sequence;
+        }
+    }
+
+    private List<SequencedChange> replay(long since) {
+        long oldest = history.isEmpty() ? sequence + 1 : history.getFirst().sequence();
+        if (since > sequence || since < oldest - 1) {
+            throw new IllegalArgumentException("Изменения после номера " + since + " недоступны, доступны с "
+                    + oldest + " по " + sequence + "; перезагрузите каталог и подпишитесь без since");
+        }
+        return history.stream().filter(change -> change.sequence() > since).toList();
+    }
+
+    private Counter dropped(MeterRegistry meterRegistry, OverflowPolicy policy) {
+        return Counter.builder("graphql.subscription.dropped")
+                .description("Catalog changes not delivered to slow subscribers")
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Буфер недоставленных изменений одного подписчика. Изменения отправляются по мере запроса подписчика
+     * в порядке номеров, буфер хранит не больше bufferSize изменений.
+     */
+    private final class Subscriber {
+
+        private final Predicate<CatalogChange> filter;
+        private final OverflowPolicy overflow;
+        private final Counter dropped;
+        private final LinkedHashMap<Object, SequencedChange> pending = new LinkedHashMap<>();
+        private FluxSink<SequencedChange> sink;
+
+        private Subscriber(Predicate<CatalogChange> filter, OverflowPolicy overflow) {
+            this.filter = filter;
+            this.overflow = overflow;
+            this.dropped = overflow == OverflowPolicy.COALESCE ? coalesced : droppedOldest;
+        }
+
+        synchronized void offer(SequencedChange change) {
+            if (!filter.test(change.change())) {
+                return;
+            }
+            Object key = overflow == OverflowPolicy.COALESCE ? EntityKey.of(change.change()) : change.sequence();
+            if (pending.remove(key) != null) {
+                dropped.increment();
+            } else if (pending.size() >= bufferSize) {
+                Iterator<SequencedChange> oldest = pending.values().iterator();
+                oldest.next();
+                oldest.remove();
+                dropped.increment();
+            }
+            pending.put(key, change);
+            drain();
+        }
+
+        synchronized void attach(FluxSink<SequencedChange> sink) {
+            this.sink = sink;
+            sink.onRequest(requested -> drain());
+            drain();
+        }
+
+        private synchronized void drain() {
+            while (sink != null && !pending.isEmpty() && sink.requestedFromDownstream() > 0) {
+                Iterator<SequencedChange> oldest = pending.values().iterator();
+                SequencedChange next = oldest.next();
+                oldest.remove();
+                sink.next(next);
+            }
+        }
+    }
+
+    /**
+     * Книга и автор изменения; у изменений одной книги или автора без связи второй идентификатор {@code null}.
+     */
+    private record EntityKey(Long bookId, Long authorId) {
+
+        static EntityKey of(CatalogChange change) {
+            return switch (change.type()) {
+                case LINKED, UNLINKED -> new EntityKey(change.bookId(), change.authorId());
+                case BOOK_CREATED, BOOK_RENAMED, BOOK_DELETED -> new EntityKey(change.bookId(), null);
+                case AUTHOR_CREATED, AUTHOR_RENAMED, AUTHOR_DELETED -> new EntityKey(null, change.authorId());
+            };
+        }
+    }
+}
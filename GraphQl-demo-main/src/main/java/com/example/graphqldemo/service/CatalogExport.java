@@ -0,0 +1,76 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.repository.CatalogViewRepository;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выгрузка каталога в формате NDJSON.
+ *
+ * Каждая строка - книга с авторами: {"id":1,"title":"...","authors":[{"id":2,"name":"..."}]}, книги
+ * по возрастанию идентификатора. Книги читаются курсором {@link CatalogViewRepository#forEachBookWithAuthors}
+ * и сразу записываются в поток, поэтому память не зависит от размера каталога. Выгрузка выполняется
+ * в одной транзакции только для чтения и видит согласованный снимок каталога; при настроенной реплике
+ * читает из нее.
+ *
+ * @author Turusov Roman
+ */
+@Service
+@Slf4j
+public class CatalogExport {
+
+    private final CatalogViewRepository viewRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter bookWriter;
+
+    public CatalogExport(CatalogViewRepository viewRepository, ObjectMapper objectMapper) {
+        this.viewRepository = viewRepository;
+        this.objectMapper = objectMapper;
+        this.bookWriter = objectMapper.copy()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writerFor(BookView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Записать все книги с авторами, по одной на строку.
+     *
+     * @param output Поток ответа; не закрывается.
+     * @return Количество записанных книг.
+     * @throws IOException Ошибка записи в поток.
+     */
+    @Transactional(readOnly = true)
+    public long writeBooks(OutputStream output) throws IOException {
+        AtomicLong books = new AtomicLong();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Книги разделяются переводом строки, а не пробелом, который Jackson пишет между значениями.
+            generator.setRootValueSeparator(null);
+            viewRepository.forEachBookWithAuthors(book -> {
+                try {
+                    bookWriter.writeValue(generator, book);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                books.incrementAndGet();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        log.debug("exported books: {}", books);
+        return books.get();
+    }
+}
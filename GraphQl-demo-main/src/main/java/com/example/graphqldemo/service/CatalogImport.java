@@ -0,0 +1,344 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.ImportResult;
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.example.graphqldemo.model.Author;
+import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.model.BookAuthor;
+import com.example.graphqldemo.repository.CatalogWriteRepository;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Импорт каталога из файла.
+ *
+ * Файл читается потоком, запись за записью: CSV (.csv) с заголовком в первой строке, названием книги в первом
+ * столбце и именами авторов в остальных, или NDJSON (.ndjson, .jsonl) в формате выгрузки {@link CatalogExport}.
+ * Записи сохраняются порциями по {@link #BATCH_SIZE}, каждая в своей транзакции, пакетными вставками JDBC
+ * ({@link CatalogWriteRepository}). Импорт работает как upsert: книги с существующими названиями и авторы
+ * с существующими именами не создаются заново, добавляются только недостающие связи, поэтому повторный импорт
+ * того же файла ничего не меняет, а параллельное создание тех же книг и авторов не прерывает его. Идентификаторы
+ * книг и авторов ищутся заново в каждой порции, поэтому удаление автора между порциями тоже не мешает импорту;
+ * удаление книги или автора, одновременное с записью порции, прерывает импорт, и его можно продолжить
+ * с контрольной точки.
+ *
+ * После каждой порции в лог пишется прогресс, а рядом с файлом - контрольная точка (файл .checkpoint)
+ * с количеством сохраненных записей. Импорт, прерванный ошибкой или остановкой приложения, при следующем
+ * запуске продолжается с записи после контрольной точки; после успешного окончания она удаляется.
+ * Каждая порция публикует {@link CatalogChangedEvent}, как мутация, поэтому кэши, поисковые индексы
+ * и подписчики видят импортированные данные. Одновременно выполняется не больше одного импорта.
+ *
+ * @author Turusov Roman
+ */
+@Service
+@Slf4j
+public class CatalogImport {
+
+    /**
+     * Количество записей файла, сохраняемых в одной транзакции.
+     */
+    static final int BATCH_SIZE = 10_000;
+
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final String RECORDS = "records";
+
+    private final CatalogWriteRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader bookReader;
+    private final ObjectReader rowReader;
+    private final Path directory;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CatalogImport(CatalogWriteRepository repository, PlatformTransactionManager transactionManager,
+                         ApplicationEventPublisher eventPublisher, ObjectMapper objectMapper,
+                         @Value("${graphql.import.directory:}") String directory) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.bookReader = objectMapper.readerFor(BookView.class);
+        this.rowReader = new CsvMapper().readerFor(String[].class)
+                .with(CsvParser.Feature.WRAP_AS_ARRAY)
+                .with(CsvParser.Feature.SKIP_EMPTY_LINES);
+        this.directory = directory.isEmpty() ? null : Path.of(directory);
+    }
+
+    /**
+     * Импортировать файл из каталога импорта (graphql.import.directory). Используется мутацией importCatalog,
+     * поэтому файлы вне этого каталога недоступны; без настройки импорт через API выключен.
+     *
+     * @param name   Путь к файлу относительно каталога импорта.
+     * @param resume Продолжить с контрольной точки прошлого запуска, если она есть.
+     * @return Итог импорта.
+     * @throws IOException Ошибка чтения файла или записи контрольной точки.
+     */
+    public ImportResult importFromDirectory(String name, boolean resume) throws IOException {
+        if (directory == null) {
+            throw new IllegalStateException("Импорт через API выключен: не задан graphql.import.directory");
+        }
+        Path root = directory.toRealPath();
+        Path file = root.resolve(name).normalize();
+        if (!file.startsWith(root) || !file.toRealPath().startsWith(root)) {
+            throw new IllegalArgumentException("Файл " + name + " находится вне каталога импорта");
+        }
+        return importFile(file, resume);
+    }
+
+    /**
+     * Импортировать файл.
+     *
+     * @param file   Файл CSV или NDJSON.
+     * @param resume Продолжить с контрольной точки прошлого запуска, если она есть.
+     * @return Итог импорта.
+     * @throws IOException Ошибка чтения файла или записи контрольной точки.
+     */
+    public ImportResult importFile(Path file, boolean resume) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Импорт уже выполняется");
+        }
+        try {
+            return run(file, resume);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ImportResult run(Path file, boolean resume) throws IOException {
+        Path checkpoint = file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX);
+        long skip = resume ? readCheckpoint(checkpoint) : 0;
+        if (skip > 0) {
+            log.info("import {}: resuming after record {}", file, skip);
+        }
+        Progress progress = new Progress(file);
+        List<BookInput> batch = new ArrayList<>(BATCH_SIZE);
+        long record = 0;
+
+        try (Reader reader = Files.newBufferedReader(file)) {
+            Iterator<BookInput> records = records(file, reader);
+            while (records.hasNext()) {
+                BookInput input = records.next();
+                if (++record <= skip) {
+                    continue;
+                }
+                if (input.title() == null || input.title().isBlank()) {
+                    throw new IllegalArgumentException("Запись " + record + " файла " + file + ": нет названия книги");
+                }
+                batch.add(input);
+                if (batch.size() == BATCH_SIZE) {
+                    progress.saved(save(batch), record);
+                    writeCheckpoint(checkpoint, record);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            progress.saved(save(batch), record);
+        }
+        Files.deleteIfExists(checkpoint);
+
+        long skipped = Math.min(skip, record);
+        ImportResult result = new ImportResult(record - skipped, skipped,
+                progress.books, progress.authors, progress.links);
+        log.info("import {}: done in {} ms: {}", file, progress.millis(), result);
+        return result;
+    }
+
+    /**
+     * Сохранить порцию записей в одной транзакции.
+     *
+     * @param batch Записи с непустыми названиями.
+     * @return Количество созданных строк.
+     */
+    private Saved save(List<BookInput> batch) {
+        return transactionTemplate.execute(status -> {
+            Map<String, Set<String>> authorsByTitle = new LinkedHashMap<>();
+            for (BookInput input : batch) {
+                Set<String> names = authorsByTitle.computeIfAbsent(input.title(), title -> new LinkedHashSet<>());
+                if (input.authorNames() != null) {
+                    input.authorNames().stream().filter(name -> name != null && !name.isBlank()).forEach(names::add);
+                }
+            }
+            List<CatalogChange> changes = new ArrayList<>();
+
+            Map<String, Long> bookIds = repository.findBookIdsByTitles(authorsByTitle.keySet());
+            List<Book> books = authorsByTitle.keySet().stream()
+                    .filter(title -> !bookIds.containsKey(title))
+                    .map(title -> new Book().setTitle(title))
+                    .toList();
+            repository.upsertBooks(books);
+            bookIds.putAll(repository.findBookIdsByTitles(books.stream().map(Book::getTitle).toList()));
+            List<Book> createdBooks = books.stream()
+                    .filter(book -> book.getId().equals(bookIds.get(book.getTitle())))
+                    .toList();
+            createdBooks.forEach(book -> changes.add(CatalogChange.bookCreated(book)));
+
+            Set<String> authorNames = new LinkedHashSet<>();
+            authorsByTitle.values().forEach(authorNames::addAll);
+            Map<String, Long> authorIds = repository.findAuthorIdsByNames(authorNames);
+            List<Author> authors = authorNames.stream()
+                    .filter(name -> !authorIds.containsKey(name))
+                    .map(name -> new Author().setName(name))
+                    .toList();
+            repository.upsertAuthors(authors);
+            authorIds.putAll(repository.findAuthorIdsByNames(authors.stream().map(Author::getName).toList()));
+            List<Author> createdAuthors = authors.stream()
+                    .filter(author -> author.getId().equals(authorIds.get(author.getName())))
+                    .toList();
+            createdAuthors.forEach(author -> changes.add(CatalogChange.authorCreated(author)));
+
+            // Связи могут быть у всех книг, кроме созданных этой порцией: и у существовавших,
+            // и у найденных после вставки, то есть одновременно созданных другой транзакцией.
+            Set<Long> foundBookIds = new HashSet<>(bookIds.values());
+            createdBooks.forEach(book -> foundBookIds.remove(book.getId()));
+            Map<Long, Set<Long>> linked = repository.findAuthorIdsByBookIds(foundBookIds);
+            List<BookAuthor> links = new ArrayList<>();
+            authorsByTitle.forEach((title, names) -> {
+                Long bookId = bookIds.get(title);
+                Set<Long> present = linked.getOrDefault(bookId, Set.of());
+                for (String name : names) {
+                    Long authorId = authorIds.get(name);
+                    if (!present.contains(authorId)) {
+                        links.add(new BookAuthor(authorId, bookId));
+                        changes.add(CatalogChange.linked(new Author(authorId, name), new Book(bookId, title)));
+                    }
+                }
+            });
+            repository.insertLinks(links);
+
+            if (!changes.isEmpty()) {
+                eventPublisher.publishEvent(new CatalogChangedEvent(List.copyOf(changes)));
+            }
+            return new Saved(createdBooks.size(), createdAuthors.size(), links.size());
+        });
+    }
+
+    /**
+     * Записи файла в формате, определяемом расширением.
+     *
+     * @param file   Файл.
+     * @param reader Содержимое файла.
+     * @return Записи в порядке следования в файле.
+     * @throws IOException Ошибка чтения файла.
+     */
+    private Iterator<BookInput> records(Path file, Reader reader) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".csv")) {
+            MappingIterator<String[]> rows = rowReader.readValues(reader);
+            if (rows.hasNext()) {
+                rows.next();
+            }
+            return map(rows, row -> new BookInput(row[0], Arrays.asList(row).subList(1, row.length)));
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            MappingIterator<BookView> books = bookReader.readValues(reader);
+            return map(books, book -> new BookInput(book.title(),
+                    book.authors() == null ? List.of() : book.authors().stream().map(AuthorView::name).toList()));
+        }
+        throw new IllegalArgumentException("Неизвестный формат файла " + name + ": ожидается .csv, .ndjson или .jsonl");
+    }
+
+    private static <T> Iterator<BookInput> map(Iterator<T> values, Function<T, BookInput> mapper) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return values.hasNext();
+            }
+
+            @Override
+            public BookInput next() {
+                return mapper.apply(values.next());
+            }
+        };
+    }
+
+    private static long readCheckpoint(Path checkpoint) throws IOException {
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpoint)) {
+            properties.load(reader);
+        }
+        return Long.parseLong(properties.getProperty(RECORDS, "0"));
+    }
+
+    /**
+     * Записать контрольную точку через временный файл, чтобы при остановке во время записи
+     * осталась прежняя контрольная точка, а не обрезанная.
+     */
+    private static void writeCheckpoint(Path checkpoint, long records) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(RECORDS, String.valueOf(records));
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Количество строк, созданных одной порцией.
+     */
+    private record Saved(int books, int authors, int links) {
+    }
+
+    /**
+     * Прогресс импорта для лога и итога.
+     */
+    private static class Progress {
+        private final Path file;
+        private final long started = System.nanoTime();
+        private long books;
+        private long authors;
+        private long links;
+
+        Progress(Path file) {
+            this.file = file;
+        }
+
+        void saved(Saved saved, long record) {
+            books += saved.books();
+            authors += saved.authors();
+            links += saved.links();
+            long millis = Math.max(1, millis());
+            log.info("import {}: record {}, created books: {}, authors: {}, links: {}, {} rows/s", file, record,
+                    books, authors, links, (books + authors + links) * 1000 / millis);
+        }
+
+        long millis() {
+            return (System.nanoTime() - started) / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Модель чтения каталога в памяти.
+ *
+ * Включается свойством graphql.read-model.enabled=true: QueryService тогда читает не из базы, а из неизменяемого
+ * снимка каталога ({@link CatalogSnapshot}) без блокировок, транзакций и соединений пула. Снимок строится
+ * из базы при запуске приложения и затем раз в graphql.read-model.rebuild-interval; между построениями
+ * события мутаций применяются после фиксации транзакции к новой копии затронутых сегментов, и снимок
+ * подменяется целиком, поэтому читатель всегда видит согласованное состояние.
+ *
+ * Данные, записанные в базу в обход мутаций этого экземпляра (другими экземплярами приложения, импортом
+ * напрямую в базу), видны только после следующего построения. События параллельных транзакций могут
+ * прийти не в порядке фиксации, расхождение с базой тоже исправляется построением.
+ *
+ * @author Turusov Roman
+ */
+@Component
+@Slf4j
+public class CatalogReadModel implements SmartInitializingSingleton, AutoCloseable {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration rebuildInterval;
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private ScheduledExecutorService scheduler;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    /**
+     * Изменения, примененные во время построения; применяются повторно к построенному снимку.
+     */
+    private List<CatalogChange> replay;
+
+    public CatalogReadModel(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            @Value("${graphql.read-model.enabled:false}") boolean enabled,
+                            @Value("${graphql.read-model.rebuild-interval:1h}") Duration rebuildInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Не только для чтения: снимок строится по основной базе, а не по реплике, которая может отставать
+        // от уже примененных событий. REPEATABLE_READ - три запроса видят одно состояние базы.
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.enabled = enabled;
+        this.rebuildInterval = rebuildInterval;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        if (rebuildInterval.isPositive()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("read-model-rebuild").daemon().factory());
+            long interval = rebuildInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::scheduledRebuild, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return {@code true}, если запросы читают из снимка.
+     */
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Текущий снимок каталога; пустой, если модель выключена.
+     */
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Заново построить снимок по содержимому базы. До окончания построения запросы читают прежний снимок,
+     * изменения, зафиксированные за время построения, применяются к новому снимку. Одновременно выполняется
+     * одно построение.
+     */
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            CatalogSnapshot loaded = null;
+            try {
+                loaded = transactionTemplate.execute(status -> load());
+            } finally {
+                synchronized (this) {
+                    if (loaded != null) {
+                        snapshot = loaded.apply(replay);
+                    }
+                    replay = null;
+                }
+            }
+            log.info("read model built in {} ms: books: {}, authors: {}",
+                    (System.nanoTime() - start) / 1_000_000, loaded.bookCount(), loaded.authorCount());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Применить изменения к снимку после фиксации транзакции.
+     *
+     * @param event Изменения одной мутации.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        snapshot = snapshot.apply(event.changes());
+        if (replay != null) {
+            replay.addAll(event.changes());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void scheduledRebuild() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить модель чтения каталога", e);
+        }
+    }
+
+    private CatalogSnapshot load() {
+        SegmentedTable.Builder books = new SegmentedTable.Builder();
+        SegmentedTable.Builder authors = new SegmentedTable.Builder();
+        Map<String, Long> names = new HashMap<>();
+        jdbcTemplate.query("select id, title from book order by id", row -> {
+            books.add(row.getLong(1), row.getString(2));
+        });
+        jdbcTemplate.query("select id, name from author order by id", row -> {
+            long id = row.getLong(1);
+            String name = row.getString(2);
+            authors.add(id, name);
+            names.put(name, id);
+        });
+        jdbcTemplate.query("select author_id, book_id from book_author", row -> {
+            authors.link(row.getLong(1), row.getLong(2));
+            books.link(row.getLong(2), row.getLong(1));
+        });
+        return new CatalogSnapshot(books.build(), authors.build(), NameIndex.EMPTY.apply(names));
+    }
+}
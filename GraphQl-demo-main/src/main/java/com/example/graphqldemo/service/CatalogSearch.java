@@ -0,0 +1,96 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Поисковые индексы названий книг и имен авторов (см. {@link SearchIndex}).
+ *
+ * Индексы строятся из базы при запуске приложения и затем поддерживаются по событиям мутаций после фиксации
+ * транзакции. Данные, записанные в базу в обход мутаций, попадают в индекс после {@link #rebuild()}.
+ *
+ * @author Turusov Roman
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSearch implements SmartInitializingSingleton {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile SearchIndex books = new SearchIndex();
+    private volatile SearchIndex authors = new SearchIndex();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Заново построить индексы по содержимому базы. До окончания построения поиск идет по прежним индексам.
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        SearchIndex newBooks = load("select id, title from book");
+        SearchIndex newAuthors = load("select id, name from author");
+        books = newBooks;
+        authors = newAuthors;
+        log.info("search index built in {} ms: books: {}, authors: {}",
+                (System.nanoTime() - start) / 1_000_000, newBooks.size(), newAuthors.size());
+    }
+
+    /**
+     * Найти книги по названию.
+     *
+     * @param query Начало, часть названия или название с опечатками.
+     * @param limit Максимальное количество результатов.
+     * @return Идентификаторы книг, лучшие совпадения первыми.
+     */
+    public long[] searchBooks(String query, int limit) {
+        return books.search(query, limit);
+    }
+
+    /**
+     * Найти авторов по имени.
+     *
+     * @param query Начало, часть имени или имя с опечатками.
+     * @param limit Максимальное количество результатов.
+     * @return Идентификаторы авторов, лучшие совпадения первыми.
+     */
+    public long[] searchAuthors(String query, int limit) {
+        return authors.search(query, limit);
+    }
+
+    /**
+     * Обновить индексы после фиксации транзакции.
+     *
+     * @param event Изменения одной мутации.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        for (CatalogChange change : event.changes()) {
+            switch (change.type()) {
+                case BOOK_CREATED, BOOK_RENAMED -> books.put(change.bookId(), change.bookTitle());
+                case BOOK_DELETED -> books.remove(change.bookId());
+                case AUTHOR_CREATED, AUTHOR_RENAMED -> authors.put(change.authorId(), change.authorName());
+                case AUTHOR_DELETED -> authors.remove(change.authorId());
+                case LINKED, UNLINKED -> {
+                }
+            }
+        }
+    }
+
+    private SearchIndex load(String sql) {
+        SearchIndex index = new SearchIndex();
+        jdbcTemplate.query(sql, row -> {
+            index.put(row.getLong(1), row.getString(2));
+        });
+        return index;
+    }
+}
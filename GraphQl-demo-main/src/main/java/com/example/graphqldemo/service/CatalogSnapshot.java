@@ -0,0 +1,233 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.repository.CatalogReader;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Неизменяемый снимок всего каталога в памяти (см. {@link CatalogReadModel}).
+ *
+ * Книги и авторы хранятся в двух таблицах {@link SegmentedTable}: идентификатор книги -> название и
+ * идентификаторы авторов, идентификатор автора -> имя и идентификаторы книг; имена авторов - в {@link NameIndex}.
+ * Чтения не берут блокировок и не обращаются к базе, ответы совпадают с {@link CatalogReader} из базы.
+ * {@link #apply(List)} возвращает новый снимок с изменениями мутации, прежний снимок не меняется.
+ *
+ * @author Turusov Roman
+ */
+public final class CatalogSnapshot implements CatalogReader {
+
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(SegmentedTable.EMPTY, SegmentedTable.EMPTY,
+            NameIndex.EMPTY);
+
+    private final SegmentedTable books;
+    private final SegmentedTable authors;
+    private final NameIndex authorIds;
+
+    CatalogSnapshot(SegmentedTable books, SegmentedTable authors, NameIndex authorIds) {
+        this.books = books;
+        this.authors = authors;
+        this.authorIds = authorIds;
+    }
+
+    /**
+     * @return Количество книг в снимке.
+     */
+    public int bookCount() {
+        return books.size();
+    }
+
+    /**
+     * @return Количество авторов в снимке.
+     */
+    public int authorCount() {
+        return authors.size();
+    }
+
+    /**
+     * Применить изменения каталога в порядке их следования. Удаление книги или автора удаляет и обратные связи,
+     * связь добавляет обе записи, если их еще нет. Повторное применение тех же изменений ничего не меняет.
+     *
+     * @param changes Изменения мутаций.
+     * @return Новый снимок; без изменений - этот же.
+     */
+    public CatalogSnapshot apply(List<CatalogChange> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        SegmentedTable.Changes bookChanges = books.changes();
+        SegmentedTable.Changes authorChanges = authors.changes();
+        Map<String, Long> names = new HashMap<>();
+        for (CatalogChange change : changes) {
+            switch (change.type()) {
+                case AUTHOR_CREATED, AUTHOR_RENAMED -> {
+                    if (change.previousValue() != null) {
+                        names.put(change.previousValue(), null);
+                    }
+                    authorChanges.put(change.authorId(), change.authorName());
+                    names.put(change.authorName(), change.authorId());
+                }
+                case AUTHOR_DELETED -> {
+                    for (long bookId : authorChanges.delete(change.authorId())) {
+                        bookChanges.unlink(bookId, change.authorId());
+                    }
+                    names.put(change.authorName(), null);
+                }
+                case BOOK_CREATED, BOOK_RENAMED -> bookChanges.put(change.bookId(), change.bookTitle());
+                case BOOK_DELETED -> {
+                    for (long authorId : bookChanges.delete(change.bookId())) {
+                        authorChanges.unlink(authorId, change.bookId());
+                    }
+                }
+                case LINKED -> {
+                    authorChanges.put(change.authorId(), change.authorName());
+                    names.put(change.authorName(), change.authorId());
+                    bookChanges.put(change.bookId(), change.bookTitle());
+                    authorChanges.link(change.authorId(), change.bookId());
+                    bookChanges.link(change.bookId(), change.authorId());
+                }
+                case UNLINKED -> {
+                    authorChanges.unlink(change.authorId(), change.bookId());
+                    bookChanges.unlink(change.bookId(), change.authorId());
+                }
+            }
+        }
+        return new CatalogSnapshot(bookChanges.apply(), authorChanges.apply(), authorIds.apply(names));
+    }
+
+    @Override
+    public Optional<AuthorView> findAuthorByName(String name) {
+        Long id = authorIds.get(name);
+        return id == null ? Optional.empty() : Optional.ofNullable(author(id));
+    }
+
+    @Override
+    public Optional<AuthorView> findAuthorWithBooksByName(String name) {
+        Long id = authorIds.get(name);
+        String authorName = id == null ? null : authors.value(id);
+        return authorName == null ? Optional.empty()
+                : Optional.of(new AuthorView(id, authorName, related(authors.links(id), books, BookView::new)));
+    }
+
+    @Override
+    public List<AuthorView> findAuthorsByIdIn(Collection<Long> ids) {
+        return ids.stream().distinct().map(this::author).filter(author -> author != null).toList();
+    }
+
+    @Override
+    public Map<Long, List<AuthorView>> findAuthorsByBookIds(Collection<Long> bookIds) {
+        return byParent(bookIds, books, authors, AuthorView::new);
+    }
+
+    @Override
+    public Optional<BookView> findBookById(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(book(id));
+    }
+
+    @Override
+    public List<BookView> findAllBooks() {
+        return books.rows(0, Integer.MAX_VALUE, BookView::new);
+    }
+
+    @Override
+    public List<BookView> findAllBooksWithAuthors() {
+        return books.rows(0, Integer.MAX_VALUE, this::bookWithAuthors);
+    }
+
+    @Override
+    public List<BookView> findBooksByAuthorName(String authorName) {
+        Long id = authorIds.get(authorName);
+        return id == null ? List.of() : related(authors.links(id), books, BookView::new);
+    }
+
+    @Override
+    public List<BookView> findBooksWithAuthorsByAuthorName(String authorName) {
+        Long id = authorIds.get(authorName);
+        return id == null ? List.of() : related(authors.links(id), books, this::bookWithAuthors);
+    }
+
+    @Override
+    public List<BookView> findBooksByIdIn(Collection<Long> ids) {
+        return ids.stream().distinct().map(this::book).filter(book -> book != null).toList();
+    }
+
+    @Override
+    public List<BookView> findBookPageAfter(long afterId, int limit) {
+        return books.rows(afterId, limit, BookView::new);
+    }
+
+    @Override
+    public List<BookView> findBookPageByAuthorNameAfter(String authorName, long afterId, int limit) {
+        Long id = authorIds.get(authorName);
+        if (id == null) {
+            return List.of();
+        }
+        long[] bookIds = authors.links(id);
+        int first = Arrays.binarySearch(bookIds, afterId);
+        return related(bookIds, first < 0 ? -first - 1 : first + 1, limit, books, BookView::new);
+    }
+
+    @Override
+    public Map<Long, List<BookView>> findBooksByAuthorIds(Collection<Long> authorIds) {
+        return byParent(authorIds, authors, books, BookView::new);
+    }
+
+    private AuthorView author(long id) {
+        String name = authors.value(id);
+        return name == null ? null : new AuthorView(id, name);
+    }
+
+    private BookView book(long id) {
+        String title = books.value(id);
+        return title == null ? null : new BookView(id, title);
+    }
+
+    private BookView bookWithAuthors(Long id, String title) {
+        return new BookView(id, title, related(books.links(id), authors, AuthorView::new));
+    }
+
+    private static <T> List<T> related(long[] ids, SegmentedTable table, BiFunction<Long, String, T> view) {
+        return related(ids, 0, Integer.MAX_VALUE, table, view);
+    }
+
+    /**
+     * Не больше limit записей связанных идентификаторов начиная с from; идентификаторы, которых нет в таблице,
+     * пропускаются.
+     */
+    private static <T> List<T> related(long[] ids, int from, int limit, SegmentedTable table,
+                                       BiFunction<Long, String, T> view) {
+        List<T> result = new ArrayList<>(Math.min(ids.length - from, limit));
+        for (int i = from; i < ids.length && result.size() < limit; i++) {
+            String value = table.value(ids[i]);
+            if (value != null) {
+                result.add(view.apply(ids[i], value));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Связанные записи по родителю, как в базе: изменяемая карта без родителей без связей.
+     */
+    private static <T> Map<Long, List<T>> byParent(Collection<Long> parentIds, SegmentedTable parents,
+                                                   SegmentedTable children, BiFunction<Long, String, T> view) {
+        Map<Long, List<T>> result = new HashMap<>();
+        for (Long parentId : parentIds) {
+            List<T> related = related(parents.links(parentId), children, view);
+            if (!related.isEmpty()) {
+                result.put(parentId, related);
+            }
+        }
+        return result;
+    }
+}
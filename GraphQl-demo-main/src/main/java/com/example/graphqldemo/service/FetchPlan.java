@@ -0,0 +1,41 @@
+package com.example.graphqldemo.service;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+
+/**
+ * План выборки для запросов чтения.
+ *
+ * Определяется по набору полей, запрошенных клиентом: если связанная коллекция не запрошена,
+ * достаточно проекции скалярных полей без соединения с таблицей book_author.
+ * Коллекция выбирается соединением в том же запросе только на первом уровне; более глубокие уровни
+ * загружаются DataLoader'ами по одному IN-запросу на уровень, чтобы не получать декартово
+ * произведение строк.
+ *
+ * @author Turusov Roman
+ */
+public enum FetchPlan {
+
+    /**
+     * Только скалярные поля, без соединения со связанной коллекцией.
+     */
+    SCALAR,
+
+    /**
+     * Скалярные поля и связанная коллекция первого уровня в одном запросе.
+     */
+    RELATIONS;
+
+    /**
+     * Выбирает план по набору запрошенных полей.
+     *
+     * @param selectionSet Набор запрошенных полей или {@code null}, если он неизвестен.
+     * @param relation     Имя поля связанной коллекции.
+     * @return {@link #RELATIONS}, если коллекция запрошена или набор полей неизвестен, иначе {@link #SCALAR}.
+     */
+    public static FetchPlan of(DataFetchingFieldSelectionSet selectionSet, String relation) {
+        if (selectionSet == null || selectionSet.contains(relation)) {
+            return RELATIONS;
+        }
+        return SCALAR;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.graphqldemo.service;
+
+import com.example.graphqldemo.dto.LinkOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Очередь изменений связей книг с авторами.
+ *
+ * Включается свойством graphql.link-queue.enabled=true: мутации addBookToAuthor, addAuthorToBook
+ * и removeBookFromAuthor тогда не выполняются каждая в своей транзакции, а ставятся в очередь. Повторы одного
+ * изменения схлопываются при постановке, фоновый поток раз в graphql.link-queue.flush-interval или при
+ * накоплении graphql.link-queue.batch-size изменений применяет их порциями по batch-size, каждую в одной
+ * транзакции ({@link MutationService#applyLinks(List)}, там же схлопываются добавление и удаление одной связи).
+ * Порции применяются по одной в порядке поступления изменений.
+ *
+ * Мутация возвращает подтверждение - CompletableFuture, который завершается по свойству
+ * graphql.link-queue.durability: COMMIT - после фиксации транзакции с изменением (или с ошибкой, если автор
+ * или книга не найдены), ENQUEUE - сразу после постановки в очередь; тогда изменения, не записанные до
+ * остановки процесса, теряются, а ошибки только пишутся в лог и считаются в метрике graphql.link_queue.failed.
+ * В обоих режимах изменение видно в запросах только после фиксации. Если в очереди graphql.link-queue.capacity
+ * изменений, постановка ждет ближайшей записи. При остановке приложения очередь записывается.
+ *
+ * Метрики: graphql.link_queue.depth - изменения в очереди, graphql.link_queue.flush - время записи порции,
+ * graphql.link_queue.coalesced - изменения, схлопнутые при постановке.
+ *
+ * @author Turusov Roman
+ */
+@Component
+@ConditionalOnProperty(name = "graphql.link-queue.enabled", havingValue = "true")
+@Slf4j
+public class LinkWriteQueue implements AutoCloseable {
+
+    /**
+     * Когда подтверждается изменение.
+     */
+    public enum Durability {
+        ENQUEUE,
+        COMMIT
+    }
+
+    private final MutationService service;
+    private final long flushIntervalNanos;
+    private final int batchSize;
+    private final int capacity;
+    private final Durability durability;
+    private final Timer flushTimer;
+    private final Counter coalesced;
+    private final Counter failed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingChanged = lock.newCondition();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private Map<LinkOperation, Entry> pending = new HashMap<>();
+    private volatile int depth;
+    private long sequence;
+    private long oldestNanos;
+    private boolean closed;
+
+    public LinkWriteQueue(MutationService service,
+                          @Value("${graphql.link-queue.flush-interval:50ms}") Duration flushInterval,
+                          @Value("${graphql.link-queue.batch-size:1000}") int batchSize,
+                          @Value("${graphql.link-queue.capacity:100000}") int capacity,
+                          @Value("${graphql.link-queue.durability:COMMIT}") Durability durability,
+                          MeterRegistry meterRegistry) {
+        this.service = service;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.batchSize = batchSize;
+        this.capacity = capacity;
+        this.durability = durability;
+        this.flushTimer = Timer.builder("graphql.link_queue.flush")
+                .description("Time to write a batch of link changes")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("graphql.link_queue.coalesced")
+                .description("Link changes coalesced with a queued change of the same link")
+                .register(meterRegistry);
+        this.failed = Counter.builder("graphql.link_queue.failed")
+                .description("Link changes that failed to apply")
+                .register(meterRegistry);
+        Gauge.builder("graphql.link_queue.depth", this, queue -> queue.depth)
+                .description("Link changes waiting in the queue")
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform().name("link-queue").daemon().start(this::run);
+    }
+
+    /**
+     * Поставить изменение в очередь.
+     *
+     * @param operation Изменение связи.
+     * @return Подтверждение; при COMMIT завершается с NoSuchElementException, если автор или книга не найдены.
+     */
+    public CompletableFuture<Void> submit(LinkOperation operation) {
+        CompletableFuture<Void> acknowledged = new CompletableFuture<>();
+        lock.lock();
+        try {
+            while (depth >= capacity && !closed) {
+                pendingChanged.await();
+            }
+            if (closed) {
+                throw new IllegalStateException("Очередь изменений связей остановлена");
+            }
+            Entry entry = pending.get(operation.key());
+            if (entry == null) {
+                if (pending.isEmpty()) {
+                    oldestNanos = System.nanoTime();
+                    pendingChanged.signalAll();
+                }
+                entry = new Entry();
+                pending.put(operation.key(), entry);
+            } else {
+                coalesced.increment();
+            }
+            entry.operation = operation;
+            entry.sequence = ++sequence;
+            if (durability == Durability.COMMIT) {
+                entry.acknowledgements.add(acknowledged);
+            }
+            depth++;
+            if (pending.size() >= batchSize) {
+                pendingChanged.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acknowledged.completeExceptionally(e);
+            return acknowledged;
+        } finally {
+            lock.unlock();
+        }
+        if (durability == Durability.ENQUEUE) {
+            acknowledged.complete(null);
+        }
+        return acknowledged;
+    }
+
+    /**
+     * Записать все изменения, поставленные в очередь до вызова, не дожидаясь интервала.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Entry> entries = drain();
+            for (int from = 0; from < entries.size(); from += batchSize) {
+                apply(entries.subList(from, Math.min(from + batchSize, entries.size())));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Остановить фоновый поток, записав оставшиеся изменения. Новые изменения после этого не принимаются.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            pendingChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+        flush();
+    }
+
+    private void run() {
+        while (awaitFlush()) {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Ошибка записи очереди изменений связей", e);
+            }
+        }
+    }
+
+    /**
+     * Дождаться, пока в очереди накопится порция или истечет интервал с постановки самого старого изменения.
+     *
+     * @return {@code false}, если очередь остановлена.
+     */
+    private boolean awaitFlush() {
+        lock.lock();
+        try {
+            while (!closed) {
+                if (pending.isEmpty()) {
+                    pendingChanged.await();
+                    continue;
+                }
+                long wait = oldestNanos + flushIntervalNanos - System.nanoTime();
+                if (pending.size() >= batchSize || wait <= 0) {
+                    return true;
+                }
+                pendingChanged.awaitNanos(wait);
+            }
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Entry> drain() {
+        lock.lock();
+        try {
+            List<Entry> entries = new ArrayList<>(pending.values());
+            pending = new HashMap<>();
+            depth = 0;
+            pendingChanged.signalAll();
+            entries.sort(Comparator.comparingLong(entry -> entry.sequence));
+            return entries;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(List<Entry> entries) {
+        List<LinkOperation> operations = entries.stream().map(entry -> entry.operation).toList();
+        long started = System.nanoTime();
+        Set<LinkOperation> rejected;
+        try {
+            rejected = service.applyLinks(operations);
+        } catch (RuntimeException e) {
+            failed.increment(entries.size());
+            log.error("Не удалось записать {} изменений связей", entries.size(), e);
+            entries.forEach(entry -> entry.acknowledgements.forEach(ack -> ack.completeExceptionally(e)));
+            return;
+        } finally {
+            flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        for (Entry entry : entries) {
+            if (rejected.contains(entry.operation)) {
+                failed.increment();
+                log.warn("Изменение связи не применено, автор или книга не найдены: {}", entry.operation);
+                NoSuchElementException e = new NoSuchElementException("Автор или книга не найдены: " + entry.operation);
+                entry.acknowledgements.forEach(ack -> ack.completeExceptionally(e));
+            } else {
+                entry.acknowledgements.forEach(ack -> ack.complete(null));
+            }
+        }
+    }
+
+    /**
+     * Последнее изменение связи в очереди и подтверждения всех схлопнутых в него изменений.
+     */
+    private static final class Entry {
+        private LinkOperation operation;
+        private long sequence;
+        private final List<CompletableFuture<Void>> acknowledgements = new ArrayList<>();
+    }
+}
@@ -1,19 +1,48 @@
 package com.example.graphqldemo.service;
 
+import static com.example.graphqldemo.repository.CatalogWriteRepository.chunks;
+
+import com.example.graphqldemo.dto.AuthorInput;
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.dto.LinkOperation;
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
 import com.example.graphqldemo.model.Author;
 import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.model.BookAuthor;
 import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.repository.BookAuthorRepository;
 import com.example.graphqldemo.repository.BookRepository;
+import com.example.graphqldemo.repository.CatalogWriteRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Сервис для мутаций (изменений).
+ *
+ * Каждый метод публикует {@link CatalogChangedEvent} со списком произведенных изменений;
+ * обработчики получают его после фиксации транзакции. Авторы и книги, на которые ссылается мутация,
+ * ищутся и недостающие создаются запросами upsert, поэтому параллельные мутации с одинаковыми именами
+ * и названиями не завершаются нарушением уникальности. Переименования защищены оптимистической блокировкой.
  * @author Turusov Roman
  */
 @Service
@@ -21,8 +50,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MutationService {
 
+    /**
+     * Количество сущностей, после сохранения которых контекст постоянства сбрасывается в БД и очищается.
+     */
+    static final int FLUSH_SIZE = 1000;
+
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
+    private final BookAuthorRepository bookAuthorRepository;
+    private final CatalogWriteRepository writeRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Сохранить информацию об авторе и его книгах.
@@ -31,20 +69,22 @@ public class MutationService {
      * @param bookTitles Список названий книг.
      * @return Сохраненный объект автора.
      */
+    @Transactional
     public Author saveAuthor(String name, List<String> bookTitles) {
         log.debug("name: {}, bookIds: {}", name, bookTitles);
         Author author = new Author().setName(name);
+        List<CatalogChange> changes = new ArrayList<>();
 
         if (bookTitles != null && !bookTitles.isEmpty()){
-            List<Book> books = bookTitles.stream()
-                    .map(title -> bookRepository.findByTitle(title)
-                            .orElse(bookRepository.save(new Book().setTitle(title))))
-                    .collect(Collectors.toList());
-            author.setBooks(books);
+            Map<String, Book> books = findOrCreateBooks(new LinkedHashSet<>(bookTitles), changes);
+            author.setBooks(bookTitles.stream().map(books::get).collect(Collectors.toCollection(LinkedHashSet::new)));
         }
 
         log.debug("author: {}", author);
-        return authorRepository.save(author);
+        Author saved = authorRepository.save(author);
+        addCreated(saved, changes);
+        publish(changes);
+        return saved;
     }
 
     /**
@@ -54,89 +94,280 @@ public class MutationService {
      * @param authorNames Список имен авторов.
      * @return Сохраненный объект книги.
      */
+    @Transactional
     public Book saveBook(String title, List<String> authorNames) {
         log.debug("title: {}, authorIds: {}", title, authorNames);
         Book book = new Book().setTitle(title);
+        List<CatalogChange> changes = new ArrayList<>();
 
         if (authorNames != null && !authorNames.isEmpty()){
-            List<Author> authors = authorNames.stream()
-                    .map(name -> authorRepository.findByName(name)
-                            .orElse(authorRepository.save(new Author().setName(name))))
-                    .collect(Collectors.toList());
-            book.setAuthors(authors);
+            Map<String, Author> authors = findOrCreateAuthors(new LinkedHashSet<>(authorNames), changes);
+            book.setAuthors(authorNames.stream().map(authors::get).collect(Collectors.toCollection(LinkedHashSet::new)));
         }
         log.debug("book: {}", book);
-        checkBookDuplicate(book);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookAuthorRepository.saveAll(links(List.of(saved)));
+        addCreated(saved, changes);
+        publish(changes);
+        return saved;
     }
 
+    /**
+     * Сохранить набор книг вместе с авторами в одной транзакции.
+     *
+     * Каждый автор ищется или создается один раз на весь набор, вставки отправляются
+     * пакетами JDBC размером hibernate.jdbc.batch_size.
+     *
+     * @param inputs Книги с именами авторов.
+     * @return Сохраненные книги.
+     */
+    @Transactional
+    public List<Book> saveBooks(List<BookInput> inputs) {
+        log.debug("books: {}", inputs.size());
+        List<CatalogChange> changes = new ArrayList<>();
+        Map<String, Author> authors = findOrCreateAuthors(inputs.stream()
+                .map(BookInput::authorNames)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toCollection(LinkedHashSet::new)), changes);
+
+        List<Book> books = new ArrayList<>(inputs.size());
+        for (BookInput input : inputs) {
+            Book book = new Book().setTitle(input.title());
+            if (input.authorNames() != null) {
+                book.setAuthors(input.authorNames().stream().map(authors::get)
+                        .collect(Collectors.toCollection(LinkedHashSet::new)));
+            }
+            books.add(book);
+        }
+        List<Book> saved = saveInBatches(bookRepository, books);
+        saveInBatches(bookAuthorRepository, links(saved));
+        saved.forEach(book -> addCreated(book, changes));
+        publish(changes);
+        return saved;
+    }
+
+    /**
+     * Сохранить набор авторов вместе с книгами в одной транзакции.
+     *
+     * Каждая книга ищется или создается один раз на весь набор, вставки отправляются
+     * пакетами JDBC размером hibernate.jdbc.batch_size.
+     *
+     * @param inputs Авторы с названиями книг.
+     * @return Сохраненные авторы.
+     */
+    @Transactional
+    public List<Author> saveAuthors(List<AuthorInput> inputs) {
+        log.debug("authors: {}", inputs.size());
+        List<CatalogChange> changes = new ArrayList<>();
+        Map<String, Book> books = findOrCreateBooks(inputs.stream()
+                .map(AuthorInput::bookTitles)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toCollection(LinkedHashSet::new)), changes);
+
+        List<Author> authors = new ArrayList<>(inputs.size());
+        for (AuthorInput input : inputs) {
+            Author author = new Author().setName(input.name());
+            if (input.bookTitles() != null) {
+                author.setBooks(input.bookTitles().stream().map(books::get)
+                        .collect(Collectors.toCollection(LinkedHashSet::new)));
+            }
+            authors.add(author);
+        }
+        List<Author> saved = saveInBatches(authorRepository, authors);
+        saved.forEach(author -> addCreated(author, changes));
+        publish(changes);
+        return saved;
+    }
 
     /**
      * Добавить книгу к автору.
      *
+     * Связь добавляется одним запросом INSERT без загрузки книг автора; если она уже есть, ничего не меняется.
+     *
      * @param authorId   Идентификатор автора.
      * @param bookTitle  Название книги.
      */
+    @Transactional
     public void addBookToAuthor(Long authorId, String bookTitle) {
         Author author = authorRepository.findById(authorId).orElseThrow();
-        Book book = bookRepository.findByTitle(bookTitle).orElseGet(() -> bookRepository.save(new Book().setTitle(bookTitle)));
+        List<CatalogChange> changes = new ArrayList<>();
+        Book book = findOrCreateBooks(List.of(bookTitle), changes).get(bookTitle);
 
-        List<Book> authorBooks = author.getBooks();
-        authorBooks.add(book);
-        author.setBooks(authorBooks);
-        authorRepository.save(author);
+        if (bookAuthorRepository.link(author.getId(), book.getId()) > 0) {
+            changes.add(CatalogChange.linked(author, book));
+        }
+        publish(changes);
     }
 
     /**
      * Добавить автора к книге.
      *
+     * Связь добавляется одним запросом INSERT без загрузки авторов книги; если она уже есть, ничего не меняется.
+     *
      * @param bookId     Идентификатор книги.
      * @param authorName Имя автора.
      */
+    @Transactional
     public void addAuthorToBook(Long bookId, String authorName) {
         Book book = bookRepository.findById(bookId).orElseThrow();
-        Author author = authorRepository.findByName(authorName).orElseGet(() -> authorRepository.save(new Author().setName(authorName)));
+        List<CatalogChange> changes = new ArrayList<>();
+        Author author = findOrCreateAuthors(List.of(authorName), changes).get(authorName);
 
-        List<Author> bookAuthors = book.getAuthors();
-        bookAuthors.add(author);
-        book.setAuthors(bookAuthors);
-        bookRepository.save(book);
+        if (bookAuthorRepository.link(author.getId(), book.getId()) > 0) {
+            changes.add(CatalogChange.linked(author, book));
+        }
+        publish(changes);
     }
 
     /**
      * Удалить книгу у автора.
      *
+     * Связь удаляется одним запросом DELETE без загрузки книг автора; сама книга остается.
+     *
      * @param authorId Идентификатор автора.
      * @param bookId   Идентификатор книги.
      */
+    @Transactional
     public void removeBookFromAuthor(Long authorId, Long bookId) {
         Author author = authorRepository.findById(authorId).orElseThrow();
+        if (bookAuthorRepository.unlink(authorId, bookId) > 0) {
+            Book book = bookRepository.findById(bookId).orElseThrow();
+            publish(List.of(CatalogChange.unlinked(author, book)));
+        }
+    }
 
-        List<Book> authorBooks = author.getBooks();
-        authorBooks.removeIf(book -> book.getId().equals(bookId));
-        author.setBooks(authorBooks);
-        authorRepository.save(author);
+    /**
+     * Применить набор изменений связей книг с авторами в одной транзакции.
+     *
+     * Результат тот же, что у выполнения изменений по очереди: для каждой пары книги и автора действует
+     * последнее изменение, поэтому повторы и пары добавления с удалением схлопываются в одно. Авторы и книги,
+     * заданные идентификаторами, выбираются запросами IN; изменения с несуществующими идентификаторами
+     * не применяются и возвращаются. Заданные именами и названиями ищутся и недостающие создаются, как
+     * в {@link #addBookToAuthor(Long, String)}. Затем одним запросом на порцию выбираются существующие связи,
+     * недостающие вставляются, а удаляемые удаляются пакетами JDBC ({@link CatalogWriteRepository}).
+     *
+     * @param operations Изменения в порядке поступления.
+     * @return Непримененные изменения: автор или книга с заданным идентификатором не найдены.
+     */
+    @Transactional
+    public Set<LinkOperation> applyLinks(List<LinkOperation> operations) {
+        log.debug("link operations: {}", operations.size());
+        List<CatalogChange> changes = new ArrayList<>();
+        Map<Long, Author> authors = new HashMap<>();
+        Map<Long, Book> books = new HashMap<>();
+        for (List<Long> chunk : chunks(distinct(operations, LinkOperation::authorId))) {
+            authorRepository.findScalarByIdIn(chunk).forEach(author -> authors.put(author.getId(), author));
+        }
+        for (List<Long> chunk : chunks(distinct(operations, LinkOperation::bookId))) {
+            bookRepository.findScalarByIdIn(chunk).forEach(book -> books.put(book.getId(), book));
+        }
+        Set<LinkOperation> rejected = new HashSet<>();
+        List<LinkOperation> accepted = new ArrayList<>(operations.size());
+        for (LinkOperation operation : operations) {
+            if ((operation.authorId() != null && !authors.containsKey(operation.authorId()))
+                    || (operation.bookId() != null && !books.containsKey(operation.bookId()))) {
+                rejected.add(operation);
+            } else {
+                accepted.add(operation);
+            }
+        }
+        Map<String, Author> authorsByName = findOrCreateAuthors(distinct(accepted, LinkOperation::authorName), changes);
+        Map<String, Book> booksByTitle = findOrCreateBooks(distinct(accepted, LinkOperation::bookTitle), changes);
+        authorsByName.values().forEach(author -> authors.put(author.getId(), author));
+        booksByTitle.values().forEach(book -> books.put(book.getId(), book));
+
+        Map<BookAuthor, Boolean> links = new HashMap<>();
+        for (LinkOperation operation : accepted) {
+            Long authorId = operation.authorId() != null
+                    ? operation.authorId() : authorsByName.get(operation.authorName()).getId();
+            Long bookId = operation.bookId() != null
+                    ? operation.bookId() : booksByTitle.get(operation.bookTitle()).getId();
+            links.put(new BookAuthor(authorId, bookId), operation.add());
+        }
+        Set<BookAuthor> existing = writeRepository.findLinks(links.keySet());
+        List<BookAuthor> inserted = new ArrayList<>();
+        List<BookAuthor> deleted = new ArrayList<>();
+        links.forEach((link, add) -> {
+            if (add && !existing.contains(link)) {
+                inserted.add(link);
+                changes.add(CatalogChange.linked(authors.get(link.getAuthorId()), books.get(link.getBookId())));
+            } else if (!add && existing.contains(link)) {
+                deleted.add(link);
+                changes.add(CatalogChange.unlinked(authors.get(link.getAuthorId()), books.get(link.getBookId())));
+            }
+        });
+        writeRepository.insertLinks(inserted);
+        writeRepository.deleteLinks(deleted);
+        log.debug("linked: {}, unlinked: {}, rejected: {}", inserted.size(), deleted.size(), rejected.size());
+        publish(changes);
+        return rejected;
     }
 
     /**
      * Удалить автора со всеми его книгами.
      *
+     * Книги, у которых есть другие авторы, остаются. См. {@link #deleteAuthorsWithBooks(Collection)}.
+     *
      * @param authorId Идентификатор автора.
      */
+    @Transactional
     public void deleteAuthorWithBooks(Long authorId) {
-        Author author = authorRepository.findById(authorId).orElseThrow();
+        if (deleteAuthorsWithBooks(List.of(authorId)) == 0) {
+            throw new NoSuchElementException("Автор " + authorId + " не найден");
+        }
+    }
 
-        for (Book book : author.getBooks()) {
-            if (book.getAuthors() != null) {
-                book.getAuthors().remove(author);
-                if (book.getAuthors().isEmpty()) {
-                    bookRepository.delete(book);
+    /**
+     * Удалить набор авторов со всеми их книгами в одной транзакции.
+     *
+     * Удаление выполняется запросами над множествами, без загрузки сущностей: на каждую порцию из
+     * {@link CatalogWriteRepository#IN_CHUNK_SIZE} авторов одним запросом выбираются авторы и одним - их связи
+     * с книгами вместе с числом авторов каждой книги. Затем одним запросом удаляются связи, запросами
+     * по {@link CatalogWriteRepository#IN_CHUNK_SIZE} идентификаторов - книги, все авторы которых удаляются,
+     * и одним запросом - сами авторы.
+     * Перед удалением контекст постоянства сбрасывается в БД, после - очищается, чтобы в нем не остались
+     * удаленные сущности.
+     *
+     * @param authorIds Идентификаторы авторов; отсутствующие пропускаются.
+     * @return Количество удаленных авторов.
+     */
+    @Transactional
+    public int deleteAuthorsWithBooks(Collection<Long> authorIds) {
+        log.debug("authorIds: {}", authorIds.size());
+        entityManager.flush();
+        List<CatalogChange> changes = new ArrayList<>();
+        int deleted = 0;
+
+        for (List<Long> chunk : chunks(new LinkedHashSet<>(authorIds))) {
+            Map<Long, Author> authors = authorRepository.findScalarByIdIn(chunk).stream()
+                    .collect(Collectors.toMap(Author::getId, author -> author));
+            if (authors.isEmpty()) {
+                continue;
+            }
+            Map<Long, Book> books = new HashMap<>();
+            Map<Long, Integer> links = new HashMap<>();
+            Map<Long, Book> owned = new LinkedHashMap<>();
+            for (Object[] row : bookRepository.findScalarLinksByAuthorIds(authors.keySet())) {
+                Book book = books.computeIfAbsent((Long) row[1], id -> new Book(id, (String) row[2]));
+                changes.add(CatalogChange.unlinked(authors.get((Long) row[0]), book));
+                if (links.merge(book.getId(), 1, Integer::sum) == ((Number) row[3]).intValue()) {
+                    owned.put(book.getId(), book);
                 }
             }
+            bookAuthorRepository.deleteByAuthorIdIn(authors.keySet());
+            for (List<Long> bookIds : chunks(owned.keySet())) {
+                bookRepository.deleteByIdIn(bookIds);
+                bookIds.forEach(id -> changes.add(CatalogChange.bookDeleted(owned.get(id))));
+            }
+            deleted += authorRepository.deleteByIdIn(authors.keySet());
+            authors.values().forEach(author -> changes.add(CatalogChange.authorDeleted(author)));
         }
-        author.setBooks(new ArrayList<>());
-        authorRepository.save(author);
-        authorRepository.delete(author);
+        entityManager.clear();
+        log.debug("deleted authors: {}", deleted);
+        publish(changes);
+        return deleted;
     }
 
     /**
@@ -145,10 +376,13 @@ public class MutationService {
      * @param authorId Идентификатор автора.
      * @param newName  Новое имя автора.
      */
+    @Transactional
     public void updateAuthorName(Long authorId, String newName) {
         Author author = authorRepository.findById(authorId).orElseThrow();
+        String previousName = author.getName();
         author.setName(newName);
         authorRepository.save(author);
+        publish(List.of(CatalogChange.authorRenamed(author, previousName)));
     }
 
 
@@ -159,19 +393,172 @@ public class MutationService {
      * @param bookId   Идентификатор книги.
      * @param newTitle Новое название книги.
      */
+    @Transactional
     public void updateBookTitle(Long bookId, String newTitle) {
         Book book = bookRepository.findById(bookId).orElseThrow();
+        String previousTitle = book.getTitle();
         book.setTitle(newTitle);
         bookRepository.save(book);
+        publish(List.of(CatalogChange.bookRenamed(book, previousTitle)));
+    }
+
+    /**
+     * Найти авторов по именам, недостающих создать.
+     *
+     * Существующие авторы выбираются запросами WHERE name IN (...) порциями
+     * по {@link CatalogWriteRepository#IN_CHUNK_SIZE} имен, недостающие вставляются одним пакетом
+     * INSERT ... ON CONFLICT DO NOTHING ({@link CatalogWriteRepository}) и выбираются повторно.
+     * Автор, которого между поиском и вставкой создала параллельная транзакция,
+     * не вставляется и не попадает в изменения, а используется существующий.
+     *
+     * @param names   Имена авторов без повторов.
+     * @param changes Список изменений, в который добавляются созданные авторы.
+     * @return Авторы по имени.
+     */
+    private Map<String, Author> findOrCreateAuthors(Collection<String> names, List<CatalogChange> changes) {
+        Map<String, Author> authors = new HashMap<>();
+        for (List<String> chunk : chunks(names)) {
+            authorRepository.findByNameIn(chunk).forEach(author -> authors.put(author.getName(), author));
+        }
+        List<Author> missing = names.stream()
+                .filter(name -> !authors.containsKey(name))
+                .map(name -> new Author().setName(name))
+                .toList();
+        if (!missing.isEmpty()) {
+            writeRepository.upsertAuthors(missing);
+            Map<String, Long> allocated = missing.stream().collect(Collectors.toMap(Author::getName, Author::getId));
+            for (List<String> chunk : chunks(allocated.keySet())) {
+                authorRepository.findByNameIn(chunk).forEach(author -> {
+                    authors.put(author.getName(), author);
+                    if (author.getId().equals(allocated.get(author.getName()))) {
+                        changes.add(CatalogChange.authorCreated(author));
+                    }
+                });
+            }
+        }
+        log.debug("authors: {}, missing: {}", authors.size(), missing.size());
+        return authors;
+    }
+
+    /**
+     * Найти книги по названиям, недостающие создать.
+     *
+     * Существующие книги выбираются запросами WHERE title IN (...) порциями
+     * по {@link CatalogWriteRepository#IN_CHUNK_SIZE} названий, недостающие вставляются одним пакетом
+     * INSERT ... ON CONFLICT DO NOTHING ({@link CatalogWriteRepository}) и выбираются повторно.
+     * Книга, которую между поиском и вставкой создала параллельная транзакция,
+     * не вставляется и не попадает в изменения, а используется существующая.
+     *
+     * @param titles  Названия книг без повторов.
+     * @param changes Список изменений, в который добавляются созданные книги.
+     * @return Книги по названию.
+     */
+    private Map<String, Book> findOrCreateBooks(Collection<String> titles, List<CatalogChange> changes) {
+        Map<String, Book> books = new HashMap<>();
+        for (List<String> chunk : chunks(titles)) {
+            bookRepository.findByTitleIn(chunk).forEach(book -> books.put(book.getTitle(), book));
+        }
+        List<Book> missing = titles.stream()
+                .filter(title -> !books.containsKey(title))
+                .map(title -> new Book().setTitle(title))
+                .toList();
+        if (!missing.isEmpty()) {
+            writeRepository.upsertBooks(missing);
+            Map<String, Long> allocated = missing.stream().collect(Collectors.toMap(Book::getTitle, Book::getId));
+            for (List<String> chunk : chunks(allocated.keySet())) {
+                bookRepository.findByTitleIn(chunk).forEach(book -> {
+                    books.put(book.getTitle(), book);
+                    if (book.getId().equals(allocated.get(book.getTitle()))) {
+                        changes.add(CatalogChange.bookCreated(book));
+                    }
+                });
+            }
+        }
+        log.debug("books: {}, missing: {}", books.size(), missing.size());
+        return books;
+    }
+
+    /**
+     * Различные непустые значения поля изменений связей.
+     *
+     * @param operations Изменения.
+     * @param field      Поле.
+     * @return Значения в порядке первого появления.
+     */
+    private static <T> Set<T> distinct(List<LinkOperation> operations, Function<LinkOperation, T> field) {
+        return operations.stream().map(field).filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Сохранить сущности порциями, очищая контекст постоянства после каждой порции,
+     * чтобы его размер и время проверки изменений не росли вместе с размером набора.
+     *
+     * @param repository Репозиторий сущностей.
+     * @param entities   Сущности для сохранения.
+     * @return Сохраненные сущности.
+     */
+    private <T> List<T> saveInBatches(JpaRepository<T, ?> repository, List<T> entities) {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (int from = 0; from < entities.size(); from += FLUSH_SIZE) {
+            saved.addAll(repository.saveAll(entities.subList(from, Math.min(from + FLUSH_SIZE, entities.size()))));
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return saved;
+    }
+
+    /**
+     * Связи сохраненных книг с их авторами.
+     *
+     * Book.authors - обратная сторона связи, поэтому связи новых книг сохраняются отдельными строками book_author.
+     *
+     * @param books Сохраненные книги.
+     * @return Связи для вставки.
+     */
+    private static List<BookAuthor> links(List<Book> books) {
+        List<BookAuthor> links = new ArrayList<>();
+        for (Book book : books) {
+            if (book.getAuthors() != null) {
+                book.getAuthors().forEach(author -> links.add(new BookAuthor(author.getId(), book.getId())));
+            }
+        }
+        return links;
+    }
+
+    /**
+     * Добавить в список изменений создание автора и его связи с книгами.
+     *
+     * @param author  Сохраненный автор.
+     * @param changes Список изменений.
+     */
+    private static void addCreated(Author author, List<CatalogChange> changes) {
+        changes.add(CatalogChange.authorCreated(author));
+        if (author.getBooks() != null) {
+            author.getBooks().forEach(book -> changes.add(CatalogChange.linked(author, book)));
+        }
+    }
+
+    /**
+     * Добавить в список изменений создание книги и ее связи с авторами.
+     *
+     * @param book    Сохраненная книга.
+     * @param changes Список изменений.
+     */
+    private static void addCreated(Book book, List<CatalogChange> changes) {
+        changes.add(CatalogChange.bookCreated(book));
+        if (book.getAuthors() != null) {
+            book.getAuthors().forEach(author -> changes.add(CatalogChange.linked(author, book)));
+        }
     }
 
     /**
-     * Проверить наличие дубликатов книги.
+     * Опубликовать изменения одной мутации.
      *
-     * @param book Объект книги.
+     * @param changes Изменения; пустой список не публикуется.
      */
-    private void checkBookDuplicate(Book book) {
-        if (!bookRepository.findByTitle(book.getTitle()).isEmpty() && bookRepository.findByTitle(book.getTitle()).get().equals(book)){
+    private void publish(List<CatalogChange> changes) {
+        if (!changes.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(List.copyOf(changes)));
         }
     }
 }
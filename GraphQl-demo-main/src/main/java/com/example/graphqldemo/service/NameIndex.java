@@ -0,0 +1,78 @@
+package com.example.graphqldemo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Неизменяемый индекс "имя автора -> идентификатор" снимка каталога.
+ *
+ * Имена распределены по хэшу на {@link #PARTITIONS} разделов; в разделе - отсортированный массив имен
+ * и массив идентификаторов, поиск - двоичный. {@link #apply(Map)} пересобирает только затронутые разделы,
+ * остальные общие с прежним индексом.
+ *
+ * @author Turusov Roman
+ */
+final class NameIndex {
+
+    static final int PARTITIONS = 1024;
+
+    static final NameIndex EMPTY = new NameIndex(new Partition[PARTITIONS]);
+
+    private final Partition[] partitions;
+
+    private NameIndex(Partition[] partitions) {
+        this.partitions = partitions;
+    }
+
+    /**
+     * @param name Имя.
+     * @return Идентификатор или {@code null}, если имени нет.
+     */
+    Long get(String name) {
+        Partition partition = partitions[partition(name)];
+        if (partition == null) {
+            return null;
+        }
+        int index = Arrays.binarySearch(partition.names, name);
+        return index < 0 ? null : partition.ids[index];
+    }
+
+    /**
+     * Применить изменения.
+     *
+     * @param changes Новый идентификатор по имени; {@code null} удаляет имя.
+     * @return Новый индекс; без изменений - этот же.
+     */
+    NameIndex apply(Map<String, Long> changes) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        Map<Integer, TreeMap<String, Long>> touched = new HashMap<>();
+        changes.forEach((name, id) -> touched.computeIfAbsent(partition(name), index -> {
+            TreeMap<String, Long> entries = new TreeMap<>();
+            Partition old = partitions[index];
+            if (old != null) {
+                for (int i = 0; i < old.names.length; i++) {
+                    entries.put(old.names[i], old.ids[i]);
+                }
+            }
+            return entries;
+        }).compute(name, (key, previous) -> id));
+
+        Partition[] result = partitions.clone();
+        touched.forEach((index, entries) -> result[index] = entries.isEmpty() ? null
+                : new Partition(entries.keySet().toArray(String[]::new),
+                entries.values().stream().mapToLong(Long::longValue).toArray()));
+        return new NameIndex(result);
+    }
+
+    private static int partition(String name) {
+        int hash = name.hashCode();
+        return (hash ^ hash >>> 16) & (PARTITIONS - 1);
+    }
+
+    private record Partition(String[] names, long[] ids) {
+    }
+}
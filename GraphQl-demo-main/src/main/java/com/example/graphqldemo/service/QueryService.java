@@ -1,36 +1,71 @@
 package com.example.graphqldemo.service;
 
-import com.example.graphqldemo.model.Author;
-import com.example.graphqldemo.model.Book;
-import com.example.graphqldemo.repository.AuthorRepository;
-import com.example.graphqldemo.repository.BookRepository;
+import com.example.graphqldemo.config.CacheConfig;
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.Connection;
+import com.example.graphqldemo.dto.Cursor;
+import com.example.graphqldemo.repository.CatalogReader;
+import com.example.graphqldemo.repository.CatalogViewRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Сервис для выполнения запросов.
+ *
+ * Результаты - неизменяемые записи модели чтения ({@link BookView}, {@link AuthorView}), которые
+ * {@link CatalogViewRepository} строит прямо из строк JDBC, без сущностей и их снимков в контексте постоянства.
+ * Поиск автора по имени, книги по идентификатору и книг автора кэшируются (см. {@link CacheConfig}),
+ * записи сбрасываются CatalogCacheInvalidator по событиям мутаций. При чтении из реплики клиент, читающий
+ * свои записи из основной базы, читает мимо кэша, а прочитанное из реплики сразу после сброса не кэшируется.
+ * При включенной модели чтения ({@link CatalogReadModel}) записи читаются из снимка каталога в памяти
+ * без обращения к базе, и кэш не используется.
  * Автор: Турусов Роман
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class QueryService {
-    private final AuthorRepository authorRepository;
-    private final BookRepository bookRepository;
+    /**
+     * Размер страницы, если аргумент first не передан.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Максимальный размер страницы.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final CatalogViewRepository viewRepository;
+    private final CatalogSearch catalogSearch;
+    private final CatalogReadModel readModel;
 
     /**
      * Получить автора по имени.
      *
      * @param name Имя автора.
+     * @param plan План выборки: с книгами или только скалярные поля.
      * @return Объект автора.
      */
-    public Author getAuthor(String name){
-        Author author = authorRepository.findByName(name).orElseThrow();
-        log.debug("author: {}", author);
+    @Cacheable(cacheNames = CacheConfig.AUTHORS,
+            condition = "!@catalogReadModel.enabled() && !@catalogCacheInvalidator.bypass()",
+            unless = "@catalogCacheInvalidator.replicaMayBeStale()")
+    public AuthorView getAuthor(String name, FetchPlan plan){
+        AuthorView author = switch (plan) {
+            case SCALAR -> reader().findAuthorByName(name).orElseThrow();
+            case RELATIONS -> reader().findAuthorWithBooksByName(name).orElseThrow();
+        };
+        log.debug("plan: {}, author: {}", plan, author);
         return author;
     }
 
@@ -38,29 +73,162 @@ public class QueryService {
      * Получить список книг по имени автора.
      *
      * @param authorName Имя автора.
+     * @param plan       План выборки: с авторами или только скалярные поля.
      * @return Список книг, написанных данным автором.
      */
 
-    public List<Book> getBooksByAuthor(String authorName){
-        List<Book> books = bookRepository.getBooksByAuthorName(authorName);
-        log.debug("books: {}", books);
+    @Cacheable(cacheNames = CacheConfig.BOOKS_BY_AUTHOR,
+            condition = "!@catalogReadModel.enabled() && !@catalogCacheInvalidator.bypass()",
+            unless = "@catalogCacheInvalidator.replicaMayBeStale()")
+    public List<BookView> getBooksByAuthor(String authorName, FetchPlan plan){
+        List<BookView> books = switch (plan) {
+            case SCALAR -> reader().findBooksByAuthorName(authorName);
+            case RELATIONS -> reader().findBooksWithAuthorsByAuthorName(authorName);
+        };
+        log.debug("plan: {}, books: {}", plan, books);
         return books;
     }
 
-    public Book getBookById(Long bookId) {
-        return bookRepository.findById(bookId)
+    /**
+     * Получить книгу по идентификатору.
+     *
+     * @param bookId Идентификатор книги.
+     * @return Объект книги без авторов; авторы загружаются отдельно, если запрошены.
+     */
+    @Cacheable(cacheNames = CacheConfig.BOOKS,
+            condition = "!@catalogReadModel.enabled() && !@catalogCacheInvalidator.bypass()",
+            unless = "@catalogCacheInvalidator.replicaMayBeStale()")
+    public BookView getBookById(Long bookId) {
+        return reader().findBookById(bookId)
                 .orElseThrow(() -> new RuntimeException("Книга с идентификатором " + bookId + " не найдена"));
     }
 
     /**
      * Получить список всех книг.
      *
+     * @param plan План выборки: с авторами или только скалярные поля.
      * @return Список всех книг.
      */
-    public List<Book> getAllBooks(){
-        List<Book> books = bookRepository.findAll();
-        log.debug("books: {}", books);
+    public List<BookView> getAllBooks(FetchPlan plan){
+        List<BookView> books = switch (plan) {
+            case SCALAR -> reader().findAllBooks();
+            case RELATIONS -> reader().findAllBooksWithAuthors();
+        };
+        log.debug("plan: {}, books: {}", plan, books);
         return books;
     }
 
+    /**
+     * Получить страницу всех книг.
+     *
+     * @param first Размер страницы (по умолчанию 20, не более 100).
+     * @param after Курсор последней книги предыдущей страницы.
+     * @return Страница книг.
+     */
+    public Connection<BookView> getBooksConnection(Integer first, String after) {
+        int size = pageSize(first);
+        long afterId = Cursor.decode(after);
+        List<BookView> books = reader().findBookPageAfter(afterId, size + 1);
+        log.debug("first: {}, afterId: {}, books: {}", size, afterId, books.size());
+        return Connection.of(books, size, afterId > 0, BookView::id);
+    }
+
+    /**
+     * Получить страницу книг автора.
+     *
+     * @param authorName Имя автора.
+     * @param first      Размер страницы (по умолчанию 20, не более 100).
+     * @param after      Курсор последней книги предыдущей страницы.
+     * @return Страница книг автора.
+     */
+    public Connection<BookView> getBooksByAuthorConnection(String authorName, Integer first, String after) {
+        int size = pageSize(first);
+        long afterId = Cursor.decode(after);
+        List<BookView> books = reader().findBookPageByAuthorNameAfter(authorName, afterId, size + 1);
+        log.debug("authorName: {}, first: {}, afterId: {}, books: {}", authorName, size, afterId, books.size());
+        return Connection.of(books, size, afterId > 0, BookView::id);
+    }
+
+    /**
+     * Найти книги по названию для подсказок при вводе.
+     *
+     * @param query Начало, часть названия или название с опечатками.
+     * @param first Количество результатов (по умолчанию 20, не более 100).
+     * @return Книги без авторов, лучшие совпадения первыми.
+     */
+    public List<BookView> searchBooks(String query, Integer first) {
+        long[] ids = catalogSearch.searchBooks(query, pageSize(first));
+        log.debug("query: {}, books: {}", query, ids.length);
+        return inOrder(ids, reader()::findBooksByIdIn, BookView::id);
+    }
+
+    /**
+     * Найти авторов по имени для подсказок при вводе.
+     *
+     * @param query Начало, часть имени или имя с опечатками.
+     * @param first Количество результатов (по умолчанию 20, не более 100).
+     * @return Авторы без книг, лучшие совпадения первыми.
+     */
+    public List<AuthorView> searchAuthors(String query, Integer first) {
+        long[] ids = catalogSearch.searchAuthors(query, pageSize(first));
+        log.debug("query: {}, authors: {}", query, ids.length);
+        return inOrder(ids, reader()::findAuthorsByIdIn, AuthorView::id);
+    }
+
+    /**
+     * Получить авторов для набора книг одним запросом.
+     *
+     * @param bookIds Идентификаторы книг.
+     * @return Авторы, сгруппированные по идентификатору книги; для книг без авторов - пустой список.
+     */
+    public Map<Long, List<AuthorView>> getAuthorsByBookIds(Set<Long> bookIds) {
+        Map<Long, List<AuthorView>> authors = reader().findAuthorsByBookIds(bookIds);
+        bookIds.forEach(bookId -> authors.putIfAbsent(bookId, List.of()));
+        log.debug("bookIds: {}", bookIds);
+        return authors;
+    }
+
+    /**
+     * Получить книги для набора авторов одним запросом.
+     *
+     * @param authorIds Идентификаторы авторов.
+     * @return Книги, сгруппированные по идентификатору автора; для авторов без книг - пустой список.
+     */
+    public Map<Long, List<BookView>> getBooksByAuthorIds(Set<Long> authorIds) {
+        Map<Long, List<BookView>> books = reader().findBooksByAuthorIds(authorIds);
+        authorIds.forEach(authorId -> books.putIfAbsent(authorId, List.of()));
+        log.debug("authorIds: {}", authorIds);
+        return books;
+    }
+
+    /**
+     * Загрузить записи одним запросом и расположить в порядке идентификаторов. Записи, удаленные
+     * после поиска по индексу, пропускаются.
+     */
+    private static <T> List<T> inOrder(long[] ids, Function<List<Long>, List<T>> load, Function<T, Long> id) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, T> loaded = new HashMap<>();
+        load.apply(Arrays.stream(ids).boxed().toList()).forEach(item -> loaded.put(id.apply(item), item));
+        return Arrays.stream(ids).mapToObj(loaded::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Источник записей: снимок каталога, если модель чтения включена, иначе база.
+     */
+    private CatalogReader reader() {
+        return readModel.enabled() ? readModel.snapshot() : viewRepository;
+    }
+
+    private static int pageSize(Integer first) {
+        if (first == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (first < 1) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + first);
+        }
+        return Math.min(first, MAX_PAGE_SIZE);
+    }
+
 }
@@ -0,0 +1,594 @@
+package com.example.graphqldemo.service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс для поиска по названиям и именам по мере ввода.
+ *
+ * Тексты разбиваются на триграммы слов с отступом в начале слова ("  h", " ha", "har", ...), поэтому
+ * первые буквы слова образуют собственные триграммы и поиск по началу слова работает с первой буквы.
+ * Для каждой триграммы хранятся отсортированные массивы внутренних номеров документов, отдельно по группам
+ * длины текста. Результаты ранжируются по качеству совпадения: полное совпадение, начало текста, начала слов,
+ * подстрока, затем доля совпавших триграмм; при равенстве выше более короткий текст.
+ *
+ * Группы просматриваются от коротких текстов к длинным. В каждой кандидаты получаются пересечением массивов,
+ * начиная с самого короткого; когда все отобранные результаты совпадают с началом текста, более длинные тексты
+ * их уже не вытеснят и просмотр заканчивается. Поэтому короткий запрос, под который подходит большая часть
+ * каталога, не проверяет все совпадения. Если точных совпадений не хватает, нечеткий поиск берет документы,
+ * у которых совпадает не меньше половины триграмм запроса (это допускает опечатки), но проверяет не больше
+ * {@link #MAX_FUZZY_CANDIDATES} кандидатов, начиная с коротких текстов.
+ *
+ * Удаление и замена текста помечают прежний документ, массивы пересобираются, когда удаленных становится
+ * больше живых.
+ * Индекс потокобезопасен: поиск выполняется под блокировкой чтения, изменения под блокировкой записи.
+ *
+ * @author Turusov Roman
+ */
+public class SearchIndex {
+
+    /**
+     * Минимальная доля совпавших триграмм запроса для нечеткого совпадения.
+     */
+    static final double FUZZY_THRESHOLD = 0.5;
+
+    /**
+     * Максимальное число кандидатов, проверяемых в нечетком поиске.
+     */
+    static final int MAX_FUZZY_CANDIDATES = 2_000;
+
+    private static final int EXACT = 4;
+    private static final int PREFIX = 3;
+    private static final int WORD_PREFIXES = 2;
+    private static final int SUBSTRING = 1;
+    private static final int FUZZY = 0;
+
+    /**
+     * Группы длины текста: по 4 символа, все тексты длиннее 124 символов в последней группе.
+     */
+    private static final int LENGTH_GROUP = 4;
+    private static final int LENGTH_GROUPS = 32;
+    private static final int GROUP_BITS = 5;
+
+    private static final int MAX_RANKED_LENGTH = (1 << 30) - 1;
+    private static final int MIN_COMPACTION = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final LongIntMap documents = new LongIntMap();
+    private long[] ids = new long[16];
+    private String[] texts = new String[16];
+    private int size;
+    private int removed;
+
+    /**
+     * Добавить или заменить текст.
+     *
+     * @param id   Идентификатор книги или автора.
+     * @param text Название или имя.
+     */
+    public void put(long id, String text) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+            insert(id, normalize(text));
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удалить текст.
+     *
+     * @param id Идентификатор книги или автора.
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Количество проиндексированных текстов.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - removed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Найти тексты, подходящие под запрос.
+     *
+     * @param query Начало или часть названия, слова можно сокращать и писать с опечатками.
+     * @param limit Максимальное количество результатов.
+     * @return Идентификаторы в порядке убывания качества совпадения.
+     */
+    public long[] search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return new long[0];
+        }
+        String[] tokens = normalized.split(" ");
+        long[] grams = grams(tokens, false);
+
+        lock.readLock().lock();
+        try {
+            TopMatches top = new TopMatches(limit);
+            int[][][] lists = new int[LENGTH_GROUPS][][];
+            int[][] sizes = new int[LENGTH_GROUPS][];
+            for (int group = 0; group < LENGTH_GROUPS; group++) {
+                lists[group] = new int[grams.length][];
+                sizes[group] = new int[grams.length];
+                for (int i = 0; i < grams.length; i++) {
+                    Postings list = postings.get(grams[i] << GROUP_BITS | group);
+                    lists[group][i] = list == null ? new int[0] : list.documents;
+                    sizes[group][i] = list == null ? 0 : list.size;
+                }
+                for (int document : intersect(lists[group], sizes[group])) {
+                    score(document, normalized, tokens, grams.length, grams.length, top);
+                }
+                if (top.isFull() && top.worstQuality() >= PREFIX) {
+                    return top.ids();
+                }
+            }
+            if (!top.isFull()) {
+                fuzzy(lists, sizes, normalized, tokens, top);
+            }
+            return top.ids();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Привести текст к виду для индексации: нижний регистр, только буквы и цифры, слова через один пробел.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c == 'ё') {
+                c = 'е';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        return length > 0 && normalized.charAt(length - 1) == ' ' ? normalized.substring(0, length - 1) : normalized.toString();
+    }
+
+    /**
+     * Уникальные триграммы слов. Для запроса слово не дополняется в конце: последнее слово может быть не дописано.
+     */
+    private static long[] grams(String[] words, boolean indexed) {
+        long[] grams = new long[0];
+        int count = 0;
+        for (String word : words) {
+            String padded = "  " + word + (indexed ? " " : "");
+            if (grams.length < count + padded.length()) {
+                grams = Arrays.copyOf(grams, Math.max(grams.length * 2, count + padded.length()));
+            }
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams[count++] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+            }
+        }
+        Arrays.sort(grams, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || grams[unique - 1] != grams[i]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    private static int group(String text) {
+        return Math.min(text.length() / LENGTH_GROUP, LENGTH_GROUPS - 1);
+    }
+
+    private void insert(long id, String text) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            texts = Arrays.copyOf(texts, size * 2);
+        }
+        int document = size++;
+        ids[document] = id;
+        texts[document] = text;
+        documents.put(id, document);
+        int group = group(text);
+        for (long gram : grams(text.split(" "), true)) {
+            postings.computeIfAbsent(gram << GROUP_BITS | group, key -> new Postings()).add(document);
+        }
+    }
+
+    private void delete(long id) {
+        int document = documents.remove(id);
+        if (document >= 0) {
+            texts[document] = null;
+            removed++;
+        }
+    }
+
+    /**
+     * Пересобрать массивы, если удаленных документов (в том числе замененных в put) больше живых.
+     */
+    private void compactIfSparse() {
+        if (removed > MIN_COMPACTION && removed > size - removed) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        long[] liveIds = new long[size - removed];
+        String[] liveTexts = new String[size - removed];
+        int live = 0;
+        for (int document = 0; document < size; document++) {
+            if (texts[document] != null) {
+                liveIds[live] = ids[document];
+                liveTexts[live++] = texts[document];
+            }
+        }
+        postings.clear();
+        documents.clear();
+        ids = new long[Math.max(16, live)];
+        texts = new String[Math.max(16, live)];
+        size = 0;
+        removed = 0;
+        for (int i = 0; i < live; i++) {
+            insert(liveIds[i], liveTexts[i]);
+        }
+    }
+
+    /**
+     * Номера массивов в порядке возрастания их размера.
+     */
+    private static int[] rarestFirst(int[] sizes) {
+        int[] order = new int[sizes.length];
+        for (int i = 0; i < order.length; i++) {
+            int j = i;
+            for (; j > 0 && sizes[order[j - 1]] > sizes[i]; j--) {
+                order[j] = order[j - 1];
+            }
+            order[j] = i;
+        }
+        return order;
+    }
+
+    /**
+     * Документы, содержащие все триграммы запроса.
+     */
+    private static int[] intersect(int[][] lists, int[] sizes) {
+        int[] order = rarestFirst(sizes);
+        int[] result = Arrays.copyOf(lists[order[0]], sizes[order[0]]);
+        int count = result.length;
+        for (int i = 1; i < order.length && count > 0; i++) {
+            int[] list = lists[order[i]];
+            int size = sizes[order[i]];
+            int kept = 0;
+            int from = 0;
+            for (int j = 0; j < count && from < size; j++) {
+                int found = gallop(list, from, size, result[j]);
+                if (found >= 0) {
+                    result[kept++] = result[j];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            count = kept;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Двоичный поиск после экспоненциального шага от from: дешевле обычного, когда искомые значения идут подряд.
+     */
+    private static int gallop(int[] list, int from, int size, int value) {
+        int high = from;
+        for (int step = 1; high < size && list[high] < value; step <<= 1) {
+            from = high + 1;
+            high += step;
+        }
+        return Arrays.binarySearch(list, from, Math.min(high + 1, size), value);
+    }
+
+    /**
+     * Документы, содержащие не меньше {@link #FUZZY_THRESHOLD} триграмм запроса, но не все (те уже оценены).
+     * Такой документ обязательно содержит одну из n - k + 1 самых редких триграмм, поэтому кандидаты берутся
+     * только из их массивов.
+     */
+    private void fuzzy(int[][][] lists, int[][] sizes, String normalized, String[] tokens, TopMatches top) {
+        int grams = sizes[0].length;
+        int required = (int) Math.ceil(grams * FUZZY_THRESHOLD);
+        int checked = 0;
+        for (int group = 0; group < LENGTH_GROUPS && checked < MAX_FUZZY_CANDIDATES; group++) {
+            int[] order = rarestFirst(sizes[group]);
+            // Слияние массивов кандидатов по возрастанию номера, без повторов.
+            int[] positions = new int[grams - required + 1];
+            // Кандидаты идут по возрастанию, поэтому поиск в каждом массиве продолжается с прошлой позиции.
+            int[] cursors = new int[grams];
+            int previous = -1;
+            while (checked < MAX_FUZZY_CANDIDATES) {
+                int document = Integer.MAX_VALUE;
+                for (int i = 0; i < positions.length; i++) {
+                    if (positions[i] < sizes[group][order[i]]) {
+                        document = Math.min(document, lists[group][order[i]][positions[i]]);
+                    }
+                }
+                if (document == Integer.MAX_VALUE) {
+                    break;
+                }
+                for (int i = 0; i < positions.length; i++) {
+                    if (positions[i] < sizes[group][order[i]] && lists[group][order[i]][positions[i]] == document) {
+                        positions[i]++;
+                    }
+                }
+                if (document == previous || texts[document] == null) {
+                    continue;
+                }
+                previous = document;
+                checked++;
+                int shared = 0;
+                for (int k = 0; k < grams; k++) {
+                    if (cursors[k] < sizes[group][k]) {
+                        int found = gallop(lists[group][k], cursors[k], sizes[group][k], document);
+                        cursors[k] = found >= 0 ? found : -found - 1;
+                        if (found >= 0) {
+                            shared++;
+                        }
+                    }
+                }
+                if (shared >= required && shared < grams) {
+                    score(document, normalized, tokens, shared, grams, top);
+                }
+            }
+        }
+    }
+
+    /**
+     * Оценить совпадение и добавить его в лучшие. Оценка упакована в long: качество, затем доля совпавших
+     * триграмм в тысячных, затем длина текста (короче - лучше).
+     */
+    private void score(int document, String query, String[] tokens, int shared, int grams, TopMatches top) {
+        String text = texts[document];
+        if (text == null) {
+            return;
+        }
+        int quality;
+        if (text.equals(query)) {
+            quality = EXACT;
+        } else if (text.startsWith(query)) {
+            quality = PREFIX;
+        } else if (wordPrefixes(text, tokens)) {
+            quality = WORD_PREFIXES;
+        } else if (text.contains(query)) {
+            quality = SUBSTRING;
+        } else {
+            quality = FUZZY;
+        }
+        long similarity = 1000L * shared / grams;
+        top.offer((long) quality << 40 | similarity << 30 | (MAX_RANKED_LENGTH - Math.min(text.length(), MAX_RANKED_LENGTH)),
+                ids[document]);
+    }
+
+    /**
+     * Каждое слово запроса является началом одного из слов текста.
+     */
+    private static boolean wordPrefixes(String text, String[] tokens) {
+        for (String token : tokens) {
+            int position = text.indexOf(token);
+            while (position > 0 && text.charAt(position - 1) != ' ') {
+                position = text.indexOf(token, position + 1);
+            }
+            if (position < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Лучшие совпадения, не больше limit: двоичная куча, в корне которой худшее из отобранных.
+     */
+    private static class TopMatches {
+        private final long[] ranks;
+        private final long[] ids;
+        private int size;
+
+        TopMatches(int limit) {
+            ranks = new long[limit];
+            ids = new long[limit];
+        }
+
+        void offer(long rank, long id) {
+            if (size < ranks.length) {
+                ranks[size] = rank;
+                ids[size] = id;
+                siftUp(size++);
+            } else if (worse(ranks[0], ids[0], rank, id)) {
+                ranks[0] = rank;
+                ids[0] = id;
+                siftDown(0);
+            }
+        }
+
+        boolean isFull() {
+            return size == ranks.length;
+        }
+
+        int worstQuality() {
+            return (int) (ranks[0] >>> 40);
+        }
+
+        /**
+         * Идентификаторы от лучшего к худшему. Куча после вызова пуста.
+         */
+        long[] ids() {
+            long[] result = new long[size];
+            while (size > 0) {
+                result[size - 1] = ids[0];
+                size--;
+                ranks[0] = ranks[size];
+                ids[0] = ids[size];
+                siftDown(0);
+            }
+            return result;
+        }
+
+        private static boolean worse(long rank, long id, long otherRank, long otherId) {
+            return rank < otherRank || rank == otherRank && id > otherId;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!worse(ranks[index], ids[index], ranks[parent], ids[parent])) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int worst = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (worse(ranks[child], ids[child], ranks[worst], ids[worst])) {
+                        worst = child;
+                    }
+                }
+                if (worst == index) {
+                    return;
+                }
+                swap(index, worst);
+                index = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long rank = ranks[i];
+            ranks[i] = ranks[j];
+            ranks[j] = rank;
+            long id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+    }
+
+    /**
+     * Отсортированный по возрастанию массив номеров документов.
+     */
+    private static class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+
+    /**
+     * Отображение идентификатора в номер документа с открытой адресацией, без упаковки в объекты.
+     */
+    private static class LongIntMap {
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newKeys(16);
+        private int[] values = new int[16];
+        private int size;
+
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int slot = find(key);
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        /**
+         * @return Удаленное значение или -1.
+         */
+        int remove(long key) {
+            int slot = find(key);
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+            int value = values[slot];
+            keys[slot] = EMPTY;
+            size--;
+            // Сдвигаем следующие ключи цепочки, чтобы поиск не останавливался на освободившейся ячейке.
+            int mask = keys.length - 1;
+            for (int next = (slot + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+                long moved = keys[next];
+                int movedValue = values[next];
+                keys[next] = EMPTY;
+                size--;
+                put(moved, movedValue);
+            }
+            return value;
+        }
+
+        void clear() {
+            keys = newKeys(16);
+            values = new int[16];
+            size = 0;
+        }
+
+        private int find(long key) {
+            int mask = keys.length - 1;
+            int slot = Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static long[] newKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.graphqldemo.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+
+/**
+ * Неизменяемая таблица снимка каталога: идентификатор, строковое значение (название или имя) и отсортированный
+ * список связанных идентификаторов.
+ *
+ * Строки хранятся в примитивных массивах и разбиты на сегменты по 2^{@link #SEGMENT_BITS} соседних
+ * идентификаторов; сегменты упорядочены по ключу (идентификатор без младших битов), строки внутри сегмента -
+ * по идентификатору, поэтому поиск - два двоичных поиска. Связи хранятся в формате CSR: связи строки i -
+ * это links[offsets[i]..offsets[i + 1]) по возрастанию.
+ *
+ * Изменения накапливаются в {@link Changes}; {@link Changes#apply()} возвращает новую таблицу, в которой
+ * пересобраны только затронутые сегменты, остальные общие с прежней таблицей.
+ *
+ * @author Turusov Roman
+ */
+final class SegmentedTable {
+
+    /**
+     * Сколько младших битов идентификатора задают строку внутри сегмента.
+     */
+    static final int SEGMENT_BITS = 10;
+
+    static final SegmentedTable EMPTY = new SegmentedTable(new long[0], new Segment[0], 0);
+
+    private static final long[] NO_LINKS = new long[0];
+
+    private final long[] keys;
+    private final Segment[] segments;
+    private final int size;
+
+    private SegmentedTable(long[] keys, Segment[] segments, int size) {
+        this.keys = keys;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * @return Количество строк.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param id Идентификатор.
+     * @return Значение строки или {@code null}, если строки нет.
+     */
+    String value(long id) {
+        Segment segment = segment(id);
+        if (segment == null) {
+            return null;
+        }
+        int row = Arrays.binarySearch(segment.ids, id);
+        return row < 0 ? null : segment.values[row];
+    }
+
+    /**
+     * @param id Идентификатор.
+     * @return Связанные идентификаторы по возрастанию (копия); пустой массив, если строки нет.
+     */
+    long[] links(long id) {
+        Segment segment = segment(id);
+        if (segment == null) {
+            return NO_LINKS;
+        }
+        int row = Arrays.binarySearch(segment.ids, id);
+        return row < 0 ? NO_LINKS : Arrays.copyOfRange(segment.links, segment.offsets[row], segment.offsets[row + 1]);
+    }
+
+    /**
+     * Строки с идентификатором больше заданного по возрастанию идентификатора.
+     *
+     * @param afterId Идентификатор, после которого начинается выборка.
+     * @param limit   Максимальное количество строк.
+     * @param row     Построение результата из идентификатора и значения.
+     * @return Не больше limit результатов.
+     */
+    <T> List<T> rows(long afterId, int limit, BiFunction<Long, String, T> row) {
+        List<T> result = new ArrayList<>(Math.min(limit, size));
+        int index = afterId < 0 ? 0 : Arrays.binarySearch(keys, afterId >>> SEGMENT_BITS);
+        for (int k = index < 0 ? -index - 1 : index; k < keys.length && result.size() < limit; k++) {
+            Segment segment = segments[k];
+            int first = Arrays.binarySearch(segment.ids, afterId);
+            for (int i = first < 0 ? -first - 1 : first + 1; i < segment.ids.length && result.size() < limit; i++) {
+                result.add(row.apply(segment.ids[i], segment.values[i]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Пустой набор изменений этой таблицы.
+     */
+    Changes changes() {
+        return new Changes(this);
+    }
+
+    private Segment segment(long id) {
+        int index = Arrays.binarySearch(keys, id >>> SEGMENT_BITS);
+        return index < 0 ? null : segments[index];
+    }
+
+    /**
+     * Сегмент: идентификаторы по возрастанию, значения и связи в формате CSR (offsets длиной ids.length + 1).
+     */
+    private record Segment(long[] ids, String[] values, int[] offsets, long[] links) {
+    }
+
+    /**
+     * Построение таблицы целиком, например при загрузке из базы.
+     */
+    static final class Builder {
+
+        private long[] ids = new long[1024];
+        private String[] values = new String[1024];
+        private int size;
+        private long[] from = new long[1024];
+        private long[] to = new long[1024];
+        private int linkCount;
+
+        /**
+         * Добавить строку; идентификаторы должны добавляться по возрастанию.
+         */
+        void add(long id, String value) {
+            if (size > 0 && ids[size - 1] >= id) {
+                throw new IllegalArgumentException("Идентификаторы должны добавляться по возрастанию: " + id);
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            ids[size] = id;
+            values[size++] = value;
+        }
+
+        /**
+         * Добавить связь строки id с other в любом порядке; связи не должны повторяться. Связи строк, которых нет
+         * в таблице, пропускаются.
+         */
+        void link(long id, long other) {
+            if (linkCount == from.length) {
+                from = Arrays.copyOf(from, linkCount * 2);
+                to = Arrays.copyOf(to, linkCount * 2);
+            }
+            from[linkCount] = id;
+            to[linkCount++] = other;
+        }
+
+        SegmentedTable build() {
+            int[] rows = new int[linkCount];
+            int[] offsets = new int[size + 1];
+            for (int j = 0; j < linkCount; j++) {
+                rows[j] = Arrays.binarySearch(ids, 0, size, from[j]);
+                if (rows[j] >= 0) {
+                    offsets[rows[j] + 1]++;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            long[] links = new long[offsets[size]];
+            int[] next = Arrays.copyOf(offsets, size);
+            for (int j = 0; j < linkCount; j++) {
+                if (rows[j] >= 0) {
+                    links[next[rows[j]]++] = to[j];
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                Arrays.sort(links, offsets[i], offsets[i + 1]);
+            }
+
+            List<Long> keys = new ArrayList<>();
+            List<Segment> segments = new ArrayList<>();
+            for (int start = 0, end; start < size; start = end) {
+                long key = ids[start] >>> SEGMENT_BITS;
+                end = start + 1;
+                while (end < size && ids[end] >>> SEGMENT_BITS == key) {
+                    end++;
+                }
+                int[] segmentOffsets = new int[end - start + 1];
+                for (int i = start; i <= end; i++) {
+                    segmentOffsets[i - start] = offsets[i] - offsets[start];
+                }
+                keys.add(key);
+                segments.add(new Segment(Arrays.copyOfRange(ids, start, end),
+                        Arrays.copyOfRange(values, start, end), segmentOffsets,
+                        Arrays.copyOfRange(links, offsets[start], offsets[end])));
+            }
+            return new SegmentedTable(keys.stream().mapToLong(Long::longValue).toArray(),
+                    segments.toArray(Segment[]::new), size);
+        }
+    }
+
+    /**
+     * Изменения таблицы, накопленные в порядке событий. Не потокобезопасны.
+     */
+    static final class Changes {
+
+        private final SegmentedTable base;
+        private final Map<Long, Edit> edits = new HashMap<>();
+
+        private Changes(SegmentedTable base) {
+            this.base = base;
+        }
+
+        /**
+         * Добавить строку или заменить ее значение; связи не меняются.
+         */
+        void put(long id, String value) {
+            Edit edit = edit(id);
+            edit.value = value;
+            edit.deleted = false;
+        }
+
+        /**
+         * Удалить строку вместе со связями.
+         *
+         * @return Связанные идентификаторы удаленной строки, чтобы удалить обратные связи.
+         */
+        long[] delete(long id) {
+            long[] links = currentLinks(id);
+            Edit edit = edit(id);
+            edit.reset = true;
+            edit.deleted = true;
+            edit.value = null;
+            edit.added.clear();
+            edit.removed.clear();
+            return links;
+        }
+
+        void link(long id, long other) {
+            Edit edit = edit(id);
+            edit.added.add(other);
+            edit.removed.remove(other);
+        }
+
+        void unlink(long id, long other) {
+            Edit edit = edit(id);
+            edit.removed.add(other);
+            edit.added.remove(other);
+        }
+
+        /**
+         * @return Новая таблица с изменениями; без изменений - исходная таблица.
+         */
+        SegmentedTable apply() {
+            if (edits.isEmpty()) {
+                return base;
+            }
+            SortedMap<Long, SortedMap<Long, Edit>> bySegment = new TreeMap<>();
+            edits.forEach((id, edit) -> bySegment.computeIfAbsent(id >>> SEGMENT_BITS, key -> new TreeMap<>())
+                    .put(id, edit));
+
+            long[] keys = new long[base.keys.length + bySegment.size()];
+            Segment[] segments = new Segment[keys.length];
+            int count = 0;
+            int size = base.size;
+            int i = 0;
+            for (Map.Entry<Long, SortedMap<Long, Edit>> touched : bySegment.entrySet()) {
+                long key = touched.getKey();
+                for (; i < base.keys.length && base.keys[i] < key; i++) {
+                    keys[count] = base.keys[i];
+                    segments[count++] = base.segments[i];
+                }
+                Segment old = null;
+                if (i < base.keys.length && base.keys[i] == key) {
+                    old = base.segments[i++];
+                    size -= old.ids.length;
+                }
+                Segment rebuilt = rebuild(old, touched.getValue());
+                if (rebuilt != null) {
+                    size += rebuilt.ids.length;
+                    keys[count] = key;
+                    segments[count++] = rebuilt;
+                }
+            }
+            for (; i < base.keys.length; i++) {
+                keys[count] = base.keys[i];
+                segments[count++] = base.segments[i];
+            }
+            return new SegmentedTable(Arrays.copyOf(keys, count), Arrays.copyOf(segments, count), size);
+        }
+
+        private Edit edit(long id) {
+            return edits.computeIfAbsent(id, key -> new Edit());
+        }
+
+        private long[] currentLinks(long id) {
+            Edit edit = edits.get(id);
+            long[] links = edit != null && edit.reset ? NO_LINKS : base.links(id);
+            return edit == null ? links : merge(links, 0, links.length, edit);
+        }
+
+        /**
+         * Собирает сегмент слиянием его строк с изменениями, упорядоченными по идентификатору.
+         *
+         * @return Новый сегмент или {@code null}, если строк не осталось.
+         */
+        private static Segment rebuild(Segment old, SortedMap<Long, Edit> changes) {
+            int oldSize = old == null ? 0 : old.ids.length;
+            int capacity = oldSize + changes.size();
+            long[] ids = new long[capacity];
+            String[] values = new String[capacity];
+            int[] offsets = new int[capacity + 1];
+            long[] links = new long[(old == null ? 0 : old.links.length)
+                    + changes.values().stream().mapToInt(edit -> edit.added.size()).sum()];
+            int count = 0;
+            int i = 0;
+            Iterator<Map.Entry<Long, Edit>> pending = changes.entrySet().iterator();
+            Map.Entry<Long, Edit> next = pending.hasNext() ? pending.next() : null;
+            while (i < oldSize || next != null) {
+                long id;
+                String value;
+                long[] rowLinks;
+                if (next == null || i < oldSize && old.ids[i] < next.getKey()) {
+                    id = old.ids[i];
+                    value = old.values[i];
+                    rowLinks = Arrays.copyOfRange(old.links, old.offsets[i], old.offsets[i + 1]);
+                    i++;
+                } else {
+                    id = next.getKey();
+                    Edit edit = next.getValue();
+                    boolean existed = i < oldSize && old.ids[i] == id;
+                    boolean kept = existed && !edit.reset;
+                    value = edit.deleted ? null : edit.value != null ? edit.value : kept ? old.values[i] : null;
+                    rowLinks = kept ? merge(old.links, old.offsets[i], old.offsets[i + 1], edit)
+                            : merge(NO_LINKS, 0, 0, edit);
+                    if (existed) {
+                        i++;
+                    }
+                    next = pending.hasNext() ? pending.next() : null;
+                    if (value == null) {
+                        continue;
+                    }
+                }
+                ids[count] = id;
+                values[count] = value;
+                System.arraycopy(rowLinks, 0, links, offsets[count], rowLinks.length);
+                offsets[count + 1] = offsets[count] + rowLinks.length;
+                count++;
+            }
+            if (count == 0) {
+                return null;
+            }
+            return new Segment(Arrays.copyOf(ids, count), Arrays.copyOf(values, count),
+                    Arrays.copyOf(offsets, count + 1), Arrays.copyOf(links, offsets[count]));
+        }
+
+        /**
+         * Связи links[from..to) без удаленных и с добавленными, по возрастанию.
+         */
+        private static long[] merge(long[] links, int from, int to, Edit edit) {
+            long[] result = new long[to - from + edit.added.size()];
+            int count = 0;
+            for (int j = from; j < to; j++) {
+                if (!edit.removed.contains(links[j]) && !edit.added.contains(links[j])) {
+                    result[count++] = links[j];
+                }
+            }
+            for (long added : edit.added) {
+                result[count++] = added;
+            }
+            result = Arrays.copyOf(result, count);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    /**
+     * Изменения одной строки: reset - прежняя строка со связями отброшена, deleted - строки нет.
+     */
+    private static final class Edit {
+        private String value;
+        private boolean reset;
+        private boolean deleted;
+        private final Set<Long> added = new HashSet<>();
+        private final Set<Long> removed = new HashSet<>();
+    }
+}
@@ -0,0 +1,28 @@
+-- Каталог: авторы, книги и связи между ними.
+-- Идентификаторы выдаются последовательностями с шагом 50 (allocationSize в сущностях).
+create sequence author_seq start with 1 increment by 50;
+create sequence book_seq start with 1 increment by 50;
+
+-- Уникальные ограничения служат индексами для поиска автора по имени и книги по названию.
+create table author
+(
+    id   bigint not null primary key,
+    name varchar(255) constraint author_name_key unique
+);
+
+create table book
+(
+    id    bigint not null primary key,
+    title varchar(255) constraint book_title_key unique
+);
+
+-- Первичный ключ (author_id, book_id) обслуживает переходы от автора к книгам,
+-- обратный индекс по book_id - переходы от книги к авторам.
+create table book_author
+(
+    author_id bigint not null references author,
+    book_id   bigint not null references book,
+    primary key (author_id, book_id)
+);
+
+create index book_author_book_id_idx on book_author (book_id);
@@ -0,0 +1,4 @@
+-- Версии строк для оптимистической блокировки переименований (@Version в сущностях).
+-- Строки, вставленные в обход JPA (импорт, upsert), получают версию 0.
+alter table author add column version bigint default 0 not null;
+alter table book add column version bigint default 0 not null;
@@ -0,0 +1,97 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.service.FetchPlan;
+import com.example.graphqldemo.service.QueryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * CacheTest.
+ *
+ * Проверяет кэширование чтений и сброс записей после мутаций. Тесты не транзакционные:
+ * значения попадают в кэш только вне транзакции или после ее фиксации, поэтому данные удаляются после каждого теста.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+public class CacheTest {
+
+    private static final String NAME = "cache name";
+    private static final String NEW_NAME = "cache new name";
+    private static final String CO_AUTHOR = "cache co-author";
+    private static final String TITLE = "cache title";
+
+    @Autowired
+    private QueryService queryService;
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void deleteAuthors() {
+        for (String name : Arrays.asList(NAME, NEW_NAME, CO_AUTHOR)) {
+            authorRepository.findByName(name).ifPresent(author -> mutation.deleteAuthorWithBooks(author.getId()));
+        }
+    }
+
+    @Test
+    public void getAuthorIsCached() {
+        mutation.saveAuthor(NAME, List.of(TITLE));
+        AuthorView first = queryService.getAuthor(NAME, FetchPlan.RELATIONS);
+        AuthorView second = queryService.getAuthor(NAME, FetchPlan.RELATIONS);
+        assertSame(first, second);
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", "authors").tag("result", "hit")
+                .functionCounter().count() > 0);
+    }
+
+    @Test
+    public void renameEvictsOldAndNewName() {
+        AuthorView author = mutation.saveAuthor(NAME, List.of(TITLE));
+        queryService.getAuthor(NAME, FetchPlan.SCALAR);
+        assertThrows(NoSuchElementException.class, () -> queryService.getAuthor(NEW_NAME, FetchPlan.SCALAR));
+
+        mutation.updateAuthorName(author.id(), NEW_NAME);
+
+        assertThrows(NoSuchElementException.class, () -> queryService.getAuthor(NAME, FetchPlan.SCALAR));
+        assertEquals(NEW_NAME, queryService.getAuthor(NEW_NAME, FetchPlan.SCALAR).name());
+    }
+
+    @Test
+    public void linkEvictsCoAuthorsBooks() {
+        BookView book = mutation.saveBook(TITLE, List.of(CO_AUTHOR));
+        assertEquals(1, queryService.getBooksByAuthor(CO_AUTHOR, FetchPlan.RELATIONS).get(0).authors().size());
+
+        mutation.addAuthorToBook(book.id(), NAME);
+
+        assertEquals(2, queryService.getBooksByAuthor(CO_AUTHOR, FetchPlan.RELATIONS).get(0).authors().size());
+    }
+
+    @Test
+    public void bookRenameEvictsBookAndItsAuthors() {
+        BookView book = mutation.saveBook(TITLE, List.of(NAME));
+        queryService.getBookById(book.id());
+        queryService.getAuthor(NAME, FetchPlan.RELATIONS);
+
+        mutation.updateBookTitle(book.id(), TITLE + " 2");
+
+        assertEquals(TITLE + " 2", queryService.getBookById(book.id()).title());
+        assertEquals(TITLE + " 2", queryService.getAuthor(NAME, FetchPlan.RELATIONS).books().get(0).title());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.event.CatalogChange;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.example.graphqldemo.event.SequencedChange;
+import com.example.graphqldemo.service.CatalogChangeFeed;
+import com.example.graphqldemo.service.CatalogChangeFeed.OverflowPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.LongStream;
+
+/**
+ * CatalogChangeFeedTest.
+ *
+ * Проверяет продолжение подписки по номеру и политики для медленных подписчиков без запуска приложения:
+ * COALESCE схлопывает изменения одной книги, но не теряет изменения других, а буфер подписчика ограничен
+ * и во время отправки истории.
+ *
+ * @author Turusov Roman
+ */
+public class CatalogChangeFeedTest {
+
+    private static final int BUFFER_SIZE = 4;
+    private static final int HISTORY_SIZE = 10;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private MeterRegistry meterRegistry;
+    private CatalogChangeFeed feed;
+
+    @BeforeEach
+    public void createFeed() {
+        meterRegistry = new SimpleMeterRegistry();
+        feed = new CatalogChangeFeed(BUFFER_SIZE, HISTORY_SIZE, meterRegistry);
+    }
+
+    @Test
+    public void resumesFromSequenceWithoutGaps() {
+        publish(3);
+        CompletableFuture<List<Long>> changes = sequences(feed.changes(1L, change -> true, OverflowPolicy.DROP_OLDEST), 4);
+        publish(1);
+
+        assertEquals(List.of(2L, 3L, 4L), changes.join());
+    }
+
+    @Test
+    public void sequenceOutsideHistoryIsRejected() {
+        publish(HISTORY_SIZE + 5);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> feed.changes(1L, change -> true, OverflowPolicy.DROP_OLDEST).blockFirst(TIMEOUT));
+        assertThrows(IllegalArgumentException.class,
+                () -> feed.changes(feed.lastSequence() + 1, change -> true, OverflowPolicy.DROP_OLDEST).blockFirst(TIMEOUT));
+    }
+
+    @Test
+    public void filterAppliesToHistoryAndLiveChanges() {
+        publish(2);
+        CompletableFuture<List<Long>> changes = sequences(
+                feed.changes(0L, change -> change.bookId() % 2 == 0, OverflowPolicy.DROP_OLDEST), 4);
+        publish(2);
+
+        assertEquals(List.of(2L, 4L), changes.join());
+    }
+
+    @Test
+    public void slowSubscriberDropsOldest() throws Exception {
+        List<Long> received = slowSubscriber(OverflowPolicy.DROP_OLDEST, 100);
+
+        assertTrue(received.size() < 100);
+        assertEquals(100L, received.get(received.size() - 1));
+        assertEquals(List.of(97L, 98L, 99L, 100L), received.subList(received.size() - BUFFER_SIZE, received.size()));
+        assertEquals(100 - received.size(), dropped(OverflowPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    public void slowSubscriberCoalescesPerBook() throws Exception {
+        // Изменения чередуются между двумя книгами, изменение 50 - единственное изменение третьей книги.
+        List<Long> received = slowSubscriber(OverflowPolicy.COALESCE, 100, sequence -> sequence == 50 ? 1000 : sequence % 2);
+
+        assertTrue(received.size() <= 5, received.toString());
+        assertTrue(received.contains(50L), received.toString());
+        assertEquals(List.of(50L, 99L, 100L), received.subList(received.size() - 3, received.size()));
+        assertEquals(100 - received.size(), dropped(OverflowPolicy.COALESCE));
+    }
+
+    @Test
+    public void coalescingBufferIsBounded() throws Exception {
+        List<Long> received = slowSubscriber(OverflowPolicy.COALESCE, 100, sequence -> sequence);
+
+        assertEquals(List.of(97L, 98L, 99L, 100L), received.subList(received.size() - BUFFER_SIZE, received.size()));
+        assertEquals(100 - received.size(), dropped(OverflowPolicy.COALESCE));
+    }
+
+    @Test
+    public void liveChangesDuringReplayAreBounded() throws Exception {
+        publish(HISTORY_SIZE);
+        CountDownLatch replaying = new CountDownLatch(1);
+        CountDownLatch published = new CountDownLatch(1);
+        CompletableFuture<List<Long>> changes = sequences(feed.changes(0L, change -> true, OverflowPolicy.DROP_OLDEST)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnNext(change -> {
+                    replaying.countDown();
+                    await(published);
+                }), HISTORY_SIZE + 100);
+        await(replaying);
+        publish(100);
+        published.countDown();
+
+        List<Long> received = changes.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        assertEquals(LongStream.rangeClosed(1, HISTORY_SIZE).boxed().toList(), received.subList(0, HISTORY_SIZE));
+        assertEquals(List.of(107L, 108L, 109L, 110L), received.subList(HISTORY_SIZE, received.size()));
+        assertEquals(96, dropped(OverflowPolicy.DROP_OLDEST));
+    }
+
+    /**
+     * Подписчик получает первое изменение и останавливается, пока не будут опубликованы все изменения.
+     */
+    private List<Long> slowSubscriber(OverflowPolicy overflow, int count) throws Exception {
+        return slowSubscriber(overflow, count, sequence -> sequence);
+    }
+
+    private List<Long> slowSubscriber(OverflowPolicy overflow, int count, LongUnaryOperator bookId) throws Exception {
+        CountDownLatch published = new CountDownLatch(1);
+        CompletableFuture<List<Long>> changes = sequences(feed.changes(null, change -> true, overflow)
+                .doOnNext(change -> await(published)), count);
+        publish(count, bookId);
+        published.countDown();
+        return changes.get(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<List<Long>> sequences(Flux<SequencedChange> changes, long last) {
+        return changes.map(SequencedChange::sequence)
+                .takeUntil(sequence -> sequence >= last)
+                .collectList()
+                .timeout(TIMEOUT)
+                .toFuture();
+    }
+
+    private void publish(int count) {
+        publish(count, sequence -> sequence);
+    }
+
+    /**
+     * Опубликовать переименования книг, идентификатор книги вычисляется по номеру изменения.
+     */
+    private void publish(int count, LongUnaryOperator bookId) {
+        for (int i = 0; i < count; i++) {
+            long sequence = feed.lastSequence() + 1;
+            long id = bookId.applyAsLong(sequence);
+            feed.onCatalogChanged(new CatalogChangedEvent(List.of(
+                    new CatalogChange(CatalogChange.Type.BOOK_RENAMED, null, null, id, "title " + sequence, null))));
+        }
+    }
+
+    private long dropped(OverflowPolicy policy) {
+        return (long) meterRegistry.get("graphql.subscription.dropped").tag("policy", policy.name()).counter().count();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.benchmark.ExportMemoryCheck;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.service.CatalogExport;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CatalogExportTest.
+ *
+ * Проверяет формат выгрузки каталога в NDJSON и то, что выгрузка миллиона книг укладывается в маленькую кучу:
+ * {@link ExportMemoryCheck} запускается в отдельной JVM с -Xmx96m, в которой список всех книг с авторами
+ * (getAllBooks) не помещается.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+public class CatalogExportTest {
+
+    private static final String NAME = "export name";
+    private static final String COAUTHOR = "export coauthor";
+    private static final int BOOKS = 1_000_000;
+    private static final String HEAP = "-Xmx96m";
+
+    @Autowired
+    private CatalogExport export;
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    public void deleteAuthors() {
+        for (String name : List.of(NAME, COAUTHOR)) {
+            authorRepository.findByName(name).ifPresent(author -> mutation.deleteAuthorWithBooks(author.getId()));
+        }
+    }
+
+    @Test
+    public void exportWritesOneBookPerLine() throws Exception {
+        mutation.saveAuthor(NAME, List.of("export first", "export second"));
+        mutation.saveBook("export third", List.of(NAME, COAUTHOR));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = export.writeBooks(output);
+
+        String ndjson = output.toString(StandardCharsets.UTF_8);
+        assertTrue(ndjson.endsWith("\n"));
+        String[] lines = ndjson.split("\n");
+        assertEquals(exported, lines.length);
+        List<JsonNode> books = new ArrayList<>();
+        long previousId = 0;
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"id\":"), line);
+            JsonNode book = objectMapper.readTree(line);
+            assertTrue(book.get("id").asLong() > previousId);
+            previousId = book.get("id").asLong();
+            if (book.get("title").asText().startsWith("export ")) {
+                books.add(book);
+            }
+        }
+        assertEquals(List.of("export first", "export second", "export third"),
+                books.stream().map(book -> book.get("title").asText()).toList());
+        assertEquals(List.of(NAME), names(books.get(0)));
+        assertEquals(List.of(NAME, COAUTHOR), names(books.get(2)));
+        assertNull(books.get(0).get("authors").get(0).get("books"));
+    }
+
+    @Test
+    public void exportsMillionBooksInSmallHeap() throws Exception {
+        Process process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(), HEAP,
+                "-cp", System.getProperty("java.class.path"), ExportMemoryCheck.class.getName(),
+                String.valueOf(BOOKS), "2")
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(0, process.waitFor(), output);
+        assertTrue(output.contains("exported " + BOOKS + " books, " + BOOKS + " lines"), output);
+    }
+
+    private static List<String> names(JsonNode book) {
+        List<String> names = new ArrayList<>();
+        book.get("authors").forEach(author -> names.add(author.get("name").asText()));
+        return names;
+    }
+}
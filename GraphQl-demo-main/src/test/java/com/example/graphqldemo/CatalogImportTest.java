@@ -0,0 +1,180 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.ImportResult;
+import com.example.graphqldemo.event.CatalogChangedEvent;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.resolver.Query;
+import com.example.graphqldemo.service.CatalogImport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * CatalogImportTest.
+ *
+ * Проверяет импорт каталога из CSV и NDJSON: авторы создаются один раз, существующие книги и связи
+ * не дублируются, повторный импорт ничего не меняет, прерванный импорт продолжается с контрольной точки,
+ * а автор, удаленный между порциями, создается заново.
+ * Файлы создаются во временном каталоге, который в профиле test задан каталогом импорта.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+@Import(CatalogImportTest.AfterBatch.class)
+public class CatalogImportTest {
+
+    private static final String NAME = "import name";
+    private static final String COAUTHOR = "import coauthor";
+    private static final String AUTHOR_PREFIX = "import author ";
+    private static final int AUTHORS = 10;
+
+    @Autowired
+    private CatalogImport catalogImport;
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private Query query;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Path> files = new ArrayList<>();
+
+    @AfterEach
+    public void deleteImported() throws Exception {
+        List<String> names = new ArrayList<>(List.of(NAME, COAUTHOR));
+        IntStream.range(0, AUTHORS).forEach(i -> names.add(AUTHOR_PREFIX + i));
+        List<Long> authorIds = names.stream()
+                .flatMap(name -> authorRepository.findByName(name).stream())
+                .map(author -> author.getId())
+                .toList();
+        mutation.deleteAuthorsWithBooks(authorIds);
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".checkpoint"));
+        }
+    }
+
+    @Test
+    public void importDeduplicatesAuthorsAndSkipsExistingRows() throws Exception {
+        mutation.saveAuthor(NAME, List.of("import existing"));
+        Path csv = file(".csv", "title,author,author\n"
+                + "import first," + NAME + "," + COAUTHOR + "\n"
+                + "\"import second, with comma\"," + COAUTHOR + ",\n"
+                + "import existing," + COAUTHOR + "," + NAME + "\n");
+
+        ImportResult result = mutation.importCatalog(csv.getFileName().toString(), true);
+
+        assertEquals(new ImportResult(3, 0, 2, 1, 4), result);
+        assertEquals(List.of("import existing", "import first"), titles(NAME));
+        assertEquals(List.of("import existing", "import first", "import second, with comma"), titles(COAUTHOR));
+        assertEquals(List.of("import second, with comma"),
+                query.searchBooks("import second", 1).stream().map(BookView::title).toList());
+
+        Path ndjson = file(".ndjson",
+                "{\"id\":1,\"title\":\"import first\",\"authors\":[{\"id\":2,\"name\":\"" + NAME + "\"}]}\n"
+                + "{\"title\":\"import existing\",\"authors\":[{\"name\":\"" + COAUTHOR + "\"}]}\n");
+        assertEquals(new ImportResult(2, 0, 0, 0, 0), catalogImport.importFile(ndjson, true));
+    }
+
+    @Test
+    public void importResumesFromCheckpoint() throws Exception {
+        int records = 10_002;
+        String tooLong = "import " + "x".repeat(300);
+        Path csv = file(".csv", catalog(records, tooLong));
+
+        assertThrows(Exception.class, () -> catalogImport.importFile(csv, true));
+
+        Path checkpoint = csv.resolveSibling(csv.getFileName() + ".checkpoint");
+        assertTrue(Files.readString(checkpoint).contains("records=10000"));
+        assertEquals(10_000, count("select count(*) from book where title like 'import book %'"));
+
+        Files.writeString(csv, catalog(records, "import book 10000"));
+        ImportResult result = catalogImport.importFile(csv, true);
+
+        assertEquals(new ImportResult(2, 10_000, 2, 0, 2), result);
+        assertFalse(Files.exists(checkpoint));
+        assertEquals(records, count("select count(*) from book where title like 'import book %'"));
+    }
+
+    @Test
+    public void authorDeletedBetweenBatchesIsCreatedAgain() throws Exception {
+        Path csv = file(".csv", catalog(10_002, "import book 10000"));
+        AfterBatch.ACTION.set(() -> mutation.deleteAuthorWithBooks(
+                authorRepository.findByName(AUTHOR_PREFIX + 0).orElseThrow().getId()));
+
+        ImportResult result = catalogImport.importFile(csv, true);
+
+        assertNull(AfterBatch.ACTION.get());
+        assertEquals(new ImportResult(10_002, 0, 10_002, AUTHORS + 1, 10_002), result);
+        assertEquals(List.of("import book 10000"), titles(AUTHOR_PREFIX + 0));
+    }
+
+    @Test
+    public void mutationImportsOnlyFromImportDirectory() {
+        String outside = Path.of(System.getProperty("java.home"), "release").toString();
+
+        for (String path : List.of(outside, "../import.csv")) {
+            Exception e = assertThrows(IllegalArgumentException.class, () -> mutation.importCatalog(path, true));
+            assertTrue(e.getMessage().contains("вне каталога импорта"), e.getMessage());
+        }
+    }
+
+    private Path file(String suffix, String content) throws Exception {
+        Path file = Files.createTempFile("import", suffix);
+        files.add(file);
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private static String catalog(int records, String lastButOneTitle) {
+        return "title,author\n" + IntStream.range(0, records)
+                .mapToObj(i -> (i == records - 2 ? lastButOneTitle : "import book " + i) + "," + AUTHOR_PREFIX + i % AUTHORS)
+                .collect(Collectors.joining("\n"));
+    }
+
+    private List<String> titles(String authorName) {
+        return jdbcTemplate.queryForList("select b.title from book b join book_author ba on ba.book_id = b.id "
+                + "join author a on a.id = ba.author_id where a.name = ? order by b.id", String.class, authorName);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    /**
+     * Выполняет заданное действие один раз после фиксации порции импорта, в другом потоке: в потоке импорта
+     * транзакция порции еще связана с ним.
+     */
+    static class AfterBatch {
+
+        static final AtomicReference<Runnable> ACTION = new AtomicReference<>();
+
+        @TransactionalEventListener
+        public void onCatalogChanged(CatalogChangedEvent event) {
+            Runnable action = ACTION.getAndSet(null);
+            if (action != null) {
+                CompletableFuture.runAsync(action).join();
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.repository.CatalogReader;
+import com.example.graphqldemo.repository.CatalogViewRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.service.CatalogReadModel;
+import com.example.graphqldemo.service.CatalogSnapshot;
+import com.example.graphqldemo.service.FetchPlan;
+import com.example.graphqldemo.service.QueryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * CatalogReadModelTest.
+ *
+ * Проверяет модель чтения в памяти: после мутаций снимок отвечает так же, как база, запросы не выполняют SQL
+ * и не берут соединений из пула, прежний снимок не меняется, а записи в обход мутаций видны после построения.
+ * Тесты не транзакционные: снимок обновляется только после фиксации, поэтому данные удаляются после каждого теста.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest(properties = "graphql.read-model.enabled=true")
+@ActiveProfiles(value = "test")
+@Import(SqlStatementCollector.class)
+public class CatalogReadModelTest {
+
+    private static final String PREFIX = "snapshot ";
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private QueryService queryService;
+    @Autowired
+    private CatalogReadModel readModel;
+    @Autowired
+    private CatalogViewRepository viewRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    public void deleteAuthors() {
+        mutation.deleteAuthorsWithBooks(jdbcTemplate.queryForList(
+                "select id from author where name like ?", Long.class, PREFIX + "%"));
+        jdbcTemplate.update("delete from book where title like ?", PREFIX + "%");
+    }
+
+    @Test
+    public void snapshotMatchesDatabaseAfterMutations() throws Exception {
+        // Другие тесты могли изменить базу в обход этого контекста; дальше снимок меняется только событиями.
+        readModel.rebuild();
+        AuthorView first = mutation.saveAuthor(PREFIX + "first", List.of(PREFIX + "a", PREFIX + "b", PREFIX + "c"));
+        BookView shared = mutation.saveBook(PREFIX + "shared", List.of(PREFIX + "first", PREFIX + "second"));
+        mutation.addBookToAuthor(first.id(), PREFIX + "d").get();
+        mutation.addAuthorToBook(first.books().get(0).id(), PREFIX + "third").get();
+        mutation.removeBookFromAuthor(first.id(), first.books().get(1).id()).get();
+        mutation.updateBookTitle(first.books().get(2).id(), PREFIX + "c renamed");
+        Long secondId = shared.authors().stream()
+                .filter(author -> author.name().equals(PREFIX + "second")).findFirst().orElseThrow().id();
+        mutation.updateAuthorName(secondId, PREFIX + "second renamed");
+
+        CatalogSnapshot snapshot = readModel.snapshot();
+        List<String> names = List.of(PREFIX + "first", PREFIX + "second", PREFIX + "second renamed",
+                PREFIX + "third", PREFIX + "missing");
+        List<Long> authorIds = jdbcTemplate.queryForList("select id from author where name like ?", Long.class,
+                PREFIX + "%");
+        List<Long> bookIds = jdbcTemplate.queryForList("select id from book where title like ?", Long.class,
+                PREFIX + "%");
+        for (String name : names) {
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findAuthorByName(name));
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findAuthorWithBooksByName(name));
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findBooksByAuthorName(name));
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findBooksWithAuthorsByAuthorName(name));
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findBookPageByAuthorNameAfter(name, 0, 2));
+            assertSameAnswer(snapshot, viewRepository,
+                    reader -> reader.findBookPageByAuthorNameAfter(name, first.books().get(0).id(), 2));
+        }
+        for (Long bookId : bookIds) {
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findBookById(bookId));
+            assertSameAnswer(snapshot, viewRepository, reader -> reader.findBookPageAfter(bookId - 1, 3));
+        }
+        assertSameAnswer(snapshot, viewRepository, reader -> reader.findAuthorsByBookIds(bookIds));
+        assertSameAnswer(snapshot, viewRepository, reader -> reader.findBooksByAuthorIds(authorIds));
+        assertSameAnswer(snapshot, viewRepository, reader -> Set.copyOf(reader.findAuthorsByIdIn(authorIds)));
+        assertSameAnswer(snapshot, viewRepository, reader -> Set.copyOf(reader.findBooksByIdIn(bookIds)));
+        assertSameAnswer(snapshot, viewRepository, reader -> byId(reader.findAllBooks()));
+        assertSameAnswer(snapshot, viewRepository, CatalogReader::findAllBooksWithAuthors);
+
+        double acquired = meterRegistry.get("hikaricp.connections.acquire").timer().count();
+        SqlStatementCollector.clear();
+        assertEquals(List.of(PREFIX + "a", PREFIX + "c renamed", PREFIX + "shared", PREFIX + "d"),
+                titles(queryService.getBooksByAuthor(PREFIX + "first", FetchPlan.RELATIONS)));
+        assertEquals(secondId, queryService.getAuthor(PREFIX + "second renamed", FetchPlan.SCALAR).id());
+        queryService.getBooksConnection(2, null);
+        queryService.getBooksByAuthorIds(Set.copyOf(authorIds));
+        assertEquals(List.of(), SqlStatementCollector.statements());
+        assertEquals(acquired, meterRegistry.get("hikaricp.connections.acquire").timer().count());
+    }
+
+    @Test
+    public void mutationLeavesPreviousSnapshotUnchanged() throws Exception {
+        AuthorView author = mutation.saveAuthor(PREFIX + "author", List.of(PREFIX + "old"));
+        CatalogSnapshot before = readModel.snapshot();
+
+        mutation.updateBookTitle(author.books().get(0).id(), PREFIX + "new");
+        mutation.addBookToAuthor(author.id(), PREFIX + "added").get();
+
+        assertEquals(List.of(PREFIX + "old"), titles(before.findBooksByAuthorName(PREFIX + "author")));
+        assertEquals(List.of(PREFIX + "new", PREFIX + "added"),
+                titles(readModel.snapshot().findBooksByAuthorName(PREFIX + "author")));
+
+        mutation.deleteAuthorWithBooks(author.id());
+        assertTrue(readModel.snapshot().findAuthorByName(PREFIX + "author").isEmpty());
+        assertTrue(readModel.snapshot().findBookById(author.books().get(0).id()).isEmpty());
+        assertEquals(List.of(PREFIX + "old"), titles(before.findBooksByAuthorName(PREFIX + "author")));
+    }
+
+    @Test
+    public void rebuildPicksUpDirectWrites() {
+        AuthorView author = mutation.saveAuthor(PREFIX + "direct", List.of(PREFIX + "direct book"));
+        jdbcTemplate.update("update author set name = ? where id = ?", PREFIX + "direct renamed", author.id());
+
+        assertTrue(readModel.snapshot().findAuthorByName(PREFIX + "direct renamed").isEmpty());
+        readModel.rebuild();
+        assertEquals(List.of(PREFIX + "direct book"),
+                titles(readModel.snapshot().findBooksByAuthorName(PREFIX + "direct renamed")));
+        assertTrue(readModel.snapshot().findAuthorByName(PREFIX + "direct").isEmpty());
+    }
+
+    private static <T> void assertSameAnswer(CatalogReader snapshot, CatalogReader database,
+                                             Function<CatalogReader, T> read) {
+        assertEquals(read.apply(database), read.apply(snapshot));
+    }
+
+    private static List<BookView> byId(List<BookView> books) {
+        return books.stream().sorted(Comparator.comparing(BookView::id)).toList();
+    }
+
+    private static List<String> titles(List<BookView> books) {
+        return books.stream().map(BookView::title).toList();
+    }
+}
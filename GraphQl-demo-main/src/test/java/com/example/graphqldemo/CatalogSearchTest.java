@@ -0,0 +1,65 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.resolver.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import java.util.List;
+
+/**
+ * CatalogSearchTest.
+ *
+ * Проверяет, что поиск видит изменения мутаций после фиксации. Тесты не транзакционные:
+ * индекс обновляется только после фиксации, поэтому данные удаляются после каждого теста.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+public class CatalogSearchTest {
+
+    private static final String NAME = "Quentin Searchable";
+
+    @Autowired
+    private Query query;
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @AfterEach
+    public void deleteAuthor() {
+        authorRepository.findByName(NAME).ifPresent(author -> mutation.deleteAuthorWithBooks(author.getId()));
+    }
+
+    @Test
+    public void searchFollowsMutations() {
+        AuthorView author = mutation.saveAuthor(NAME, List.of("Zanzibar Chronicles", "Zanzibar Nights"));
+        BookView book = author.books().stream()
+                .filter(saved -> saved.title().equals("Zanzibar Nights"))
+                .findFirst().orElseThrow();
+
+        assertEquals(List.of("Zanzibar Nights", "Zanzibar Chronicles"), titles(query.searchBooks("zanzibar nig", 5)));
+        assertEquals(List.of(NAME), query.searchAuthors("quen sear", 5).stream().map(AuthorView::name).toList());
+
+        mutation.updateBookTitle(book.id(), "Quokka Nights");
+        assertEquals(List.of("Zanzibar Chronicles"), titles(query.searchBooks("zanzibar", 5)));
+        assertEquals(List.of("Quokka Nights"), titles(query.searchBooks("qokka", 5)));
+
+        mutation.deleteAuthorWithBooks(author.id());
+        assertTrue(query.searchBooks("zanzibar", 5).isEmpty());
+        assertTrue(query.searchAuthors("quentin", 5).isEmpty());
+    }
+
+    private static List<String> titles(List<BookView> books) {
+        return books.stream().map(BookView::title).toList();
+    }
+}
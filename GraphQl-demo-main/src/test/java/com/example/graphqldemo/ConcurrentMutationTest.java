@@ -0,0 +1,137 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.model.Author;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * ConcurrentMutationTest.
+ *
+ * Нагрузочная проверка мутаций под конкуренцией: потоки одновременно сохраняют книги с авторами из маленького
+ * общего набора имен и авторов с книгами из общего набора названий, поэтому почти каждый вызов создает
+ * или находит те же строки, что и соседние. Ни один вызов не должен завершиться ошибкой, каждое имя и название
+ * должно быть создано один раз. Отдельно проверяется, что переименование по устаревшей версии автора
+ * завершается ошибкой оптимистической блокировки. Пропускная способность измеряется
+ * в {@link com.example.graphqldemo.benchmark.ConcurrentMutationBenchmark}.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+public class ConcurrentMutationTest {
+
+    private static final String PREFIX = "concurrent ";
+    private static final int THREADS = 8;
+    private static final int CALLS_PER_THREAD = 50;
+    private static final int SHARED = 5;
+    private static final int NAMES_PER_CALL = 3;
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void deleteAuthors() {
+        mutation.deleteAuthorsWithBooks(jdbcTemplate.queryForList(
+                "select id from author where name like ?", Long.class, PREFIX + "%"));
+    }
+
+    @Test
+    public void overlappingFindOrCreateDoesNotFail() throws Exception {
+        List<String> sharedAuthors = IntStream.range(0, SHARED).mapToObj(i -> PREFIX + "shared author " + i).toList();
+        List<String> sharedBooks = IntStream.range(0, SHARED).mapToObj(i -> PREFIX + "shared book " + i).toList();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            int t = thread;
+            executor.execute(() -> {
+                Random random = new Random(t);
+                await(start);
+                for (int call = 0; call < CALLS_PER_THREAD; call++) {
+                    try {
+                        if (call % 2 == 0) {
+                            mutation.saveBook(PREFIX + "book " + t + "-" + call, pick(sharedAuthors, random));
+                        } else {
+                            mutation.saveAuthor(PREFIX + "author " + t + "-" + call, pick(sharedBooks, random));
+                        }
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        int calls = THREADS * CALLS_PER_THREAD;
+        assertEquals(List.of(), errors.stream().map(Throwable::toString).toList());
+        assertEquals(SHARED, count("select count(*) from author where name like ?", PREFIX + "shared author %"));
+        assertEquals(SHARED, count("select count(*) from book where title like ?", PREFIX + "shared book %"));
+        assertEquals((long) calls * NAMES_PER_CALL, count("select count(*) from book_author ba "
+                + "join author a on a.id = ba.author_id where a.name like ?", PREFIX + "%"));
+    }
+
+    @Test
+    public void renameOfStaleAuthorFails() {
+        AuthorView author = mutation.saveAuthor(PREFIX + "renamed", List.of());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> transaction.executeWithoutResult(status -> {
+            Author stale = authorRepository.findById(author.id()).orElseThrow();
+            CompletableFuture.runAsync(() -> mutation.updateAuthorName(author.id(), PREFIX + "renamed first")).join();
+            stale.setName(PREFIX + "renamed second");
+        }));
+
+        assertEquals(PREFIX + "renamed first", authorRepository.findById(author.id()).orElseThrow().getName());
+    }
+
+    private static List<String> pick(List<String> names, Random random) {
+        List<String> shuffled = new ArrayList<>(names);
+        Collections.shuffle(shuffled, random);
+        return shuffled.subList(0, NAMES_PER_CALL);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long count(String sql, String pattern) {
+        return jdbcTemplate.queryForObject(sql, Long.class, pattern);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.repository.CatalogViewRepository;
+import com.example.graphqldemo.repository.CatalogWriteRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * FetchPlanTest.
+ *
+ * Проверяет, какие SQL-запросы выполняются для разных наборов запрошенных полей, и что выборки
+ * по большому набору идентификаторов делятся на IN-запросы ограниченного размера.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@Import(SqlStatementCollector.class)
+@ActiveProfiles(value = "test")
+@Transactional
+public class FetchPlanTest {
+
+    private static final String JOIN_TABLE = "book_author";
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private CatalogViewRepository viewRepository;
+
+    @BeforeEach
+    public void createBooksWithAuthors() {
+        mutation.saveAuthor("King", Arrays.asList("It", "Blind Zone"));
+        mutation.saveAuthor("Beket", Arrays.asList("Amber"));
+        mutation.saveAuthor("Pullman", Arrays.asList("Golden Compass"));
+    }
+
+    @Test
+    public void getAllBooksScalarDoesNotJoinAuthors() {
+        List<String> statements = execute("{ getAllBooks { id title } }");
+        assertEquals(1, statements.size());
+        assertFalse(statements.get(0).contains(JOIN_TABLE));
+    }
+
+    @Test
+    public void getAllBooksWithAuthorsFetchesInOneQuery() {
+        List<String> statements = execute("{ getAllBooks { title authors { name } } }");
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).contains(JOIN_TABLE));
+    }
+
+    @Test
+    public void getAllBooksTwoLevelsDeepAddsOneBatchQuery() {
+        List<String> statements = execute("{ getAllBooks { title authors { name books { title } } } }");
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(1).contains(" in "));
+    }
+
+    @Test
+    public void getAuthorScalarDoesNotJoinBooks() {
+        List<String> statements = execute("{ getAuthor(name: \"King\") { id name } }");
+        assertEquals(1, statements.size());
+        assertFalse(statements.get(0).contains(JOIN_TABLE));
+    }
+
+    @Test
+    public void getAuthorWithBooksFetchesInOneQuery() {
+        List<String> statements = execute("{ getAuthor(name: \"King\") { name books { title } } }");
+        assertEquals(1, statements.size());
+        assertTrue(statements.get(0).contains(JOIN_TABLE));
+    }
+
+    @Test
+    public void getBooksByAuthorScalarSelectsOnlyBookColumns() {
+        List<String> scalar = execute("{ getBooksByAuthor(authorName: \"King\") { title } }");
+        List<String> withAuthors = execute("{ getBooksByAuthor(authorName: \"King\") { title authors { name } } }");
+        assertEquals(1, scalar.size());
+        assertEquals(1, withAuthors.size());
+        assertFalse(selectList(scalar.get(0)).contains("name"));
+        assertTrue(selectList(withAuthors.get(0)).contains("name"));
+    }
+
+    @Test
+    public void lookupsByManyIdsAreSplitIntoChunks() {
+        entityManager.flush();
+        Long kingId = viewRepository.findAuthorByName("King").orElseThrow().id();
+        Set<Long> authorIds = LongStream.rangeClosed(1, 2 * CatalogWriteRepository.IN_CHUNK_SIZE)
+                .map(i -> -i).boxed().collect(Collectors.toSet());
+        authorIds.add(kingId);
+        SqlStatementCollector.clear();
+
+        Map<Long, List<BookView>> books = viewRepository.findBooksByAuthorIds(authorIds);
+        List<AuthorView> authors = viewRepository.findAuthorsByIdIn(authorIds);
+
+        assertEquals(List.of("It", "Blind Zone"), books.get(kingId).stream().map(BookView::title).toList());
+        assertEquals(Set.of(kingId), books.keySet());
+        assertEquals(List.of(kingId), authors.stream().map(AuthorView::id).toList());
+        assertEquals(6, SqlStatementCollector.statements().size());
+    }
+
+    private List<String> execute(String document) {
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCollector.clear();
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, null, null, null, "test", null))
+                .block();
+        assertNotNull(response);
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        return SqlStatementCollector.statements();
+    }
+
+    private static String selectList(String sql) {
+        return sql.substring(0, sql.indexOf(" from "));
+    }
+}
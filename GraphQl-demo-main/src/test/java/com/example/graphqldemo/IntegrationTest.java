@@ -4,24 +4,32 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.graphqldemo.dto.AuthorInput;
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.Connection;
 import com.example.graphqldemo.model.Author;
 import com.example.graphqldemo.model.Book;
 import com.example.graphqldemo.repository.AuthorRepository;
 import com.example.graphqldemo.repository.BookRepository;
 import com.example.graphqldemo.resolver.Mutation;
 import com.example.graphqldemo.resolver.Query;
+import com.example.graphqldemo.service.QueryService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
-import org.testcontainers.containers.PostgreSQLContainer;
-import org.testcontainers.junit.jupiter.Container;
-import org.testcontainers.junit.jupiter.Testcontainers;
-
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * IntegrationTest.
@@ -29,13 +37,10 @@ import java.util.List;
  * @author Turusov Roman
  */
 @SpringBootTest
-@Testcontainers
+@Import(SqlStatementCollector.class)
 @ActiveProfiles(value = "test")
 public class IntegrationTest {
 
-    private static final String DB_USERNAME = "postgres";
-    private static final String DB_PASSWORD = "admin";
-    private static final String DB_NAME = "book_author";
     private static final String TITLE = "test title";
     private static final String NAME = "test name";
     private static final List<String> NAMES = Arrays.asList("test name1", "test name2");
@@ -57,18 +62,16 @@ public class IntegrationTest {
     private BookRepository bookRepository;
     @Autowired
     private AuthorRepository authorRepository;
-
-    @Container
-    public static PostgreSQLContainer<?> postgreSQLContainer = new PostgreSQLContainer<>("postgres:latest")
-            .withDatabaseName(DB_NAME)
-            .withUsername(DB_USERNAME)
-            .withPassword(DB_PASSWORD);
+    @Autowired
+    private QueryService queryService;
+    @Autowired
+    private EntityManager entityManager;
 
     @Test
     @Transactional
     public void getAllBooks() {
         createBooksWithAuthors();
-        List<Book> books = query.getAllBooks();
+        List<BookView> books = query.getAllBooks(null);
         assertEquals(4, books.size());
     }
 
@@ -76,21 +79,22 @@ public class IntegrationTest {
     @Transactional
     public void getAuthor() {
         createBooksWithAuthors();
-        Author author = query.getAuthor(AUTHOR_KING);
-        assertEquals(AUTHOR_KING, author.getName());
-        assertEquals(2, author.getBooks().size());
-        assertEquals(BOOK_IT, author.getBooks().get(0).getTitle());
-        assertEquals(BOOK_BLIND_ZONE, author.getBooks().get(1).getTitle());
+        AuthorView author = query.getAuthor(AUTHOR_KING, null);
+        assertEquals(AUTHOR_KING, author.name());
+        assertEquals(2, author.books().size());
+        List<BookView> books = author.books();
+        assertEquals(BOOK_IT, books.get(0).title());
+        assertEquals(BOOK_BLIND_ZONE, books.get(1).title());
     }
 
     @Test
     @Transactional
     public void getBooksByAuthor() {
         createBooksWithAuthors();
-        List<Book> books = query.getBooksByAuthor(AUTHOR_KING);
+        List<BookView> books = query.getBooksByAuthor(AUTHOR_KING, null);
         assertEquals(2, books.size());
-        assertEquals(BOOK_IT, books.get(0).getTitle());
-        assertEquals(BOOK_BLIND_ZONE, books.get(1).getTitle());
+        assertEquals(BOOK_IT, books.get(0).title());
+        assertEquals(BOOK_BLIND_ZONE, books.get(1).title());
 
     }
 
@@ -100,8 +104,9 @@ public class IntegrationTest {
         mutation.saveBook(TITLE, NAMES);
         assertEquals(1, bookRepository.findAll().size());
         assertEquals(TITLE, bookRepository.findAll().get(0).getTitle());
-        assertEquals(NAMES.get(0), bookRepository.findAll().get(0).getAuthors().get(0).getName());
-        assertEquals(NAMES.get(1), bookRepository.findAll().get(0).getAuthors().get(1).getName());
+        List<Author> authors = List.copyOf(bookRepository.findAll().get(0).getAuthors());
+        assertEquals(NAMES.get(0), authors.get(0).getName());
+        assertEquals(NAMES.get(1), authors.get(1).getName());
     }
 
     @Test
@@ -110,8 +115,60 @@ public class IntegrationTest {
         mutation.saveAuthor(NAME, TITLES);
         assertEquals(1, authorRepository.findAll().size());
         assertEquals(NAME, authorRepository.findAll().get(0).getName());
-        assertEquals(TITLES.get(0), authorRepository.findAll().get(0).getBooks().get(0).getTitle());
-        assertEquals(TITLES.get(1), authorRepository.findAll().get(0).getBooks().get(1).getTitle());
+        List<Book> books = List.copyOf(authorRepository.findAll().get(0).getBooks());
+        assertEquals(TITLES.get(0), books.get(0).getTitle());
+        assertEquals(TITLES.get(1), books.get(1).getTitle());
+    }
+
+    @Test
+    @Transactional
+    public void saveBookWithExistingAuthor() {
+        mutation.saveAuthor(NAMES.get(0), null);
+        BookView book = mutation.saveBook(TITLE, NAMES);
+        assertEquals(2, book.authors().size());
+        assertEquals(2, authorRepository.findAll().size());
+    }
+
+    @Test
+    @Transactional
+    public void saveBookResolvesAuthorsWithOneQuery() {
+        List<String> names = IntStream.range(0, 50).mapToObj(i -> NAME + i).collect(Collectors.toList());
+        mutation.saveAuthors(names.subList(0, 25).stream().map(name -> new AuthorInput(name, null)).collect(Collectors.toList()));
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCollector.clear();
+
+        mutation.saveBook(TITLE, names);
+        entityManager.flush();
+
+        List<String> statements = SqlStatementCollector.statements();
+        // поиск существующих и повторное чтение после upsert, независимо от количества имен
+        assertEquals(2, statements.stream().filter(sql -> sql.startsWith("select") && sql.contains(" from author ")).count());
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into author ")).count());
+        assertEquals(50, bookRepository.findByTitle(TITLE).orElseThrow().getAuthors().size());
+    }
+
+    @Test
+    @Transactional
+    public void saveBooksBatch() {
+        List<BookView> books = mutation.saveBooks(Arrays.asList(
+                new BookInput(TITLES.get(0), NAMES),
+                new BookInput(TITLES.get(1), Arrays.asList(NAMES.get(1)))));
+        assertEquals(2, books.size());
+        assertEquals(2, bookRepository.findAll().size());
+        assertEquals(2, authorRepository.findAll().size());
+        assertEquals(2, bookRepository.findByTitle(TITLES.get(0)).orElseThrow().getAuthors().size());
+    }
+
+    @Test
+    @Transactional
+    public void saveAuthorsBatch() {
+        List<AuthorView> authors = mutation.saveAuthors(Arrays.asList(
+                new AuthorInput(NAMES.get(0), TITLES),
+                new AuthorInput(NAMES.get(1), Arrays.asList(TITLES.get(0)))));
+        assertEquals(2, authors.size());
+        assertEquals(2, bookRepository.findAll().size());
+        assertEquals(2, authorRepository.findByName(NAMES.get(0)).orElseThrow().getBooks().size());
     }
 
     @Test
@@ -139,13 +196,13 @@ public class IntegrationTest {
     @Test
     @Transactional
     public void testAddAuthorToBook() {
-        Book book = mutation.saveBook(TITLE, NAMES);
-        mutation.addAuthorToBook(book.getId(), "test name 2");
-        Book updatedBook = query.getBookById(book.getId());
+        BookView book = mutation.saveBook(TITLE, NAMES);
+        mutation.addAuthorToBook(book.id(), "test name 2");
+        BookView updatedBook = query.getBookById(book.id());
         assertNotNull(updatedBook);
-        boolean isNewAuthorAdded = updatedBook.getAuthors()
+        boolean isNewAuthorAdded = queryService.getAuthorsByBookIds(Set.of(updatedBook.id())).get(updatedBook.id())
                 .stream()
-                .anyMatch(author -> "test name 2".equals(author.getName()));
+                .anyMatch(author -> "test name 2".equals(author.name()));
         assertTrue(isNewAuthorAdded, "Новый автор 'test name 2' не был добавлен к книге.");
     }
 
@@ -153,10 +210,10 @@ public class IntegrationTest {
     @Transactional
     public void testAddBookToAuthor() {
         createBooksWithAuthors();
-        Author author = query.getAuthor(AUTHOR_KING);
-        mutation.addBookToAuthor(author.getId(), "New Book Title");
-        Author updatedAuthor = authorRepository.findById(author.getId()).orElseThrow();
-        List<Book> authorBooks = updatedAuthor.getBooks();
+        AuthorView author = query.getAuthor(AUTHOR_KING, null);
+        mutation.addBookToAuthor(author.id(), "New Book Title");
+        Author updatedAuthor = authorRepository.findById(author.id()).orElseThrow();
+        Set<Book> authorBooks = updatedAuthor.getBooks();
         assertTrue(authorBooks.stream().anyMatch(b -> b.getTitle().equals("New Book Title")));
     }
 
@@ -167,17 +224,139 @@ public class IntegrationTest {
     @Transactional
     public void testRemoveBookFromAuthor() {
         createBooksWithAuthors();
-        Author author = query.getAuthor(AUTHOR_KING);
-        List<Book> authorBooks = author.getBooks();
+        AuthorView author = query.getAuthor(AUTHOR_KING, null);
+        List<BookView> authorBooks = author.books();
         assertEquals(2, authorBooks.size());
-        Book bookToRemove = authorBooks.get(0);
-        mutation.deleteBookFromAuthor(author.getId(), bookToRemove.getId());
-        Author updatedAuthor = query.getAuthor(author.getName());
-        List<Book> updatedBooks = updatedAuthor.getBooks();
+        BookView bookToRemove = authorBooks.get(0);
+        mutation.removeBookFromAuthor(author.id(), bookToRemove.id());
+        AuthorView updatedAuthor = query.getAuthor(author.name(), null);
+        List<BookView> updatedBooks = updatedAuthor.books();
         assertEquals(1, updatedBooks.size());
         assertFalse(updatedBooks.contains(bookToRemove));
     }
 
+    @Test
+    @Transactional
+    public void linkAndUnlinkDoNotRewriteCollection() {
+        List<String> titles = IntStream.range(0, 50).mapToObj(i -> TITLE + i).collect(Collectors.toList());
+        Long authorId = mutation.saveAuthor(NAME, titles).id();
+        Long bookId = mutation.saveBook(BOOK_IT, null).id();
+        entityManager.flush();
+        entityManager.clear();
+
+        SqlStatementCollector.clear();
+        mutation.addBookToAuthor(authorId, BOOK_IT);
+        mutation.addBookToAuthor(authorId, BOOK_IT);
+        List<String> linked = lowerCase(SqlStatementCollector.statements());
+        assertEquals(51, authorRepository.findByName(NAME).orElseThrow().getBooks().size());
+
+        SqlStatementCollector.clear();
+        mutation.removeBookFromAuthor(authorId, bookId);
+        List<String> unlinked = lowerCase(SqlStatementCollector.statements());
+
+        assertEquals(2, linked.stream().filter(sql -> sql.startsWith("insert into book_author")).count());
+        assertTrue(linked.stream().noneMatch(sql -> sql.startsWith("delete")), linked.toString());
+        assertEquals(1, unlinked.stream().filter(sql -> sql.startsWith("delete from book_author")).count());
+        assertTrue(unlinked.stream().noneMatch(sql -> sql.startsWith("insert")), unlinked.toString());
+        assertTrue(unlinked.size() <= 3, unlinked.toString());
+        assertEquals(50, authorRepository.findByName(NAME).orElseThrow().getBooks().size());
+        assertTrue(bookRepository.findById(bookId).isPresent());
+    }
+
+    @Test
+    @Transactional
+    public void getAuthorsByBookIds() {
+        createBooksWithAuthors();
+        Book it = bookRepository.findByTitle(BOOK_IT).orElseThrow();
+        Book amber = bookRepository.findByTitle(BOOK_AMBER).orElseThrow();
+        Book orphan = bookRepository.save(new Book().setTitle(TITLE));
+
+        Map<Long, List<AuthorView>> authors = queryService.getAuthorsByBookIds(Set.of(it.getId(), amber.getId(), orphan.getId()));
+
+        assertEquals(3, authors.size());
+        assertEquals(AUTHOR_KING, authors.get(it.getId()).get(0).name());
+        assertEquals(AUTHOR_BEKET, authors.get(amber.getId()).get(0).name());
+        assertTrue(authors.get(orphan.getId()).isEmpty());
+    }
+
+    @Test
+    @Transactional
+    public void getBooksByAuthorIds() {
+        createBooksWithAuthors();
+        Author king = authorRepository.findByName(AUTHOR_KING).orElseThrow();
+
+        Map<Long, List<BookView>> books = queryService.getBooksByAuthorIds(Set.of(king.getId()));
+
+        assertEquals(2, books.get(king.getId()).size());
+        assertEquals(BOOK_IT, books.get(king.getId()).get(0).title());
+        assertEquals(BOOK_BLIND_ZONE, books.get(king.getId()).get(1).title());
+    }
+
+    @Test
+    @Transactional
+    public void booksConnection() {
+        createBooksWithAuthors();
+        Connection<BookView> firstPage = query.booksConnection(3, null);
+        assertEquals(3, firstPage.edges().size());
+        assertTrue(firstPage.pageInfo().hasNextPage());
+        assertFalse(firstPage.pageInfo().hasPreviousPage());
+
+        Connection<BookView> secondPage = query.booksConnection(3, firstPage.pageInfo().endCursor());
+        assertEquals(1, secondPage.edges().size());
+        assertFalse(secondPage.pageInfo().hasNextPage());
+        assertTrue(secondPage.pageInfo().hasPreviousPage());
+    }
+
+    @Test
+    @Transactional
+    public void booksByAuthorConnection() {
+        createBooksWithAuthors();
+        Connection<BookView> firstPage = query.booksByAuthorConnection(AUTHOR_KING, 1, null);
+        assertEquals(BOOK_IT, firstPage.edges().get(0).node().title());
+        assertTrue(firstPage.pageInfo().hasNextPage());
+
+        Connection<BookView> secondPage = query.booksByAuthorConnection(AUTHOR_KING, 1, firstPage.pageInfo().endCursor());
+        assertEquals(BOOK_BLIND_ZONE, secondPage.edges().get(0).node().title());
+        assertFalse(secondPage.pageInfo().hasNextPage());
+    }
+
+    @Test
+    @Transactional
+    public void deleteAuthorWithBooksKeepsSharedBooks() {
+        createBooksWithAuthors();
+        mutation.saveBook(TITLE, Arrays.asList(AUTHOR_KING, AUTHOR_BEKET));
+        List<String> titles = IntStream.range(0, 50).mapToObj(i -> TITLE + i).collect(Collectors.toList());
+        titles.forEach(title -> mutation.addBookToAuthor(authorRepository.findByName(AUTHOR_KING).orElseThrow().getId(), title));
+        Long kingId = authorRepository.findByName(AUTHOR_KING).orElseThrow().getId();
+        entityManager.flush();
+        entityManager.clear();
+        SqlStatementCollector.clear();
+
+        mutation.deleteAuthorWithBooks(kingId);
+
+        assertTrue(SqlStatementCollector.statements().size() <= 5, SqlStatementCollector.statements().toString());
+        assertFalse(authorRepository.findById(kingId).isPresent());
+        assertFalse(bookRepository.findByTitle(BOOK_IT).isPresent());
+        assertFalse(bookRepository.findByTitle(TITLE + 0).isPresent());
+        Set<Author> sharedAuthors = bookRepository.findByTitle(TITLE).orElseThrow().getAuthors();
+        assertEquals(List.of(AUTHOR_BEKET), sharedAuthors.stream().map(Author::getName).collect(Collectors.toList()));
+        assertEquals(3, bookRepository.findAll().size());
+    }
+
+    @Test
+    @Transactional
+    public void deleteAuthorsWithBooks() {
+        createBooksWithAuthors();
+        mutation.saveBook(TITLE, Arrays.asList(AUTHOR_KING, AUTHOR_BEKET));
+        List<Long> ids = Arrays.asList(authorRepository.findByName(AUTHOR_KING).orElseThrow().getId(),
+                authorRepository.findByName(AUTHOR_BEKET).orElseThrow().getId(), -1L);
+
+        assertEquals(2, mutation.deleteAuthorsWithBooks(ids));
+
+        assertEquals(List.of(AUTHOR_PULLMAN), authorRepository.findAll().stream().map(Author::getName).collect(Collectors.toList()));
+        assertEquals(List.of(BOOK_GOLDEN_COMPASS), bookRepository.findAll().stream().map(Book::getTitle).collect(Collectors.toList()));
+    }
+
     // Лучше запускать отдельно
     @Test
     @Transactional
@@ -187,6 +366,10 @@ public class IntegrationTest {
         assertFalse(authorRepository.findById(1L).isPresent());
     }
 
+    private static List<String> lowerCase(List<String> statements) {
+        return statements.stream().map(String::toLowerCase).collect(Collectors.toList());
+    }
+
         private void createBooksWithAuthors() {
         Book book1 = new Book().setTitle(BOOK_IT);
         Book book2 = new Book().setTitle(BOOK_AMBER);
@@ -198,5 +381,7 @@ public class IntegrationTest {
         mutation.saveAuthor(author1.getName(), Arrays.asList(book1.getTitle(), book4.getTitle()));
         mutation.saveAuthor(author2.getName(), Arrays.asList(book2.getTitle()));
         mutation.saveAuthor(author3.getName(), Arrays.asList(book3.getTitle()));
+        // QueryService читает через JDBC и не видит изменений, не сброшенных в базу.
+        entityManager.flush();
     }
 }
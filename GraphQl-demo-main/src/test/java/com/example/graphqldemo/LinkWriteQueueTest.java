@@ -0,0 +1,145 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.service.LinkWriteQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.graphql.test.tester.GraphQlTester;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LinkWriteQueueTest.
+ *
+ * Проверяет очередь изменений связей: изменения подтверждаются только после записи, повторы и пары добавления
+ * с удалением одной связи схлопываются, изменение с несуществующим автором завершается ошибкой, не мешая
+ * остальным, мутации доступны через GraphQL. Интервал записи большой, поэтому очередь записывается явным
+ * вызовом flush. Скорость записи через очередь сравнивается с записью по одной транзакции
+ * в {@link com.example.graphqldemo.benchmark.LinkQueueBenchmark}.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest(properties = {"graphql.link-queue.enabled=true", "graphql.link-queue.flush-interval=1h"})
+@ActiveProfiles(value = "test")
+@Import(SqlStatementCollector.class)
+public class LinkWriteQueueTest {
+
+    private static final String PREFIX = "queue ";
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private LinkWriteQueue queue;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
+    @AfterEach
+    public void deleteAuthors() {
+        queue.flush();
+        mutation.deleteAuthorsWithBooks(jdbcTemplate.queryForList(
+                "select id from author where name like ?", Long.class, PREFIX + "%"));
+        jdbcTemplate.update("delete from book where title like ?", PREFIX + "%");
+    }
+
+    @Test
+    public void coalescesOperationsOnSameLink() throws Exception {
+        AuthorView author = mutation.saveAuthor(PREFIX + "author", List.of(PREFIX + "old"));
+        Long oldBookId = author.books().get(0).id();
+        double coalesced = meterRegistry.get("graphql.link_queue.coalesced").counter().count();
+
+        List<CompletableFuture<Boolean>> acknowledgements = List.of(
+                mutation.removeBookFromAuthor(author.id(), oldBookId),
+                mutation.addBookToAuthor(author.id(), PREFIX + "old"),
+                mutation.removeBookFromAuthor(author.id(), oldBookId),
+                mutation.addBookToAuthor(author.id(), PREFIX + "new"),
+                mutation.addBookToAuthor(author.id(), PREFIX + "new"),
+                mutation.addBookToAuthor(author.id(), PREFIX + "new"),
+                mutation.addAuthorToBook(oldBookId, PREFIX + "coauthor"));
+        assertTrue(acknowledgements.stream().noneMatch(CompletableFuture::isDone));
+        assertEquals(7, meterRegistry.get("graphql.link_queue.depth").gauge().value());
+
+        SqlStatementCollector.clear();
+        queue.flush();
+
+        CompletableFuture.allOf(acknowledgements.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertEquals(3, meterRegistry.get("graphql.link_queue.coalesced").counter().count() - coalesced);
+        assertEquals(List.of(PREFIX + "new"), titles(PREFIX + "author"));
+        assertEquals(List.of(PREFIX + "old"), titles(PREFIX + "coauthor"));
+        List<String> statements = SqlStatementCollector.statements();
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into book_author")).count());
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("delete from book_author")).count());
+    }
+
+    @Test
+    public void missingAuthorFailsOnlyItsOperation() throws Exception {
+        AuthorView author = mutation.saveAuthor(PREFIX + "author", List.of());
+        CompletableFuture<Boolean> missing = mutation.addBookToAuthor(-1L, PREFIX + "orphan");
+        CompletableFuture<Boolean> present = mutation.addBookToAuthor(author.id(), PREFIX + "book");
+
+        queue.flush();
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> missing.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(NoSuchElementException.class, e.getCause());
+        assertTrue(present.get(10, TimeUnit.SECONDS));
+        assertEquals(List.of(PREFIX + "book"), titles(PREFIX + "author"));
+        assertEquals(0, count("select count(*) from book where title = ?", PREFIX + "orphan"));
+    }
+
+    @Test
+    public void linkMutationsOverGraphQl() throws Exception {
+        AuthorView author = mutation.saveAuthor(PREFIX + "author", List.of(PREFIX + "old"));
+        GraphQlTester tester = ExecutionGraphQlServiceTester.create(graphQlService);
+
+        CompletableFuture<GraphQlTester.Response> added = CompletableFuture.supplyAsync(() -> tester
+                .document("mutation($authorId: ID!, $title: String) { addBookToAuthor(authorId: $authorId, bookTitle: $title) }")
+                .variable("authorId", author.id())
+                .variable("title", PREFIX + "new")
+                .execute());
+        CompletableFuture<GraphQlTester.Response> removed = CompletableFuture.supplyAsync(() -> tester
+                .document("mutation($authorId: ID!, $bookId: ID) { removeBookFromAuthor(authorId: $authorId, bookId: $bookId) }")
+                .variable("authorId", author.id())
+                .variable("bookId", author.books().get(0).id())
+                .execute());
+        awaitDepth(2);
+        queue.flush();
+
+        added.get(10, TimeUnit.SECONDS).path("addBookToAuthor").entity(Boolean.class).isEqualTo(true);
+        removed.get(10, TimeUnit.SECONDS).path("removeBookFromAuthor").entity(Boolean.class).isEqualTo(true);
+        assertEquals(List.of(PREFIX + "new"), titles(PREFIX + "author"));
+    }
+
+    private void awaitDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("graphql.link_queue.depth").gauge().value() < depth) {
+            assertTrue(System.nanoTime() < deadline, "Изменения не поставлены в очередь");
+            Thread.sleep(10);
+        }
+    }
+
+    private List<String> titles(String authorName) {
+        return jdbcTemplate.queryForList("select b.title from book b join book_author ba on ba.book_id = b.id "
+                + "join author a on a.id = ba.author_id where a.name = ? order by b.id", String.class, authorName);
+    }
+
+    private long count(String sql, String value) {
+        return jdbcTemplate.queryForObject(sql, Long.class, value);
+    }
+}
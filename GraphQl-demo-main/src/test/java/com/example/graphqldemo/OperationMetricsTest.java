@@ -0,0 +1,81 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.resolver.Mutation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+
+/**
+ * OperationMetricsTest.
+ *
+ * Проверяет метрики обращений к базе и ошибок по имени операции GraphQL.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+@Transactional
+public class OperationMetricsTest {
+
+    private static final String OPERATION_TAG = "graphql.operation";
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void createBooksWithAuthors() {
+        mutation.saveAuthor("King", Arrays.asList("It", "Blind Zone"));
+        mutation.saveAuthor("Beket", Arrays.asList("Amber"));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void statementsAndRowsArePerOperation() {
+        execute("query BooksWithAuthorsAndBooks { getAllBooks { title authors { name books { title } } } }",
+                "BooksWithAuthorsAndBooks");
+
+        DistributionSummary statements = meterRegistry.get("graphql.sql.statements")
+                .tag(OPERATION_TAG, "BooksWithAuthorsAndBooks").summary();
+        assertEquals(1, statements.count());
+        assertEquals(2, statements.totalAmount());
+        DistributionSummary rows = meterRegistry.get("graphql.sql.rows")
+                .tag(OPERATION_TAG, "BooksWithAuthorsAndBooks").summary();
+        assertEquals(6, rows.totalAmount());
+    }
+
+    @Test
+    public void errorsAreCountedByType() {
+        execute("query Broken { getAllBooks { isbn } }", "Broken");
+
+        assertEquals(1, meterRegistry.get("graphql.errors")
+                .tag(OPERATION_TAG, "Broken")
+                .tag("graphql.error.type", "ValidationError")
+                .counter().count());
+    }
+
+    private void execute(String document, String operationName) {
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, operationName, null, null, "test", null))
+                .block();
+        assertNotNull(response);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.ResponseError;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PersistedQueryTest.
+ *
+ * Проверяет автоматические сохраненные запросы: регистрацию документа по хэшу и выполнение по одному хэшу.
+ * Запрос только с хэшем и переменной query отправляется по HTTP, через фильтр, подставляющий маркер APQ;
+ * кэш ответов выключен, чтобы запрос дошел до фильтра.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+@Transactional
+public class PersistedQueryTest {
+
+    private static final String QUERY = "{ getAllBooks { id title } }";
+    private static final String QUERY_HASH = "fff41d065c86914965411f12aaf694f9bfe177631dcf2168ae267cc68ebbbcfa";
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
+    @Test
+    public void unknownHashIsNotFound() {
+        ExecutionGraphQlResponse response = execute(PersistedQuerySupport.PERSISTED_QUERY_MARKER, "0".repeat(64));
+        assertEquals(List.of("PersistedQueryNotFound"), errorMessages(response));
+    }
+
+    @Test
+    public void hashOnlyRequestAfterRegistration() {
+        assertTrue(execute(QUERY, QUERY_HASH).getErrors().isEmpty());
+        ExecutionGraphQlResponse response = execute(PersistedQuerySupport.PERSISTED_QUERY_MARKER, QUERY_HASH);
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        assertNotNull(response.<List<?>>field("getAllBooks").getValue());
+    }
+
+    @Test
+    public void hashMustMatchQuery() {
+        ExecutionGraphQlResponse response = execute(QUERY, "1".repeat(64));
+        assertEquals(List.of("PersistedQueryIdInvalid"), errorMessages(response));
+    }
+
+    @Test
+    public void hashOnlyRequestWithQueryVariableOverHttp() throws Exception {
+        String document = "query($query: String!) { searchBooks(query: $query) { title } }";
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(document.getBytes(StandardCharsets.UTF_8)));
+        Map<String, Object> extensions = Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash));
+        Map<String, Object> variables = Map.of("query", "har");
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GraphQlDemoApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--graphql.response-cache.enabled=false")) {
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/graphql");
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+            HttpResponse<String> registered = post(uri, objectMapper.writeValueAsString(
+                    Map.of("query", document, "variables", variables, "extensions", extensions)));
+            HttpResponse<String> hashOnly = post(uri, objectMapper.writeValueAsString(
+                    Map.of("variables", variables, "extensions", extensions)));
+
+            assertEquals(200, registered.statusCode(), registered.body());
+            assertEquals(200, hashOnly.statusCode(), hashOnly.body());
+            assertEquals(registered.body(), hashOnly.body());
+        }
+    }
+
+    private static HttpResponse<String> post(URI uri, String body) throws Exception {
+        return HttpClient.newHttpClient().send(HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .header("Accept", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private ExecutionGraphQlResponse execute(String document, String hash) {
+        Map<String, Object> extensions = Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash));
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, null, null, extensions, "test", null))
+                .block();
+        assertNotNull(response);
+        return response;
+    }
+
+    private static List<String> errorMessages(ExecutionGraphQlResponse response) {
+        return response.getErrors().stream().map(ResponseError::getMessage).toList();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.config.QueryCostInstrumentation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Map;
+
+/**
+ * QueryCostTest.
+ *
+ * Проверяет расчет стоимости запросов и отклонение слишком глубоких и дорогих запросов.
+ * Значения рассчитаны для настроек из application.properties.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+@Transactional
+public class QueryCostTest {
+
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+
+    @Test
+    public void costIsReportedInExtensions() {
+        ExecutionGraphQlResponse response = execute("{ getAllBooks { title authors { name } } }");
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        assertEquals(101L, cost(response).get("requested"));
+        assertEquals(3, cost(response).get("depth"));
+    }
+
+    @Test
+    public void connectionCostUsesPageSize() {
+        ExecutionGraphQlResponse response = execute("{ booksConnection(first: 5) { edges { node { title } } } }");
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        assertEquals(11L, cost(response).get("requested"));
+    }
+
+    @Test
+    public void expensiveQueryIsRejected() {
+        ExecutionGraphQlResponse response = execute("{ getAllBooks { authors { books { authors { name } } } } }");
+        assertEquals(1, response.getErrors().size());
+        assertTrue(response.getErrors().get(0).getMessage().contains("11101"));
+        assertNull(response.getData());
+    }
+
+    @Test
+    public void deepQueryIsRejected() {
+        ExecutionGraphQlResponse response = execute("{ getAuthor(name: \"King\") { books { authors { books { authors "
+                + "{ books { authors { books { authors { name } } } } } } } } } }");
+        assertEquals(1, response.getErrors().size());
+        assertTrue(response.getErrors().get(0).getMessage().contains("10"));
+        assertNull(response.getData());
+    }
+
+    private ExecutionGraphQlResponse execute(String document) {
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, null, null, null, "test", null))
+                .block();
+        assertNotNull(response);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cost(ExecutionGraphQlResponse response) {
+        return (Map<String, Object>) response.getExecutionResult().getExtensions().get(QueryCostInstrumentation.EXTENSION);
+    }
+}
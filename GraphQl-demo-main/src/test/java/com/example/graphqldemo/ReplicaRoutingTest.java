@@ -0,0 +1,182 @@
+package com.example.graphqldemo;
+
+import static com.example.graphqldemo.metrics.OperationMetricsInstrumentation.OPERATION_TAG;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.config.CacheConfig;
+import com.example.graphqldemo.config.ReadYourWrites;
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.service.FetchPlan;
+import com.example.graphqldemo.service.QueryService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * ReplicaRoutingTest.
+ *
+ * Проверяет чтение из реплики и запись в основную базу на двух встроенных базах H2 (профиль replica).
+ * Репликации между ними нет, поэтому по содержимому видно, из какой базы прочитаны данные.
+ * Клиент, читающий свои записи, читает мимо кэша, а прочитанное из реплики сразу после мутации не кэшируется.
+ * Отдельно проверяется, что каждый запрос проходит через datasource-proxy один раз.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "replica")
+@Import(SqlStatementCollector.class)
+public class ReplicaRoutingTest {
+
+    private static final String NAME = "replica name";
+    private static final String GET_AUTHOR = "{ getAuthor(name: \"" + NAME + "\") { name } }";
+
+    @Autowired
+    private QueryService queryService;
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private ReadYourWrites readYourWrites;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @AfterEach
+    public void deleteAuthor() {
+        for (DataSource dataSource : List.of(primaryDataSource, replicaDataSource)) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            jdbc.update("delete from book_author");
+            jdbc.update("delete from book");
+            jdbc.update("delete from author");
+        }
+        cacheManager.getCache(CacheConfig.AUTHORS).clear();
+    }
+
+    @Test
+    public void queriesReadFromReplica() {
+        new JdbcTemplate(replicaDataSource).update("insert into author (id, name) values (?, ?)", 1_000_000L, NAME);
+
+        assertEquals(1_000_000L, queryService.getAuthor(NAME, FetchPlan.SCALAR).id());
+        assertEquals(0, authors(primaryDataSource));
+    }
+
+    @Test
+    public void mutationsWriteToPrimary() {
+        mutation.saveAuthor(NAME, List.of());
+
+        assertEquals(1, authors(primaryDataSource));
+        assertEquals(0, authors(replicaDataSource));
+        assertThrows(NoSuchElementException.class, () -> queryService.getAuthor(NAME, FetchPlan.SCALAR));
+    }
+
+    @Test
+    public void clientReadsOwnWritesFromPrimary() {
+        WebGraphQlResponse saved = execute("mutation { saveAuthor(name: \"" + NAME + "\", bookTitles: []) { id } }", "writer");
+        assertTrue(saved.getErrors().isEmpty(), saved.getErrors().toString());
+
+        assertFalse(execute(GET_AUTHOR, "reader").getErrors().isEmpty());
+        assertFalse(execute(GET_AUTHOR, null).getErrors().isEmpty());
+        WebGraphQlResponse own = execute(GET_AUTHOR, "writer");
+        assertTrue(own.getErrors().isEmpty(), own.getErrors().toString());
+        assertEquals(NAME, own.<String>field("getAuthor.name").getValue());
+    }
+
+    @Test
+    public void clientReadsOwnWritesPastCache() {
+        WebGraphQlResponse saved = execute("mutation { saveAuthor(name: \"" + NAME + "\", bookTitles: []) { id } }", "writer");
+        assertTrue(saved.getErrors().isEmpty(), saved.getErrors().toString());
+        Cache authors = cacheManager.getCache(CacheConfig.AUTHORS);
+        for (FetchPlan plan : FetchPlan.values()) {
+            authors.put(new SimpleKey(NAME, plan), new AuthorView(1_000_000L, "stale"));
+        }
+
+        WebGraphQlResponse own = execute(GET_AUTHOR, "writer");
+        assertTrue(own.getErrors().isEmpty(), own.getErrors().toString());
+        assertEquals(NAME, own.<String>field("getAuthor.name").getValue());
+    }
+
+    @Test
+    public void replicaReadAfterMutationIsNotCached() {
+        WebGraphQlResponse saved = execute("mutation { saveAuthor(name: \"" + NAME + "\", bookTitles: []) { id } }", "writer");
+        assertTrue(saved.getErrors().isEmpty(), saved.getErrors().toString());
+        new JdbcTemplate(replicaDataSource).update("insert into author (id, name) values (?, ?)", 1_000_000L, NAME);
+
+        assertEquals(1_000_000L, queryService.getAuthor(NAME, FetchPlan.SCALAR).id());
+        assertNull(cacheManager.getCache(CacheConfig.AUTHORS).get(new SimpleKey(NAME, FetchPlan.SCALAR)));
+    }
+
+    @Test
+    public void eachStatementIsCountedOnce() {
+        SqlStatementCollector.clear();
+        new JdbcTemplate(dataSource).queryForObject("select count(*) from author", Integer.class);
+        assertEquals(List.of("select count(*) from author"), SqlStatementCollector.statements());
+
+        WebGraphQlResponse books = execute("query ReplicaBooks { getAllBooks { title } }", "ReplicaBooks", null);
+        assertTrue(books.getErrors().isEmpty(), books.getErrors().toString());
+        DistributionSummary statements = meterRegistry.get("graphql.sql.statements")
+                .tag(OPERATION_TAG, "ReplicaBooks").summary();
+        assertEquals(1, statements.count());
+        assertEquals(1, statements.totalAmount());
+    }
+
+    private WebGraphQlResponse execute(String document, String client) {
+        return execute(document, null, client);
+    }
+
+    private WebGraphQlResponse execute(String document, String operationName, String client) {
+        HttpHeaders headers = new HttpHeaders();
+        if (client != null) {
+            headers.add("X-Client-Id", client);
+        }
+        Map<String, Object> body = new HashMap<>();
+        body.put("query", document);
+        if (operationName != null) {
+            body.put("operationName", operationName);
+        }
+        WebGraphQlRequest request = new WebGraphQlRequest(URI.create("/graphql"), headers, null, Map.of(),
+                body, "test", null);
+        WebGraphQlResponse response = readYourWrites
+                .intercept(request, next -> graphQlService.execute(next).map(WebGraphQlResponse::new))
+                .block();
+        assertNotNull(response);
+        return response;
+    }
+
+    private static int authors(DataSource dataSource) {
+        Integer count = new JdbcTemplate(dataSource).queryForObject("select count(*) from author where name = ?",
+                Integer.class, NAME);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResponseCacheTest.
+ *
+ * Проверяет кэш ответов /graphql по HTTP: повторный запрос не выполняется, ETag дает 304,
+ * мутация делает закэшированные ответы недействительными. Данные изменяются в базе напрямую,
+ * в обход мутаций, поэтому по ответу видно, выполнялся ли запрос. Приложение запускается с профилем test
+ * и веб-сервером на свободном порту. Отдельно с профилем replica проверяется, что клиент, читающий свои записи,
+ * обходит кэш, а ответ из реплики сразу после мутации не кэшируется.
+ *
+ * @author Turusov Roman
+ */
+public class ResponseCacheTest {
+
+    private static final String NAME = "response cache name";
+    private static final String QUERY = "query($name: String) { getAuthor(name: $name) { name books { title } } }";
+
+    private static ConfigurableApplicationContext context;
+    private static URI uri;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final Mutation mutation = context.getBean(Mutation.class);
+    private final AuthorRepository authorRepository = context.getBean(AuthorRepository.class);
+    private final JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    private final ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+    @BeforeAll
+    public static void startServer() {
+        context = start("test");
+        uri = uri(context);
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        context.close();
+    }
+
+    @AfterEach
+    public void deleteAuthor() {
+        authorRepository.findByName(NAME).ifPresent(author -> mutation.deleteAuthorWithBooks(author.getId()));
+    }
+
+    @Test
+    public void repeatedQueryIsNotExecuted() throws Exception {
+        AuthorView author = mutation.saveAuthor(NAME, List.of("response cache title"));
+        HttpResponse<String> first = post(QUERY, Map.of("name", NAME), null);
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        jdbcTemplate.update("update book set title = ? where id = ?", "changed title", author.books().get(0).id());
+        HttpResponse<String> second = post("query ($name: String) {\n  getAuthor(name: $name) {\n    name\n    books { title }\n  }\n}",
+                Map.of("name", NAME), null);
+
+        assertEquals(200, second.statusCode());
+        assertEquals(first.body(), second.body());
+        assertEquals(etag, second.headers().firstValue("ETag").orElseThrow());
+        assertTrue(second.body().contains("response cache title"));
+    }
+
+    @Test
+    public void matchingEtagIsNotModified() throws Exception {
+        mutation.saveAuthor(NAME, List.of("response cache title"));
+        String etag = post(QUERY, Map.of("name", NAME), null).headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> response = post(QUERY, Map.of("name", NAME), etag);
+
+        assertEquals(304, response.statusCode());
+        assertEquals("", response.body());
+        assertEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    public void mutationInvalidatesCachedResponses() throws Exception {
+        AuthorView author = mutation.saveAuthor(NAME, List.of("response cache title"));
+        String etag = post(QUERY, Map.of("name", NAME), null).headers().firstValue("ETag").orElseThrow();
+
+        mutation.updateBookTitle(author.books().get(0).id(), "response cache new title");
+        HttpResponse<String> response = post(QUERY, Map.of("name", NAME), etag);
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("response cache new title"));
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    public void errorsAndMutationsAreNotCached() throws Exception {
+        HttpResponse<String> missing = post(QUERY, Map.of("name", NAME), null);
+        assertTrue(missing.body().contains("errors"));
+        assertTrue(missing.headers().firstValue("ETag").isEmpty());
+
+        HttpResponse<String> saved = post("mutation { saveAuthor(name: \"" + NAME + "\", bookTitles: []) { name } }",
+                Map.of(), null);
+        assertTrue(saved.headers().firstValue("ETag").isEmpty());
+        assertTrue(authorRepository.findByName(NAME).isPresent());
+    }
+
+    @Test
+    public void pinnedClientAndLaggingReplicaBypassCache() throws Exception {
+        try (ConfigurableApplicationContext replica = start("replica")) {
+            URI replicaUri = uri(replica);
+            JdbcTemplate replicaJdbc = new JdbcTemplate(replica.getBean("replicaDataSource", DataSource.class));
+            replicaJdbc.update("insert into author (id, name) values (?, ?)", 1_000_000L, NAME);
+            replicaJdbc.update("insert into book (id, title) values (?, ?)", 1_000_000L, "stale title");
+            replicaJdbc.update("insert into book_author (author_id, book_id) values (?, ?)", 1_000_000L, 1_000_000L);
+            try {
+                HttpResponse<String> saved = post(replicaUri, "mutation { saveAuthor(name: \"" + NAME
+                        + "\", bookTitles: [\"fresh title\"]) { name } }", Map.of(), null, "writer");
+                assertFalse(saved.body().contains("errors"), saved.body());
+
+                assertTrue(post(replicaUri, QUERY, Map.of("name", NAME), null, null).body().contains("stale title"));
+                assertTrue(post(replicaUri, QUERY, Map.of("name", NAME), null, "writer").body().contains("fresh title"));
+                replicaJdbc.update("update book set title = ? where id = ?", "replicated title", 1_000_000L);
+                assertTrue(post(replicaUri, QUERY, Map.of("name", NAME), null, null).body()
+                        .contains("replicated title"));
+            } finally {
+                for (DataSource dataSource : List.of(replica.getBean("primaryDataSource", DataSource.class),
+                        replica.getBean("replicaDataSource", DataSource.class))) {
+                    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+                    jdbc.update("delete from book_author");
+                    jdbc.update("delete from book");
+                    jdbc.update("delete from author");
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String profile) {
+        return new SpringApplicationBuilder(GraphQlDemoApplication.class)
+                .profiles(profile)
+                .run("--server.port=0");
+    }
+
+    private static URI uri(ConfigurableApplicationContext context) {
+        return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/graphql");
+    }
+
+    private HttpResponse<String> post(String query, Map<String, Object> variables, String ifNoneMatch) throws Exception {
+        return post(uri, query, variables, ifNoneMatch, null);
+    }
+
+    private HttpResponse<String> post(URI uri, String query, Map<String, Object> variables, String ifNoneMatch,
+                                      String clientId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        objectMapper.writeValueAsString(Map.of("query", query, "variables", variables))));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        if (clientId != null) {
+            request.header("X-Client-Id", clientId);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
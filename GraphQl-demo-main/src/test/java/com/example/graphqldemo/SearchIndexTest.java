@@ -0,0 +1,97 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.service.SearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SearchIndexTest.
+ *
+ * Проверяет поиск по началу, по началам слов, по части слова и с опечатками, ранжирование
+ * и обновление индекса без запуска приложения.
+ *
+ * @author Turusov Roman
+ */
+public class SearchIndexTest {
+
+    private static final int LIMIT = 10;
+
+    private SearchIndex index;
+
+    @BeforeEach
+    public void createIndex() {
+        index = new SearchIndex();
+        index.put(1, "Harry Potter and the Philosopher's Stone");
+        index.put(2, "Harry Potter");
+        index.put(3, "The Lord of the Rings");
+        index.put(4, "Мастер и Маргарита");
+        index.put(5, "Dirty Harry");
+    }
+
+    @Test
+    public void rankingPrefersExactThenPrefixThenWords() {
+        assertArrayEquals(new long[]{2, 1, 5}, index.search("harry", LIMIT));
+        // Нечеткие совпадения дополняют результаты до лимита и идут после точных.
+        assertArrayEquals(new long[]{2, 1, 5}, index.search("Harry Pot", LIMIT));
+    }
+
+    @Test
+    public void findsByWordPrefixes() {
+        assertArrayEquals(new long[]{3}, index.search("lord ri", LIMIT));
+        assertArrayEquals(new long[]{4}, index.search("марг", LIMIT));
+        assertArrayEquals(new long[]{4}, index.search("маргарита мастер", LIMIT));
+    }
+
+    @Test
+    public void findsSubstringAndTypos() {
+        assertArrayEquals(new long[]{2, 1}, index.search("otter", LIMIT));
+        assertArrayEquals(new long[]{2, 1}, index.search("hary poter", LIMIT));
+        assertArrayEquals(new long[]{3}, index.search("lrod of the rings", LIMIT));
+        assertEquals(0, index.search("xyzzy", LIMIT).length);
+        assertEquals(0, index.search(" ,. ", LIMIT).length);
+    }
+
+    @Test
+    public void limitKeepsBestMatches() {
+        assertArrayEquals(new long[]{2}, index.search("harry", 1));
+    }
+
+    @Test
+    public void updatesAndRemovalsAreVisible() {
+        index.put(2, "Harriet the Spy");
+        index.remove(5);
+
+        assertArrayEquals(new long[]{1, 2}, index.search("harry", LIMIT));
+        assertArrayEquals(new long[]{2}, index.search("spy", LIMIT));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void compactionKeepsLiveTexts() {
+        for (int i = 0; i < 5000; i++) {
+            index.put(100 + i, "temporary title " + i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            index.remove(100 + i);
+        }
+
+        assertEquals(5, index.size());
+        assertEquals(0, index.search("temporary", LIMIT).length);
+        assertArrayEquals(new long[]{3}, index.search("lord", LIMIT));
+    }
+
+    @Test
+    public void compactionAfterRenames() {
+        for (int i = 0; i < 5000; i++) {
+            index.put(2, "temporary title " + i);
+        }
+        index.put(2, "Harry Potter");
+
+        assertEquals(5, index.size());
+        assertEquals(0, index.search("temporary", LIMIT).length);
+        assertEquals(2, index.search("harry potter", LIMIT)[0]);
+        assertArrayEquals(new long[]{3}, index.search("lord", LIMIT));
+    }
+}
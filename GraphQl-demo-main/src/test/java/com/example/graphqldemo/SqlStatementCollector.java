@@ -0,0 +1,47 @@
+package com.example.graphqldemo;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SqlStatementCollector.
+ *
+ * Запоминает SQL-запросы, выполненные в текущем потоке, чтобы тесты могли проверить их количество и форму.
+ * Слушает datasource-proxy, поэтому видит запросы и Hibernate, и JDBC; подключается к тесту через
+ * {@code @Import(SqlStatementCollector.class)}.
+ *
+ * @author Turusov Roman
+ */
+public class SqlStatementCollector implements QueryExecutionListener {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        queryInfoList.forEach(queryInfo -> STATEMENTS.get().add(queryInfo.getQuery()));
+    }
+
+    /**
+     * Очищает запросы, собранные в текущем потоке.
+     */
+    public static void clear() {
+        STATEMENTS.get().clear();
+    }
+
+    /**
+     * Возвращает запросы, собранные в текущем потоке.
+     *
+     * @return Копия списка SQL-запросов.
+     */
+    public static List<String> statements() {
+        return new ArrayList<>(STATEMENTS.get());
+    }
+}
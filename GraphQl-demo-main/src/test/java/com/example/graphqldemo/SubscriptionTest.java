@@ -0,0 +1,109 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import com.example.graphqldemo.service.CatalogChangeFeed;
+import graphql.ExecutionResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SubscriptionTest.
+ *
+ * Проверяет доставку изменений каталога по подпискам после фиксации мутаций. Тесты не транзакционные:
+ * изменения рассылаются только после фиксации, поэтому данные удаляются после каждого теста.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest
+@ActiveProfiles(value = "test")
+public class SubscriptionTest {
+
+    private static final String NAME = "subscription name";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private CatalogChangeFeed feed;
+
+    @AfterEach
+    public void deleteAuthor() {
+        authorRepository.findByName(NAME).ifPresent(author -> mutation.deleteAuthorWithBooks(author.getId()));
+    }
+
+    @Test
+    public void bookChangedReceivesRename() {
+        AuthorView author = mutation.saveAuthor(NAME, List.of("subscription title"));
+        BookView book = author.books().get(0);
+        CompletableFuture<List<Map<String, Object>>> changes = subscribe(
+                "subscription { bookChanged(bookId: " + book.id() + ") { sequence change { type bookId bookTitle previousValue } } }",
+                "bookChanged", 1);
+
+        mutation.updateBookTitle(book.id(), "subscription new title");
+
+        Map<String, Object> change = change(changes.join().get(0));
+        assertEquals("BOOK_RENAMED", change.get("type"));
+        assertEquals(String.valueOf(book.id()), change.get("bookId"));
+        assertEquals("subscription new title", change.get("bookTitle"));
+        assertEquals("subscription title", change.get("previousValue"));
+    }
+
+    @Test
+    public void catalogChangesResumeFromSequence() {
+        long since = feed.lastSequence();
+        AuthorView author = mutation.saveAuthor(NAME, List.of("subscription first", "subscription second"));
+        mutation.updateAuthorName(author.id(), NAME);
+
+        List<Map<String, Object>> changes = subscribe(
+                "subscription { catalogChanges(since: " + since + ") { sequence change { type authorName bookTitle } } }",
+                "catalogChanges", 6).join();
+
+        for (int i = 0; i < changes.size(); i++) {
+            assertEquals(String.valueOf(since + i + 1), changes.get(i).get("sequence"));
+        }
+        assertEquals("AUTHOR_CREATED", change(changes.get(2)).get("type"));
+        assertEquals("AUTHOR_RENAMED", change(changes.get(5)).get("type"));
+    }
+
+    private CompletableFuture<List<Map<String, Object>>> subscribe(String document, String field, int count) {
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, null, null, null, "test", null))
+                .block();
+        assertNotNull(response);
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        Publisher<ExecutionResult> results = response.getData();
+        return Flux.from(results)
+                .map(result -> result.<Map<String, Map<String, Object>>>getData().get(field))
+                .take(count)
+                .collectList()
+                .timeout(TIMEOUT)
+                .toFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> change(Map<String, Object> sequenced) {
+        return (Map<String, Object>) sequenced.get("change");
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.graphqldemo;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.graphqldemo.repository.AuthorRepository;
+import com.example.graphqldemo.resolver.Mutation;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+import org.springframework.test.context.ActiveProfiles;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * VirtualThreadExecutionTest.
+ *
+ * Проверяет выполнение корневых резолверов на виртуальных потоках: запросы к базе выполняются
+ * не в вызывающем потоке, но учитываются в метриках операции, ошибки поля не мешают соседним полям.
+ * Тесты не транзакционные: резолверы работают в своих транзакциях, поэтому данные удаляются после каждого теста.
+ *
+ * @author Turusov Roman
+ */
+@SpringBootTest(properties = "graphql.execution.virtual-threads=true")
+@ActiveProfiles(value = "test")
+public class VirtualThreadExecutionTest {
+
+    private static final String NAME = "virtual name";
+    private static final String TITLE = "virtual title";
+
+    @Autowired
+    private Mutation mutation;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private ExecutionGraphQlService graphQlService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void createAuthor() {
+        mutation.saveAuthor(NAME, List.of(TITLE));
+        SqlStatementCollector.clear();
+    }
+
+    @AfterEach
+    public void deleteAuthor() {
+        authorRepository.findByName(NAME).ifPresent(author -> mutation.deleteAuthorWithBooks(author.getId()));
+    }
+
+    @Test
+    public void rootFieldsRunOffCallerThread() {
+        ExecutionGraphQlResponse response = execute("""
+                query Siblings {
+                  author: getAuthor(name: "virtual name") { name books { title } }
+                  books: getBooksByAuthor(authorName: "virtual name") { title authors { name } }
+                }
+                """, "Siblings");
+
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        Map<String, Object> author = response.field("author").getValue();
+        assertEquals(NAME, author.get("name"));
+        List<Map<String, Object>> books = response.field("books").getValue();
+        assertEquals(TITLE, books.get(0).get("title"));
+        assertTrue(SqlStatementCollector.statements().isEmpty());
+        DistributionSummary statements = meterRegistry.get("graphql.sql.statements")
+                .tag("graphql.operation", "Siblings").summary();
+        assertTrue(statements.totalAmount() > 0);
+    }
+
+    @Test
+    public void fieldErrorDoesNotFailSiblings() {
+        ExecutionGraphQlResponse response = execute("""
+                query WithMissingBook {
+                  missing: getBookById(bookId: -1) { title }
+                  author: getAuthor(name: "virtual name") { name }
+                }
+                """, "WithMissingBook");
+
+        assertEquals(1, response.getErrors().size());
+        assertEquals(List.of("missing"), response.getErrors().get(0).getParsedPath());
+        Map<String, Object> author = response.field("author").getValue();
+        assertEquals(NAME, author.get("name"));
+    }
+
+    @Test
+    public void mutationsRunInOrder() {
+        ExecutionGraphQlResponse response = execute("""
+                mutation SaveTwice {
+                  first: saveBook(title: "virtual first", authorNames: ["virtual name"]) { id }
+                  second: saveBook(title: "virtual second", authorNames: ["virtual name"]) { id }
+                }
+                """, "SaveTwice");
+
+        assertTrue(response.getErrors().isEmpty(), response.getErrors().toString());
+        long first = Long.parseLong(response.field("first.id").getValue());
+        long second = Long.parseLong(response.field("second.id").getValue());
+        assertTrue(first < second);
+    }
+
+    private ExecutionGraphQlResponse execute(String document, String operationName) {
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, operationName, null, null, "test", null))
+                .block();
+        assertNotNull(response);
+        return response;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.GraphQlDemoApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+
+/**
+ * BenchmarkApplication.
+ *
+ * Запускает контекст приложения для бенчмарков с профилем benchmark: встроенная база H2
+ * в режиме совместимости с PostgreSQL, без веб-сервера или с ним для нагрузочного теста.
+ *
+ * @author Turusov Roman
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Запускает контекст приложения.
+     *
+     * @param properties Дополнительные свойства в формате key=value, важнее свойств профиля.
+     * @return Запущенный контекст.
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(GraphQlDemoApplication.class)
+                .profiles("benchmark")
+                .web(WebApplicationType.NONE)
+                .run(arguments(properties));
+    }
+
+    /**
+     * Запускает приложение с веб-сервером на свободном порту.
+     *
+     * @param properties Дополнительные свойства в формате key=value, важнее свойств профиля.
+     * @return Запущенный контекст, порт доступен в свойстве local.server.port.
+     */
+    static ConfigurableApplicationContext startServer(String... properties) {
+        return new SpringApplicationBuilder(GraphQlDemoApplication.class)
+                .profiles("benchmark")
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0")
+                .run(arguments(properties));
+    }
+
+    /**
+     * Свойства передаются как аргументы командной строки: свойства по умолчанию (SpringApplicationBuilder.properties)
+     * перекрываются файлом профиля.
+     */
+    private static String[] arguments(String... properties) {
+        return Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BulkInsertBenchmark.
+ *
+ * Сравнивает время вставки {@code rows} книг по одной через saveBook и одним вызовом saveBooks
+ * (последовательности с пуловым оптимизатором и пакетная вставка JDBC).
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private final AtomicLong run = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private MutationService service;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(MutationService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public long perRow() {
+        long prefix = run.incrementAndGet();
+        long id = 0;
+        for (int i = 0; i < rows; i++) {
+            id += service.saveBook("per-row " + prefix + " " + i, null).getId();
+        }
+        return id;
+    }
+
+    @Benchmark
+    public List<Book> batched() {
+        long prefix = run.incrementAndGet();
+        List<BookInput> inputs = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            inputs.add(new BookInput("batched " + prefix + " " + i, null));
+        }
+        return service.saveBooks(inputs);
+    }
+}
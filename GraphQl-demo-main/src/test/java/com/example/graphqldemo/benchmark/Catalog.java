@@ -0,0 +1,92 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.service.CatalogReadModel;
+import com.example.graphqldemo.service.CatalogSearch;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalog.
+ *
+ * Состояние JMH с запущенным приложением и заполненным каталогом. Размер каталога и количество авторов
+ * у книги задаются параметрами books и authorsPerBook, кэш чтений по умолчанию выключен (cache=none),
+ * чтобы измерялись запросы к базе; cache=caffeine включает кэш приложения, readModel=true - чтение из снимка
+ * каталога в памяти (graphql.read-model.enabled).
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+public class Catalog {
+
+    @Param({"1000", "100000", "1000000"})
+    public int books;
+
+    @Param({"1", "3"})
+    public int authorsPerBook;
+
+    @Param({"none"})
+    public String cache;
+
+    @Param({"false"})
+    public boolean readModel;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private int authors;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("spring.cache.type=" + cache, "graphql.read-model.enabled=" + readModel);
+        CatalogSeeder.seed(context.getBean(JdbcTemplate.class), books, authorsPerBook);
+        context.getBean(CatalogSearch.class).rebuild();
+        context.getBean(CatalogReadModel.class).rebuild();
+        authors = CatalogSeeder.authors(books, authorsPerBook);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    long randomBookId() {
+        return ThreadLocalRandom.current().nextLong(1, books + 1L);
+    }
+
+    String randomAuthorName() {
+        return CatalogSeeder.authorName(ThreadLocalRandom.current().nextLong(1, authors + 1L));
+    }
+
+    /**
+     * Имена authorsPerBook различных авторов, идущих подряд начиная со случайного.
+     */
+    List<String> randomAuthorNames() {
+        long first = ThreadLocalRandom.current().nextLong(authors);
+        List<String> names = new ArrayList<>(authorsPerBook);
+        for (int i = 0; i < authorsPerBook; i++) {
+            names.add(CatalogSeeder.authorName((first + i) % authors + 1));
+        }
+        return names;
+    }
+
+    /**
+     * Уникальное в рамках запуска значение для новых названий и имен.
+     */
+    String unique(String prefix) {
+        return prefix + "-new-" + sequence.incrementAndGet();
+    }
+}
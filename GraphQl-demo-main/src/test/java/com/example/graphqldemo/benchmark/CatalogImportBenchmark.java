@@ -0,0 +1,111 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.dto.ImportResult;
+import com.example.graphqldemo.service.CatalogImport;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CatalogImportBenchmark.
+ *
+ * Сравнивает время загрузки {@code books} книг с {@code authorsPerBook} авторами из файла CSV через
+ * {@link CatalogImport} и теми же записями через saveBooks порциями по 10000 книг. На каждой итерации
+ * книги и авторы новые, у каждого автора в среднем 10 книг.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CatalogImportBenchmark {
+
+    private static final int SAVE_BOOKS_SIZE = 10_000;
+
+    @Param({"100000"})
+    public int books;
+
+    @Param({"1", "3"})
+    public int authorsPerBook;
+
+    private ConfigurableApplicationContext context;
+    private CatalogImport catalogImport;
+    private MutationService service;
+    private Path directory;
+    private Path file;
+    private List<BookInput> inputs;
+    private int run;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        context = BenchmarkApplication.start();
+        catalogImport = context.getBean(CatalogImport.class);
+        service = context.getBean(MutationService.class);
+        directory = Files.createTempDirectory("import-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare() throws IOException {
+        run++;
+        int authors = CatalogSeeder.authors(books, authorsPerBook);
+        inputs = new ArrayList<>(books);
+        file = directory.resolve("catalog-" + run + ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("title,author\n");
+            for (int book = 0; book < books; book++) {
+                List<String> names = new ArrayList<>(authorsPerBook);
+                for (int link = book * authorsPerBook; link < (book + 1) * authorsPerBook; link++) {
+                    names.add("import-author-" + run + "-" + link % authors);
+                }
+                BookInput input = new BookInput("import-book-" + run + "-" + book, names);
+                inputs.add(input);
+                writer.write(input.title() + "," + String.join(",", names) + "\n");
+            }
+        }
+    }
+
+    @Benchmark
+    public ImportResult importFile() throws IOException {
+        return catalogImport.importFile(file, false);
+    }
+
+    @Benchmark
+    public int saveBooks() {
+        int saved = 0;
+        for (int from = 0; from < inputs.size(); from += SAVE_BOOKS_SIZE) {
+            saved += service.saveBooks(inputs.subList(from, Math.min(from + SAVE_BOOKS_SIZE, inputs.size()))).size();
+        }
+        return saved;
+    }
+}
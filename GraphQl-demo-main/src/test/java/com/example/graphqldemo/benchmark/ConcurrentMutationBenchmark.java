@@ -0,0 +1,87 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.model.Author;
+import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * ConcurrentMutationBenchmark.
+ *
+ * Пропускная способность мутаций под конкуренцией: потоки одновременно сохраняют книги с авторами
+ * из маленького общего набора имен ({@code shared}) и авторов с книгами из общего набора названий,
+ * поэтому почти каждый вызов находит или создает те же строки, что и соседние.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ConcurrentMutationBenchmark {
+
+    private static final int NAMES_PER_CALL = 3;
+
+    @Param({"5", "100"})
+    public int shared;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private MutationService service;
+    private List<String> sharedAuthors;
+    private List<String> sharedBooks;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(MutationService.class);
+        sharedAuthors = IntStream.range(0, shared).mapToObj(i -> "shared author " + i).toList();
+        sharedBooks = IntStream.range(0, shared).mapToObj(i -> "shared book " + i).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public Book saveBookWithSharedAuthors() {
+        return service.saveBook("book " + sequence.incrementAndGet(), pick(sharedAuthors));
+    }
+
+    @Benchmark
+    public Author saveAuthorWithSharedBooks() {
+        return service.saveAuthor("author " + sequence.incrementAndGet(), pick(sharedBooks));
+    }
+
+    private static List<String> pick(List<String> names) {
+        List<String> shuffled = new ArrayList<>(names);
+        Collections.shuffle(shuffled, ThreadLocalRandom.current());
+        return shuffled.subList(0, NAMES_PER_CALL);
+    }
+}
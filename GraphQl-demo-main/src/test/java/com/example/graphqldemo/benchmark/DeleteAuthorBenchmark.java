@@ -0,0 +1,74 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.AuthorInput;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DeleteAuthorBenchmark.
+ *
+ * Время удаления автора с {@code books} книгами через deleteAuthorWithBooks. Перед каждым измерением
+ * автор и его книги создаются заново через saveAuthors.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeleteAuthorBenchmark {
+
+    @Param({"100", "10000"})
+    public int books;
+
+    private final AtomicLong run = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private MutationService service;
+    private long authorId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(MutationService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void createAuthor() {
+        long prefix = run.incrementAndGet();
+        List<String> titles = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            titles.add("delete " + prefix + " " + i);
+        }
+        authorId = service.saveAuthors(List.of(new AuthorInput("author " + prefix, titles))).get(0).getId();
+    }
+
+    @Benchmark
+    public void deleteAuthorWithBooks() {
+        service.deleteAuthorWithBooks(authorId);
+    }
+}
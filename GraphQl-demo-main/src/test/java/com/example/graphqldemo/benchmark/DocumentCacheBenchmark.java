@@ -0,0 +1,127 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.config.PersistedDocumentProvider;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DocumentCacheBenchmark.
+ *
+ * Время обработки одного запроса движком graphql-java на схеме book-author.graphqls: разбор и валидация
+ * на каждый запрос, документ из кэша по тексту и запрос APQ только с хэшем. Резолверы не подключены
+ * и корневые поля возвращают null, поэтому измеряется работа самого движка, без базы данных.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentCacheBenchmark {
+
+    static final String QUERY = """
+            query Catalog($name: String, $bookId: ID!) {
+              getAuthor(name: $name) { ...AuthorWithBooks }
+              getBooksByAuthor(authorName: $name) { ...BookWithAuthors }
+              getBookById(bookId: $bookId) { ...BookWithAuthors }
+              getAllBooks {
+                id
+                title
+                authors { id name books { id title authors { id name } } }
+              }
+            }
+
+            fragment AuthorWithBooks on Author {
+              id
+              name
+              books { ...BookWithAuthors }
+            }
+
+            fragment BookWithAuthors on Book {
+              id
+              title
+              authors { id name books { id title } }
+            }
+            """;
+
+    private static final Map<String, Object> VARIABLES = Map.of("name", "King", "bookId", "1");
+
+    private GraphQL parseEveryRequest;
+    private GraphQL cached;
+    private Map<String, Object> persistedQuery;
+
+    @Setup
+    public void setUp() throws IOException, NoSuchAlgorithmException {
+        GraphQLSchema schema = schema();
+        parseEveryRequest = GraphQL.newGraphQL(schema).build();
+        cached = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new PersistedDocumentProvider(Caffeine.newBuilder().maximumSize(1000).build()))
+                .build();
+        persistedQuery = Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", sha256(QUERY)));
+
+        ExecutionResult registration = cached.execute(ExecutionInput.newExecutionInput(QUERY)
+                .variables(VARIABLES)
+                .extensions(persistedQuery));
+        if (!registration.getErrors().isEmpty()) {
+            throw new IllegalStateException(registration.getErrors().toString());
+        }
+    }
+
+    @Benchmark
+    public ExecutionResult parseEveryRequest() {
+        return parseEveryRequest.execute(ExecutionInput.newExecutionInput(QUERY).variables(VARIABLES));
+    }
+
+    @Benchmark
+    public ExecutionResult cachedDocument() {
+        return cached.execute(ExecutionInput.newExecutionInput(QUERY).variables(VARIABLES));
+    }
+
+    @Benchmark
+    public ExecutionResult persistedHashOnly() {
+        return cached.execute(ExecutionInput.newExecutionInput(PersistedQuerySupport.PERSISTED_QUERY_MARKER)
+                .variables(VARIABLES)
+                .extensions(persistedQuery));
+    }
+
+    private static GraphQLSchema schema() throws IOException {
+        try (InputStream schema = DocumentCacheBenchmark.class.getResourceAsStream("/graphql/book-author.graphqls")) {
+            String sdl = new String(schema.readAllBytes(), StandardCharsets.UTF_8);
+            return new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl),
+                    RuntimeWiring.newRuntimeWiring().build());
+        }
+    }
+
+    private static String sha256(String text) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+        return String.format("%064x", new BigInteger(1, digest));
+    }
+}
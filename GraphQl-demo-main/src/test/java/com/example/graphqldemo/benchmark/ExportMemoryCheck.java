@@ -0,0 +1,73 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.service.CatalogExport;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ExportMemoryCheck.
+ *
+ * Выгружает каталог заданного размера через {@link CatalogExport} и печатает количество книг и строк.
+ * Запускается в отдельной JVM с маленькой кучей (-Xmx), например из CatalogExportTest: при нехватке памяти
+ * процесс завершается с OutOfMemoryError и ненулевым кодом. Каталог хранится в файловой базе H2
+ * во временном каталоге, чтобы сами данные не занимали кучу.
+ *
+ * Параметры: количество книг и количество авторов у книги.
+ *
+ * @author Turusov Roman
+ */
+public final class ExportMemoryCheck {
+
+    private ExportMemoryCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int books = Integer.parseInt(args[0]);
+        int authorsPerBook = Integer.parseInt(args[1]);
+        Path directory = Files.createTempDirectory("export-check");
+        ConfigurableApplicationContext context = BenchmarkApplication.start("spring.datasource.url=jdbc:h2:file:"
+                + directory.resolve("catalog") + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        try {
+            CatalogSeeder.seed(context.getBean(JdbcTemplate.class), books, authorsPerBook);
+            LineCounter lines = new LineCounter();
+            long started = System.nanoTime();
+            long exported = context.getBean(CatalogExport.class).writeBooks(lines);
+            System.out.printf("exported %d books, %d lines, %d MB in %d ms, max heap %d MB%n", exported, lines.lines,
+                    lines.bytes >> 20, (System.nanoTime() - started) / 1_000_000, Runtime.getRuntime().maxMemory() >> 20);
+        } finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    /**
+     * Поток, который только считает байты и строки.
+     */
+    private static class LineCounter extends OutputStream {
+        private long lines;
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
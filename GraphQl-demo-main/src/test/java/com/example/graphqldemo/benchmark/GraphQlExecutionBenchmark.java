@@ -0,0 +1,100 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.Cursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.graphql.ExecutionGraphQlResponse;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.support.DefaultExecutionGraphQlRequest;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GraphQlExecutionBenchmark.
+ *
+ * Полное выполнение операций через ExecutionGraphQlService, как при HTTP-запросе без транспорта:
+ * разбор документа, ограничения стоимости, резолверы, DataLoader и метрики.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class GraphQlExecutionBenchmark {
+
+    private static final String AUTHOR_WITH_CO_AUTHORS = """
+            query AuthorWithCoAuthors($name: String) {
+              getAuthor(name: $name) { id name books { id title authors { id name } } }
+            }
+            """;
+
+    private static final String BOOKS_BY_AUTHOR = """
+            query BooksByAuthor($name: String) {
+              getBooksByAuthor(authorName: $name) { id title authors { id name } }
+            }
+            """;
+
+    private static final String BOOKS_PAGE = """
+            query BooksPage($after: String) {
+              booksConnection(first: 20, after: $after) {
+                edges { cursor node { id title authors { id name } } }
+                pageInfo { hasNextPage endCursor }
+              }
+            }
+            """;
+
+    private static final String BOOK_BY_ID = """
+            query BookById($id: ID!) {
+              getBookById(bookId: $id) { id title authors { id name books { id title } } }
+            }
+            """;
+
+    private ExecutionGraphQlService graphQlService;
+
+    @Setup
+    public void setUp(Catalog catalog) {
+        graphQlService = catalog.bean(ExecutionGraphQlService.class);
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse authorWithCoAuthors(Catalog catalog) {
+        return execute(AUTHOR_WITH_CO_AUTHORS, Map.of("name", catalog.randomAuthorName()));
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse booksByAuthor(Catalog catalog) {
+        return execute(BOOKS_BY_AUTHOR, Map.of("name", catalog.randomAuthorName()));
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse booksPage(Catalog catalog) {
+        return execute(BOOKS_PAGE, Map.of("after", Cursor.encode(catalog.randomBookId())));
+    }
+
+    @Benchmark
+    public ExecutionGraphQlResponse bookById(Catalog catalog) {
+        return execute(BOOK_BY_ID, Map.of("id", catalog.randomBookId()));
+    }
+
+    private ExecutionGraphQlResponse execute(String document, Map<String, Object> variables) {
+        ExecutionGraphQlResponse response = graphQlService
+                .execute(new DefaultExecutionGraphQlRequest(document, null, variables, null, "benchmark", null))
+                .block();
+        if (response == null || !response.getErrors().isEmpty()) {
+            throw new IllegalStateException(response == null ? "no response" : response.getErrors().toString());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.AuthorInput;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LinkBenchmark.
+ *
+ * Добавление и удаление одной связи автора с книгой (addBookToAuthor, затем removeBookFromAuthor)
+ * у автора с {@code books} книгами. Время операции не должно зависеть от числа книг автора.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkBenchmark {
+
+    private static final String TITLE = "linked title";
+
+    @Param({"10", "1000", "10000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private MutationService service;
+    private long authorId;
+    private long bookId;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start();
+        service = context.getBean(MutationService.class);
+        List<String> titles = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            titles.add("book " + i);
+        }
+        authorId = service.saveAuthors(List.of(new AuthorInput("author", titles))).get(0).getId();
+        bookId = service.saveBook(TITLE, null).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void linkAndUnlink() {
+        service.addBookToAuthor(authorId, TITLE);
+        service.removeBookFromAuthor(authorId, bookId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.AuthorInput;
+import com.example.graphqldemo.dto.LinkOperation;
+import com.example.graphqldemo.service.LinkWriteQueue;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LinkQueueBenchmark.
+ *
+ * Серия из {@code burst} добавлений новых книг автору: по одной транзакции на изменение (direct) и через
+ * очередь изменений связей {@link LinkWriteQueue} с ожиданием подтверждения всех изменений серии (queued).
+ * Интервал записи очереди большой, поэтому очередь записывается явным вызовом flush.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkQueueBenchmark {
+
+    @Param({"100", "2000"})
+    public int burst;
+
+    private ConfigurableApplicationContext context;
+    private MutationService service;
+    private LinkWriteQueue queue;
+    private long authorId;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("graphql.link-queue.enabled=true", "graphql.link-queue.flush-interval=1h");
+        service = context.getBean(MutationService.class);
+        queue = context.getBean(LinkWriteQueue.class);
+        authorId = service.saveAuthors(List.of(new AuthorInput("author", List.of()))).get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public void direct() {
+        for (int i = 0; i < burst; i++) {
+            service.addBookToAuthor(authorId, "book " + ++sequence);
+        }
+    }
+
+    @Benchmark
+    public void queued() {
+        CompletableFuture<?>[] acknowledgements = new CompletableFuture<?>[burst];
+        for (int i = 0; i < burst; i++) {
+            acknowledgements[i] = queue.submit(LinkOperation.addBookToAuthor(authorId, "book " + ++sequence));
+        }
+        queue.flush();
+        CompletableFuture.allOf(acknowledgements).join();
+    }
+}
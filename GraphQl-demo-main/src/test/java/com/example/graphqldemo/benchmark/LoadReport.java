@@ -0,0 +1,148 @@
+package com.example.graphqldemo.benchmark;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadReport.
+ *
+ * Результаты нагрузочного теста: гистограммы задержек по операциям (в микросекундах, с поправкой
+ * на coordinated omission, см. {@link LoadTest}), ошибки и достигнутая пропускная способность.
+ * Сохраняется в файл базовой линии и сравнивается с ним.
+ *
+ * @author Turusov Roman
+ */
+final class LoadReport {
+
+    static final String TOTAL = "total";
+
+    private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p99", "p999"};
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> errors = new ConcurrentHashMap<>();
+    private long durationNanos;
+
+    void record(String operation, long latencyNanos, boolean error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        histogram(operation).recordValue(micros);
+        histogram(TOTAL).recordValue(micros);
+        if (error) {
+            errors.computeIfAbsent(operation, key -> new AtomicLong()).incrementAndGet();
+            errors.computeIfAbsent(TOTAL, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    double throughput() {
+        return histogram(TOTAL).getTotalCount() / (durationNanos / 1e9);
+    }
+
+    double errorRate() {
+        long count = histogram(TOTAL).getTotalCount();
+        return count == 0 ? 0 : (double) errors(TOTAL) / count;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-24s %8s %7s %10s %10s %10s %10s%n", "operation", "count", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String operation : new TreeMap<>(histograms).keySet()) {
+            Histogram histogram = histogram(operation);
+            out.printf("%-24s %8d %7d %10.2f %10.2f %10.2f %10.2f%n", operation, histogram.getTotalCount(), errors(operation),
+                    millis(histogram.getValueAtPercentile(50.0)), millis(histogram.getValueAtPercentile(99.0)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+        }
+        out.printf("throughput: %.1f requests/s, errors: %.2f%%%n", throughput(), errorRate() * 100);
+    }
+
+    /**
+     * Сохраняет результаты как базовую линию вместе с параметрами запуска.
+     */
+    void save(Path path, Map<String, String> settings) throws IOException {
+        Properties properties = new Properties();
+        settings.forEach((key, value) -> properties.setProperty("settings." + key, value));
+        properties.setProperty(TOTAL + ".throughput", format(throughput()));
+        histograms.forEach((operation, histogram) -> {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                properties.setProperty(operation + "." + PERCENTILE_KEYS[i],
+                        format(millis(histogram.getValueAtPercentile(PERCENTILES[i]))));
+            }
+        });
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            properties.store(writer, "Load test baseline: mvn -Ploadtest -DskipTests verify -Dloadtest.args=\"update=true\"");
+        }
+    }
+
+    /**
+     * Сравнивает результаты с базовой линией.
+     *
+     * @param path      Файл базовой линии.
+     * @param settings  Параметры текущего запуска, должны совпадать с параметрами базовой линии.
+     * @param tolerance Допустимое ухудшение p99 и пропускной способности, доля от 0 до 1.
+     * @return Описание регрессий, пустой список если их нет.
+     */
+    List<String> compare(Path path, Map<String, String> settings, double tolerance) throws IOException {
+        Properties baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            baseline.load(reader);
+        }
+        List<String> regressions = new ArrayList<>();
+        settings.forEach((key, value) -> {
+            String expected = baseline.getProperty("settings." + key);
+            if (!value.equals(expected)) {
+                regressions.add(String.format("setting %s=%s differs from baseline %s, rerun with update=true", key, value, expected));
+            }
+        });
+        if (!regressions.isEmpty()) {
+            return regressions;
+        }
+
+        double baseThroughput = Double.parseDouble(baseline.getProperty(TOTAL + ".throughput"));
+        if (throughput() < baseThroughput * (1 - tolerance)) {
+            regressions.add(String.format("throughput %.1f/s is below baseline %.1f/s", throughput(), baseThroughput));
+        }
+        histograms.forEach((operation, histogram) -> {
+            String base = baseline.getProperty(operation + ".p99");
+            double p99 = millis(histogram.getValueAtPercentile(99.0));
+            if (base != null && p99 > Double.parseDouble(base) * (1 + tolerance)) {
+                regressions.add(String.format("%s p99 %.2f ms is above baseline %s ms", operation, p99, base));
+            }
+        });
+        return regressions;
+    }
+
+    private Histogram histogram(String operation) {
+        return histograms.computeIfAbsent(operation, key -> new ConcurrentHistogram(3));
+    }
+
+    private long errors(String operation) {
+        AtomicLong count = errors.get(operation);
+        return count == null ? 0 : count.get();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String format(double value) {
+        return String.format(java.util.Locale.ROOT, "%.3f", value);
+    }
+}
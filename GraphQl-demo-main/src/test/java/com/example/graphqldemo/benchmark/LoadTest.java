@@ -0,0 +1,289 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.service.CatalogSearch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadTest.
+ *
+ * Нагрузочный тест /graphql по HTTP: запускает приложение с профилем benchmark, заполняет каталог
+ * {@link CatalogSeeder} и отправляет взвешенную смесь операций с заданной частотой.
+ *
+ * Запросы планируются на равные интервалы 1/rps, задержка отсчитывается от запланированного момента,
+ * а не от фактической отправки, поэтому задержки сервера не скрываются ожиданием генератора
+ * (поправка на coordinated omission). В режиме open запросы отправляются независимо от ответов,
+ * в режиме closed их выполняют connections потоков, каждый ждет ответа перед следующим запросом.
+ * В режиме closed с rps=0 частота не ограничивается и задержка считается от фактической отправки,
+ * так измеряется предельная пропускная способность при заданном числе соединений.
+ *
+ * Параметры key=value: rps, duration и warmup в секундах, mode, connections, books, authorsPerBook,
+ * mix (например getAuthor=50,saveBook=25), baseline, tolerance, maxErrorRate, update. Параметры с точкой в имени
+ * передаются приложению как свойства, например graphql.execution.virtual-threads=true.
+ * С update=true результаты записываются в файл базовой линии, иначе сравниваются с ним, и при регрессии p99
+ * или пропускной способности, а также без файла базовой линии процесс завершается с кодом 1.
+ *
+ * @author Turusov Roman
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String DEFAULT_MIX = "getAllBooks=5,getAuthor=50,saveBook=25,addAuthorToBook=15,deleteAuthorWithBooks=5";
+
+    private final Map<String, String> settings;
+    private final HttpClient client;
+    private final URI uri;
+    private final List<Operation> mix = new ArrayList<>();
+    private final Queue<String> createdAuthors = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final int books;
+    private final int authors;
+
+    private LoadTest(Map<String, String> settings, HttpClient client, URI uri) {
+        this.settings = settings;
+        this.client = client;
+        this.uri = uri;
+        this.books = Integer.parseInt(settings.get("books"));
+        this.authors = CatalogSeeder.authors(books, Integer.parseInt(settings.get("authorsPerBook")));
+        for (String entry : settings.get("mix").split(",")) {
+            String[] pair = entry.split("=");
+            Operation operation = Operation.valueOf(pair[0].trim());
+            for (int i = Integer.parseInt(pair[1].trim()); i > 0; i--) {
+                mix.add(operation);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("rps", "200");
+        settings.put("duration", "30");
+        settings.put("mode", "open");
+        settings.put("connections", "16");
+        settings.put("books", "10000");
+        settings.put("authorsPerBook", "2");
+        settings.put("mix", DEFAULT_MIX);
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("warmup", "10");
+        options.put("tolerance", "0.2");
+        options.put("maxErrorRate", "0.01");
+        options.put("update", "false");
+        options.put("baseline", "loadtest-baseline.properties");
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value: " + arg);
+            }
+            String key = arg.substring(0, separator);
+            (options.containsKey(key) ? options : settings).put(key, arg.substring(separator + 1));
+        }
+
+        List<String> failures;
+        String[] properties = settings.entrySet().stream()
+                .filter(entry -> entry.getKey().contains("."))
+                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = BenchmarkApplication.startServer(properties);
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            CatalogSeeder.seed(context.getBean(JdbcTemplate.class),
+                    Integer.parseInt(settings.get("books")), Integer.parseInt(settings.get("authorsPerBook")));
+            context.getBean(CatalogSearch.class).rebuild();
+            URI uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/graphql");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+            LoadTest test = new LoadTest(settings, client, uri);
+
+            System.out.println("Load test " + settings);
+            test.run(Long.parseLong(options.get("warmup")));
+            LoadReport report = test.run(Long.parseLong(settings.get("duration")));
+            report.print(System.out);
+            failures = test.check(report, options);
+        } finally {
+            context.close();
+            executor.shutdownNow();
+        }
+        failures.forEach(failure -> System.out.println("FAILED: " + failure));
+        System.exit(failures.isEmpty() ? 0 : 1);
+    }
+
+    private List<String> check(LoadReport report, Map<String, String> options) throws Exception {
+        List<String> failures = new ArrayList<>();
+        double maxErrorRate = Double.parseDouble(options.get("maxErrorRate"));
+        if (report.errorRate() > maxErrorRate) {
+            failures.add(String.format("error rate %.2f%% is above %.2f%%", report.errorRate() * 100, maxErrorRate * 100));
+        }
+        Path baseline = Path.of(options.get("baseline"));
+        if (Boolean.parseBoolean(options.get("update"))) {
+            if (failures.isEmpty()) {
+                report.save(baseline, settings);
+                System.out.println("Baseline written to " + baseline);
+            }
+        } else if (!Files.exists(baseline)) {
+            failures.add("baseline " + baseline + " not found, record it with update=true");
+        } else {
+            failures.addAll(report.compare(baseline, settings, Double.parseDouble(options.get("tolerance"))));
+        }
+        return failures;
+    }
+
+    /**
+     * Выполняет нагрузку в течение заданного времени.
+     *
+     * @param seconds Длительность в секундах.
+     * @return Результаты прогона.
+     */
+    private LoadReport run(long seconds) throws Exception {
+        LoadReport report = new LoadReport();
+        long rps = Long.parseLong(settings.get("rps"));
+        long interval = rps > 0 ? TimeUnit.SECONDS.toNanos(1) / rps : 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        if ("closed".equals(settings.get("mode"))) {
+            int connections = Integer.parseInt(settings.get("connections"));
+            List<Thread> threads = new ArrayList<>(connections);
+            for (int i = 0; i < connections; i++) {
+                long offset = start + i * interval;
+                Thread thread = new Thread(() -> {
+                    for (long intended = offset; System.nanoTime() < end; intended += interval * connections) {
+                        if (rps > 0) {
+                            awaitUntil(intended);
+                        } else {
+                            intended = System.nanoTime();
+                        }
+                        send(report, intended).join();
+                    }
+                }, "load-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } else {
+            if (rps <= 0) {
+                throw new IllegalArgumentException("Open mode requires rps > 0");
+            }
+            List<CompletableFuture<Void>> pending = new ArrayList<>();
+            for (long intended = start; intended < end; intended += interval) {
+                awaitUntil(intended);
+                pending.add(send(report, intended));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+        }
+        report.setDurationNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    private CompletableFuture<Void> send(LoadReport report, long intended) {
+        Operation operation = mix.get(ThreadLocalRandom.current().nextInt(mix.size()));
+        String authorId = null;
+        if (operation == Operation.deleteAuthorWithBooks) {
+            authorId = createdAuthors.poll();
+            if (authorId == null) {
+                operation = Operation.saveBook;
+            }
+        }
+        Operation sent = operation;
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body(sent, authorId)))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, failure) -> {
+                    boolean error = failure != null || !handle(sent, response);
+                    report.record(sent.name(), System.nanoTime() - intended, error);
+                    return null;
+                });
+    }
+
+    private String body(Operation operation, String authorId) {
+        Map<String, Object> variables = switch (operation) {
+            case getAllBooks -> Map.of();
+            case getAuthor -> Map.of("name", randomAuthorName());
+            case saveBook -> Map.of("title", "load-book-" + sequence.incrementAndGet(),
+                    "authorNames", List.of("load-author-" + sequence.incrementAndGet(), randomAuthorName()));
+            case addAuthorToBook -> Map.of("bookId", ThreadLocalRandom.current().nextLong(1, books + 1L),
+                    "authorName", randomAuthorName());
+            case deleteAuthorWithBooks -> Map.of("authorId", authorId);
+        };
+        try {
+            return MAPPER.writeValueAsString(Map.of("query", operation.document, "variables", variables));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Проверяет ответ и запоминает созданных авторов для последующего удаления.
+     *
+     * @return true, если запрос выполнен без ошибок.
+     */
+    private boolean handle(Operation operation, HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            return false;
+        }
+        try {
+            JsonNode body = MAPPER.readTree(response.body());
+            if (body.has("errors")) {
+                return false;
+            }
+            if (operation == Operation.saveBook) {
+                for (JsonNode author : body.path("data").path("saveBook").path("authors")) {
+                    if (author.path("name").asText().startsWith("load-author-")) {
+                        createdAuthors.add(author.path("id").asText());
+                    }
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private String randomAuthorName() {
+        return CatalogSeeder.authorName(ThreadLocalRandom.current().nextLong(1, authors + 1L));
+    }
+
+    private static void awaitUntil(long deadline) {
+        for (long delay = deadline - System.nanoTime(); delay > 0; delay = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private enum Operation {
+        getAllBooks("query { getAllBooks { id title } }"),
+        getAuthor("query($name: String) { getAuthor(name: $name) { id name books { id title } } }"),
+        saveBook("mutation($title: String, $authorNames: [String]) { saveBook(title: $title, authorNames: $authorNames) { id authors { id name } } }"),
+        addAuthorToBook("mutation($bookId: ID!, $authorName: String) { addAuthorToBook(bookId: $bookId, authorName: $authorName) }"),
+        deleteAuthorWithBooks("mutation($authorId: ID!) { deleteAuthorWithBooks(authorId: $authorId) }");
+
+        private final String document;
+
+        Operation(String document) {
+            this.document = document;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.BookInput;
+import com.example.graphqldemo.model.Author;
+import com.example.graphqldemo.model.Book;
+import com.example.graphqldemo.service.MutationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MutationServiceBenchmark.
+ *
+ * Записи MutationService на заполненном каталоге {@link Catalog}: новые книги ссылаются на существующих
+ * авторов, изменения затрагивают случайные книги. Каталог растет во время измерения.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MutationServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private MutationService service;
+
+    @Setup
+    public void setUp(Catalog catalog) {
+        service = catalog.bean(MutationService.class);
+    }
+
+    @Benchmark
+    public Book saveBookWithExistingAuthors(Catalog catalog) {
+        return service.saveBook(catalog.unique("book"), catalog.randomAuthorNames());
+    }
+
+    @Benchmark
+    public Author saveAuthorWithNewBooks(Catalog catalog) {
+        return service.saveAuthor(catalog.unique("author"), List.of(catalog.unique("book"), catalog.unique("book")));
+    }
+
+    @Benchmark
+    public List<Book> saveBooksBatch(Catalog catalog) {
+        List<BookInput> inputs = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            inputs.add(new BookInput(catalog.unique("book"), catalog.randomAuthorNames()));
+        }
+        return service.saveBooks(inputs);
+    }
+
+    @Benchmark
+    public void updateBookTitle(Catalog catalog) {
+        service.updateBookTitle(catalog.randomBookId(), catalog.unique("title"));
+    }
+
+    @Benchmark
+    public void addNewAuthorToBook(Catalog catalog) {
+        service.addAuthorToBook(catalog.randomBookId(), catalog.unique("author"));
+    }
+}
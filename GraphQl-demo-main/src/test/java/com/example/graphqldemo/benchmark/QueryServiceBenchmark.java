@@ -0,0 +1,85 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.dto.AuthorView;
+import com.example.graphqldemo.dto.BookView;
+import com.example.graphqldemo.dto.Connection;
+import com.example.graphqldemo.dto.Cursor;
+import com.example.graphqldemo.service.FetchPlan;
+import com.example.graphqldemo.service.QueryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryServiceBenchmark.
+ *
+ * Чтения QueryService на заполненном каталоге {@link Catalog}. Авторы и книги выбираются случайно,
+ * getAllBooks читает весь каталог.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QueryServiceBenchmark {
+
+    private QueryService service;
+
+    @Setup
+    public void setUp(Catalog catalog) {
+        service = catalog.bean(QueryService.class);
+    }
+
+    @Benchmark
+    public List<BookView> getAllBooksScalar() {
+        return service.getAllBooks(FetchPlan.SCALAR);
+    }
+
+    @Benchmark
+    public List<BookView> getAllBooksWithAuthors() {
+        return service.getAllBooks(FetchPlan.RELATIONS);
+    }
+
+    @Benchmark
+    public AuthorView getAuthorScalar(Catalog catalog) {
+        return service.getAuthor(catalog.randomAuthorName(), FetchPlan.SCALAR);
+    }
+
+    @Benchmark
+    public AuthorView getAuthorWithBooks(Catalog catalog) {
+        return service.getAuthor(catalog.randomAuthorName(), FetchPlan.RELATIONS);
+    }
+
+    @Benchmark
+    public List<BookView> getBooksByAuthorScalar(Catalog catalog) {
+        return service.getBooksByAuthor(catalog.randomAuthorName(), FetchPlan.SCALAR);
+    }
+
+    @Benchmark
+    public List<BookView> getBooksByAuthorWithAuthors(Catalog catalog) {
+        return service.getBooksByAuthor(catalog.randomAuthorName(), FetchPlan.RELATIONS);
+    }
+
+    @Benchmark
+    public BookView getBookById(Catalog catalog) {
+        return service.getBookById(catalog.randomBookId());
+    }
+
+    @Benchmark
+    public Connection<BookView> booksConnectionPage(Catalog catalog) {
+        return service.getBooksConnection(QueryService.DEFAULT_PAGE_SIZE, Cursor.encode(catalog.randomBookId()));
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.graphqldemo.benchmark;
+
+import com.example.graphqldemo.service.SearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SearchIndexBenchmark.
+ *
+ * Построение {@link SearchIndex} и поиск по нему на сгенерированных названиях из 2-5 псевдослов, без базы данных.
+ * Запросы берутся из случайных названий индекса: начало первого слова, начала двух слов, слово с опечаткой
+ * и часть слова из середины. При подготовке печатается занимаемая индексом память в расчете на одно название.
+ *
+ * @author Turusov Roman
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchIndexBenchmark {
+
+    private static final String[] SYLLABLES = {
+            "ka", "ro", "mi", "tel", "an", "dor", "vi", "sen", "lo", "pra", "gu", "ment", "sha", "ber", "ol", "ny",
+            "zi", "ter", "ma", "ques", "fo", "lin", "ar", "det", "u", "cho", "ri", "stan", "e", "vol", "bi", "gra"
+    };
+    private static final int QUERIES = 1024;
+    private static final int LIMIT = 10;
+
+    @Param({"100000", "1000000"})
+    public int titles;
+
+    private String[] texts;
+    private SearchIndex index;
+    private final String[] prefix = new String[QUERIES];
+    private final String[] wordPrefixes = new String[QUERIES];
+    private final String[] typo = new String[QUERIES];
+    private final String[] substring = new String[QUERIES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        texts = new String[titles];
+        for (int i = 0; i < titles; i++) {
+            texts[i] = title(random);
+        }
+
+        long before = usedMemory();
+        index = build();
+        long after = usedMemory();
+        System.out.printf("%nsearch index: %d titles, %d bytes per title%n", titles, (after - before) / titles);
+
+        for (int i = 0; i < QUERIES; i++) {
+            String[] words = texts[random.nextInt(titles)].split(" ");
+            prefix[i] = words[0].substring(0, Math.min(3, words[0].length()));
+            wordPrefixes[i] = words[0].substring(0, Math.min(4, words[0].length())) + " "
+                    + words[1].substring(0, Math.min(2, words[1].length()));
+            typo[i] = typo(words[0], random);
+            substring[i] = words[0].length() > 4 ? words[0].substring(1, words[0].length() - 1) : words[0];
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public SearchIndex build() {
+        SearchIndex built = new SearchIndex();
+        for (int i = 0; i < texts.length; i++) {
+            built.put(i + 1, texts[i]);
+        }
+        return built;
+    }
+
+    @Benchmark
+    public long[] prefix() {
+        return index.search(prefix[next()], LIMIT);
+    }
+
+    @Benchmark
+    public long[] wordPrefixes() {
+        return index.search(wordPrefixes[next()], LIMIT);
+    }
+
+    @Benchmark
+    public long[] typo() {
+        return index.search(typo[next()], LIMIT);
+    }
+
+    @Benchmark
+    public long[] substring() {
+        return index.search(substring[next()], LIMIT);
+    }
+
+    private int next() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    private static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 2 + random.nextInt(4);
+        for (int word = 0; word < words; word++) {
+            if (word > 0) {
+                title.append(' ');
+            }
+            int syllables = 1 + random.nextInt(4);
+            for (int i = 0; i < syllables; i++) {
+                title.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+        }
+        return title.toString();
+    }
+
+    /**
+     * Заменить одну букву слова, кроме первой.
+     */
+    private static String typo(String word, Random random) {
+        if (word.length() < 4) {
+            return word;
+        }
+        int position = 1 + random.nextInt(word.length() - 1);
+        char replacement = (char) ('a' + random.nextInt(26));
+        return word.substring(0, position) + replacement + word.substring(position + 1);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,10 @@
+-- Схема реплики для профиля replica повторяет миграции из db/migration; в рабочей среде реплика получает ее репликацией.
+create sequence if not exists author_seq start with 1 increment by 50;
+create sequence if not exists book_seq start with 1 increment by 50;
+create table if not exists author (id bigint not null primary key, name varchar(255) unique,
+    version bigint default 0 not null);
+create table if not exists book (id bigint not null primary key, title varchar(255) unique,
+    version bigint default 0 not null);
+create table if not exists book_author (author_id bigint not null references author, book_id bigint not null references book,
+    primary key (author_id, book_id));
+create index if not exists book_author_book_id_idx on book_author (book_id);